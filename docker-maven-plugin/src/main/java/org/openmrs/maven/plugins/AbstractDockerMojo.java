@@ -1,7 +1,11 @@
 package org.openmrs.maven.plugins;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.ListImagesCmd;
 import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Image;
+import com.github.dockerjava.api.model.PullResponseItem;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.core.DockerClientConfig;
@@ -13,11 +17,14 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 abstract class AbstractDockerMojo extends AbstractMojo {
 
@@ -111,9 +118,55 @@ abstract class AbstractDockerMojo extends AbstractMojo {
         return null;
     }
 
+    protected void pullImageIfMissing(String image) throws MojoExecutionException {
+        ListImagesCmd listImagesCmd = docker.listImagesCmd();
+        listImagesCmd.getFilters().put("reference", Collections.singletonList(image));
+        List<Image> images = listImagesCmd.exec();
+        if (!images.isEmpty()) {
+            return;
+        }
+
+        String repository = image.substring(0, image.lastIndexOf(':'));
+        String tag = image.substring(image.lastIndexOf(':') + 1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        docker.pullImageCmd(repository)
+                .withTag(tag)
+                .exec(new ResultCallback<PullResponseItem>() {
+                    @Override
+                    public void onStart(Closeable closeable) {
+                        showMessage("Started downloading " + image + " image ...");
+                    }
+
+                    @Override
+                    public void onNext(PullResponseItem object) {
+
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        showMessage("Error downloading " + image + " image : " + throwable.getMessage());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        showMessage("Finished!");
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void close() {
+
+                    }
+                });
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new MojoExecutionException("Failed to download " + image + " image " + e.getMessage(), e);
+        }
+    }
+
     protected void showMessage(String message) {
         logger.info("\n{}", message);
     }
 }
-
-
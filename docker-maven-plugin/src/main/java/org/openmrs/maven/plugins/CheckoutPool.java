@@ -0,0 +1,99 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Takes an idle database container out of the pool under the given name and creates its replacement in the
+ * background. A new container is created if the pool is empty or if its containers have not been created yet.
+ * <p>
+ * The replacements are created while the database of the checked out container is waited for. The goal returns
+ * once both are done, as the docker client is closed with it, but the replacements initialise on their own after that.
+ *
+ * @goal checkout-pool
+ * @requiresProject false
+ */
+public class CheckoutPool extends AbstractDockerMojo {
+
+    /**
+     * name of the container once checked out
+     *
+     * @parameter  property="container"
+     */
+    protected String container;
+
+    /**
+     * database engine of the container, 'mysql' or 'postgresql'. Setup only takes 'mysql' containers from the pool.
+     *
+     * @parameter  property="engine" default-value="mysql"
+     */
+    protected String engine = "mysql";
+
+    /**
+     * number of idle containers to keep after the checkout
+     *
+     * @parameter  property="size" default-value="2"
+     */
+    protected int size = 2;
+
+    @Override
+    public void executeTask() throws MojoExecutionException {
+        if (StringUtils.isBlank(container)) {
+            throw new MojoExecutionException("The name of the container to check out must be specified with -Dcontainer");
+        }
+        ContainerPool.Engine poolEngine;
+        try {
+            poolEngine = ContainerPool.Engine.forName(engine);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        if (findContainer(container) != null) {
+            showMessage("The '" + container + "' container already exists");
+            return;
+        }
+
+        pullImageIfMissing(poolEngine.image);
+
+        ContainerPool pool = new ContainerPool(docker);
+        if (pool.checkout(poolEngine, container)) {
+            showMessage("Checked out '" + container + "' from the pool of " + poolEngine.getName() + " containers");
+        } else {
+            showMessage("The pool of " + poolEngine.getName() + " containers is empty, created '" + container + "'");
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> fill = executor.submit(() -> pool.fill(poolEngine, size));
+
+            Integer port = pool.getHostPort(container, poolEngine);
+            if (port != null) {
+                try {
+                    showMessage(pool.awaitReady(poolEngine, port, 120000));
+                } catch (SQLException e) {
+                    throw new MojoExecutionException("The database in the '" + container + "' container is not ready: "
+                            + e.getMessage(), e);
+                }
+            }
+
+            try {
+                fill.get();
+            } catch (ExecutionException e) {
+                // the checked out container is ready, a pool which could not be replenished is not fatal
+                showMessage("Failed to replenish the pool of " + poolEngine.getName() + " containers: "
+                        + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while replenishing the pool", e);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.openmrs.maven.plugins;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.InternalServerErrorException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.exception.NotModifiedException;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.PortBinding;
+import com.github.dockerjava.api.model.Ports;
+import org.openmrs.maven.plugins.utility.DatabaseReadinessProbe;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * A pool of idle database containers, which are created and started ahead of time so that the first-boot
+ * initialisation of the database is already done when a server needs one.
+ * <p>
+ * Idle containers are named {@value #NAME_PREFIX}&lt;engine&gt;-&lt;id&gt; and labelled with {@value #POOL_LABEL}.
+ * A container is checked out by renaming it, which docker does atomically, so concurrent checkouts never share a
+ * container. Each container gets its own port on the host, which is kept when it is checked out. Ports are picked
+ * without coordination between processes, so a container whose port was taken in the meantime is recreated on the next
+ * free port.
+ */
+class ContainerPool {
+
+    static final String POOL_LABEL = DockerHelper.DOCKER_POOL_LABEL;
+
+    static final String NAME_PREFIX = "openmrs-sdk-pool-";
+
+    static final String DEFAULT_PASSWORD = "Admin123";
+
+    private static final int MAX_PORT_ATTEMPTS = 10;
+
+    enum Engine {
+        MYSQL("mysql:8.4.1", 3306, 3320, "jdbc:mysql://", "root", "MYSQL_ROOT_PASSWORD="),
+        POSTGRESQL("postgres:16.4", 5432, 5440, "jdbc:postgresql://", "postgres", "POSTGRES_PASSWORD=");
+
+        final String image;
+
+        final int containerPort;
+
+        final int firstHostPort;
+
+        final String jdbcPrefix;
+
+        final String user;
+
+        final String passwordVariable;
+
+        Engine(String image, int containerPort, int firstHostPort, String jdbcPrefix, String user,
+                String passwordVariable) {
+            this.image = image;
+            this.containerPort = containerPort;
+            this.firstHostPort = firstHostPort;
+            this.jdbcPrefix = jdbcPrefix;
+            this.user = user;
+            this.passwordVariable = passwordVariable;
+        }
+
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        static Engine forName(String name) {
+            for (Engine engine : values()) {
+                if (engine.getName().equalsIgnoreCase(name)) {
+                    return engine;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported database engine '" + name + "', use 'mysql' or 'postgresql'");
+        }
+    }
+
+    private final DockerClient docker;
+
+    private final String namePrefix;
+
+    ContainerPool(DockerClient docker) {
+        this(docker, NAME_PREFIX);
+    }
+
+    /**
+     * @param namePrefix prefix of the names of the idle containers, which keeps pools with different prefixes apart
+     */
+    ContainerPool(DockerClient docker, String namePrefix) {
+        this.docker = docker;
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * @return the idle containers of the engine, running ones first and then the oldest first, as they are the most
+     * likely to have completed their initialisation
+     */
+    List<Container> getIdleContainers(Engine engine) {
+        List<Container> containers = docker.listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(Collections.singletonMap(POOL_LABEL, engine.getName()))
+                .exec();
+        return containers.stream()
+                .filter(container -> getName(container).startsWith(namePrefix + engine.getName() + "-"))
+                .sorted(Comparator.comparing((Container container) -> !"running".equals(container.getState()))
+                        .thenComparing(Container::getCreated))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates and starts containers until the pool has the given number of idle containers. Containers are not
+     * waited for, the database initialises while the caller goes on.
+     *
+     * @return the names of the containers created
+     */
+    List<String> fill(Engine engine, int size) {
+        List<Container> idle = getIdleContainers(engine);
+        for (Container container : idle) {
+            if (!"running".equals(container.getState())) {
+                start(container.getId());
+            }
+        }
+
+        List<String> created = new ArrayList<>();
+        for (int i = idle.size(); i < size; i++) {
+            String name = namePrefix + engine.getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            create(engine, name);
+            created.add(name);
+        }
+        return created;
+    }
+
+    /**
+     * Takes an idle container out of the pool and renames it, starting it if needed. If the pool is empty a new
+     * container is created under the given name.
+     *
+     * @return true if the container came from the pool
+     */
+    boolean checkout(Engine engine, String name) {
+        for (Container container : getIdleContainers(engine)) {
+            try {
+                docker.renameContainerCmd(container.getId()).withName(name).exec();
+            }
+            catch (NotFoundException | ConflictException e) {
+                // taken by a concurrent checkout
+                continue;
+            }
+            start(container.getId());
+            return true;
+        }
+
+        create(engine, name);
+        return false;
+    }
+
+    /**
+     * @return the port on the host bound to the database port of the container, or null if there is none
+     */
+    Integer getHostPort(String container, Engine engine) {
+        Ports portBindings = docker.inspectContainerCmd(container).exec().getHostConfig().getPortBindings();
+        if (portBindings == null) {
+            return null;
+        }
+        Ports.Binding[] bindings = portBindings.getBindings().get(ExposedPort.tcp(engine.containerPort));
+        if (bindings == null || bindings.length == 0 || bindings[0].getHostPortSpec() == null) {
+            return null;
+        }
+        return Integer.valueOf(bindings[0].getHostPortSpec());
+    }
+
+    /**
+     * Waits until the database of a container accepts connections. Docker accepts connections to the port on the
+     * host before the database is listening, so the MySQL driver, which the plugin ships, is used to connect.
+     *
+     * @return a report of the time spent waiting
+     * @throws SQLException if the database is not ready before the deadline
+     */
+    String awaitReady(Engine engine, int port, long deadlineMillis) throws SQLException {
+        String url = engine.jdbcPrefix + "localhost:" + port + "/";
+        DatabaseReadinessProbe probe = new DatabaseReadinessProbe().withDeadline(deadlineMillis);
+        if (engine == Engine.MYSQL) {
+            probe.awaitReady(url, engine.user, DEFAULT_PASSWORD);
+        } else if (!probe.awaitPort(url)) {
+            throw new SQLException("The database at " + url + " did not accept connections within " + deadlineMillis + " ms");
+        }
+        return probe.getReport();
+    }
+
+    /**
+     * Removes all idle containers of the engine
+     *
+     * @return the number of containers removed
+     */
+    int drain(Engine engine) {
+        List<Container> idle = getIdleContainers(engine);
+        for (Container container : idle) {
+            docker.removeContainerCmd(container.getId()).withForce(true).withRemoveVolumes(true).exec();
+        }
+        return idle.size();
+    }
+
+    private void create(Engine engine, String name) {
+        Set<Integer> unavailablePorts = new HashSet<>();
+        for (int attempt = 1; ; attempt++) {
+            int port = findFreeHostPort(engine, unavailablePorts);
+            PortBinding portBinding = new PortBinding(new Ports.Binding("localhost", String.valueOf(port)),
+                    ExposedPort.tcp(engine.containerPort));
+
+            String id = docker.createContainerCmd(engine.image)
+                    .withName(name)
+                    .withHostConfig(new HostConfig().withPortBindings(portBinding))
+                    .withEnv(engine.passwordVariable + DEFAULT_PASSWORD)
+                    .withLabels(Collections.singletonMap(POOL_LABEL, engine.getName()))
+                    .exec()
+                    .getId();
+            try {
+                start(id);
+                return;
+            }
+            catch (InternalServerErrorException e) {
+                // the port was taken by a concurrent fill or by a process outside of docker
+                docker.removeContainerCmd(id).withForce(true).withRemoveVolumes(true).exec();
+                if (!isPortConflict(e) || attempt == MAX_PORT_ATTEMPTS) {
+                    throw e;
+                }
+                unavailablePorts.add(port);
+            }
+        }
+    }
+
+    private static boolean isPortConflict(InternalServerErrorException e) {
+        String message = String.valueOf(e.getMessage()).toLowerCase(Locale.ROOT);
+        return message.contains("port is already allocated") || message.contains("address already in use");
+    }
+
+    private void start(String id) {
+        try {
+            docker.startContainerCmd(id).exec();
+        }
+        catch (NotModifiedException e) {
+            // already running
+        }
+    }
+
+    private int findFreeHostPort(Engine engine, Set<Integer> unavailablePorts) {
+        Set<Integer> usedPorts = new HashSet<>(unavailablePorts);
+        for (Container container : docker.listContainersCmd().withShowAll(true).exec()) {
+            for (ContainerPort port : container.getPorts()) {
+                if (port.getPublicPort() != null) {
+                    usedPorts.add(port.getPublicPort());
+                }
+            }
+            // ports of stopped containers are not listed
+            if (!"running".equals(container.getState())) {
+                usedPorts.addAll(getBoundPorts(container.getId()));
+            }
+        }
+
+        int port = engine.firstHostPort;
+        while (usedPorts.contains(port)) {
+            port++;
+        }
+        return port;
+    }
+
+    private Set<Integer> getBoundPorts(String container) {
+        Set<Integer> ports = new HashSet<>();
+        Ports portBindings = docker.inspectContainerCmd(container).exec().getHostConfig().getPortBindings();
+        if (portBindings == null) {
+            return ports;
+        }
+        for (Map.Entry<ExposedPort, Ports.Binding[]> entry : portBindings.getBindings().entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            for (Ports.Binding binding : entry.getValue()) {
+                if (binding.getHostPortSpec() != null && binding.getHostPortSpec().matches("\\d+")) {
+                    ports.add(Integer.valueOf(binding.getHostPortSpec()));
+                }
+            }
+        }
+        return ports;
+    }
+
+    private static String getName(Container container) {
+        // on Linux name is prepended with '/'
+        return container.getNames().length == 0 ? "" : container.getNames()[0].replaceFirst("^/", "");
+    }
+}
@@ -1,25 +1,21 @@
 package org.openmrs.maven.plugins;
 
 import com.github.dockerjava.api.DockerClient;
-import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.HostConfig;
-import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports;
-import com.github.dockerjava.api.model.PullResponseItem;
 import com.github.dockerjava.api.model.Volume;
 import org.apache.commons.lang.StringUtils;
-import com.github.dockerjava.api.command.ListImagesCmd;
 import org.apache.maven.plugin.MojoExecutionException;
 
-import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * @goal create-mysql
@@ -27,6 +23,10 @@ import java.util.concurrent.CountDownLatch;
  */
 public class CreateMySql extends AbstractDockerMojo {
 
+    public static final String PROFILE_PERFORMANCE = "performance";
+
+    private static final String PROFILE_LABEL = "openmrs-sdk.mysql.profile";
+
     /**
      * port exposed by mysql container to connect with db
      *
@@ -48,87 +48,77 @@ public class CreateMySql extends AbstractDockerMojo {
      */
     protected String rootPassword;
 
+    /**
+     * 'performance' to keep the data in memory and relax durability, for disposable servers (defaults to 'default')
+     *
+     * @parameter  property="profile"
+     */
+    protected String profile;
+
+    /**
+     * size of the InnoDB buffer pool of the performance profile
+     *
+     * @parameter  property="bufferPoolSize" default-value="1G"
+     */
+    protected String bufferPoolSize = "1G";
+
+    /**
+     * size of the in-memory data directory of the performance profile
+     *
+     * @parameter  property="tmpfsSize" default-value="4g"
+     */
+    protected String tmpfsSize = "4g";
+
     @Override
     public void executeTask() throws MojoExecutionException {
         if (StringUtils.isBlank(port)) port = DEFAULT_MYSQL_EXPOSED_PORT;
         //root password may be blank but not null, if user wants to have empty password
         if (rootPassword == null) rootPassword = DEFAULT_MYSQL_PASSWORD;
+        if (container == null) container = DEFAULT_MYSQL_CONTAINER;
 
-        if (noMySqlImage(docker)) {
-            pullMySqlImage(docker);
-        }
+        pullImageIfMissing(MYSQL_8_4_1);
 
-        if (findContainer(DEFAULT_MYSQL_CONTAINER) == null) {
+        if (findContainer(container) == null) {
             createMysqlContainer(docker);
         }
     }
 
-    private boolean noMySqlImage(DockerClient docker) {
-        ListImagesCmd listImagesCmd = docker.listImagesCmd();
-        listImagesCmd.getFilters().put("reference", Collections.singletonList(MYSQL_8_4_1));
-        List<Image> mysql = listImagesCmd.exec();
-        return mysql.isEmpty();
-    }
-
     private void createMysqlContainer(DockerClient docker) {
-        if (container == null) container = DEFAULT_MYSQL_CONTAINER;
-
         PortBinding portBinding = new PortBinding(new Ports.Binding("localhost", port), ExposedPort.tcp(3306));
 
         Map<String, String> labels = new HashMap<>();
         labels.put(container, "true");
 
-        Volume volume = new Volume("/var/lib/mysql");
-        Bind boundVolume = new Bind(container + "-data", volume);
-
         HostConfig hostConfig = new HostConfig()
-                .withPortBindings(portBinding)
-                .withBinds(boundVolume);
+                .withPortBindings(portBinding);
+
+        List<String> cmd = new ArrayList<>();
+        if (PROFILE_PERFORMANCE.equals(profile)) {
+            // the data directory is in memory and writes are not flushed to disk, trading durability for speed,
+            // so the data is lost when the container is stopped
+            showMessage("Creating '" + container + "' with its data in memory, the databases will be lost when it stops");
+            hostConfig.withTmpFs(Collections.singletonMap("/var/lib/mysql", "rw,size=" + tmpfsSize));
+            cmd.add("--innodb-buffer-pool-size=" + bufferPoolSize);
+            cmd.add("--innodb-flush-log-at-trx-commit=0");
+            cmd.add("--innodb-doublewrite=OFF");
+            cmd.add("--sync-binlog=0");
+            cmd.add("--skip-log-bin");
+            labels.put(PROFILE_LABEL, PROFILE_PERFORMANCE);
+        } else {
+            Volume volume = new Volume("/var/lib/mysql");
+            hostConfig.withBinds(new Bind(container + "-data", volume));
+        }
 
-        docker.createContainerCmd(MYSQL_8_4_1)
+        CreateContainerCmd createContainerCmd = docker.createContainerCmd(MYSQL_8_4_1)
                 .withHostConfig(hostConfig)
                 .withName(container)
                 .withEnv("MYSQL_ROOT_PASSWORD="+rootPassword)
                 .withAttachStdout(true)
-                .withLabels(labels)
-                .exec();
-    }
-
-    private void pullMySqlImage(DockerClient docker) throws MojoExecutionException {
-        final CountDownLatch latch = new CountDownLatch(1);
-        docker.pullImageCmd("mysql")
-                .withTag("8.4.1")
-                .exec(new ResultCallback<PullResponseItem>() {
-                    @Override
-                    public void onStart(Closeable closeable) {
-                        showMessage("Started downloading mysql:8.4.1 image ...");
-                    }
-
-                    @Override
-                    public void onNext(PullResponseItem object) {
-
-                    }
-
-                    @Override
-                    public void onError(Throwable throwable) {
-                        showMessage("Error downloading mysql:8.4.1 image : " + throwable.getMessage());
-                    }
-
-                    @Override
-                    public void onComplete() {
-                        showMessage("Finished!");
-                        latch.countDown();
-                    }
-
-                    @Override
-                    public void close() {
-
-                    }
-                });
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            throw new MojoExecutionException("Failed to create mysql container " + e.getMessage(), e);
+                .withLabels(labels);
+        if (!cmd.isEmpty()) {
+            // the entrypoint of the image passes options to mysqld
+            createContainerCmd.withCmd(cmd);
         }
+        createContainerCmd.exec();
     }
 }
@@ -0,0 +1,69 @@
+package org.openmrs.maven.plugins;
+
+import com.github.dockerjava.api.model.Container;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Creates idle database containers, so that setting up servers does not wait for the database to initialise.
+ *
+ * @goal fill-pool
+ * @requiresProject false
+ */
+public class FillPool extends AbstractDockerMojo {
+
+    /**
+     * database engine of the containers, 'mysql' or 'postgresql'
+     *
+     * @parameter  property="engine" default-value="mysql"
+     */
+    protected String engine = "mysql";
+
+    /**
+     * number of idle containers to keep
+     *
+     * @parameter  property="size" default-value="2"
+     */
+    protected int size = 2;
+
+    /**
+     * wait until the databases of the containers accept connections
+     *
+     * @parameter  property="wait" default-value="true"
+     */
+    protected boolean wait = true;
+
+    @Override
+    public void executeTask() throws MojoExecutionException {
+        ContainerPool.Engine poolEngine;
+        try {
+            poolEngine = ContainerPool.Engine.forName(engine);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        pullImageIfMissing(poolEngine.image);
+
+        ContainerPool pool = new ContainerPool(docker);
+        List<String> created = pool.fill(poolEngine, size);
+        showMessage("Created " + created.size() + " " + poolEngine.getName() + " container(s) for the pool");
+
+        if (wait) {
+            for (Container container : pool.getIdleContainers(poolEngine)) {
+                Integer port = pool.getHostPort(container.getId(), poolEngine);
+                if (port == null) {
+                    continue;
+                }
+                try {
+                    pool.awaitReady(poolEngine, port, 120000);
+                } catch (SQLException e) {
+                    throw new MojoExecutionException("The database in the '" + container.getNames()[0]
+                            + "' container is not ready: " + e.getMessage(), e);
+                }
+            }
+            showMessage("The pool has " + size + " idle " + poolEngine.getName() + " container(s) ready");
+        }
+    }
+}
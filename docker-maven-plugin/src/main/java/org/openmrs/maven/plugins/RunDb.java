@@ -4,7 +4,9 @@ import com.github.dockerjava.api.model.Container;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 
-import java.sql.DriverManager;
+import org.openmrs.maven.plugins.utility.DatabaseReadinessProbe;
+
+import java.sql.SQLException;
 
 /**
  * @goal run-db
@@ -66,19 +68,15 @@ public class RunDb extends AbstractDockerMojo {
 
             //wait until MySQL is ready for connections, usually takes miliseconds,
             //but if there is automatically created connection after start-up, it may be refused
-            long start = System.currentTimeMillis();
             showMessage("Trying to connect to the DB...");
-            while (System.currentTimeMillis() - start < 30000) {
-                try {
-                    DriverManager.getConnection(dbUri, username, password);
-                    //breaks only if connection is established
-                    showMessage("Connected to the DB.");
-                    return;
-                } catch (Exception e) {
-                    //do nothing, iterate again
-                }
+            DatabaseReadinessProbe probe = new DatabaseReadinessProbe().withDeadline(30000);
+            try {
+                probe.awaitReady(dbUri, username, password);
+                showMessage("Connected to the DB. " + probe.getReport());
+            } catch (SQLException e) {
+                throw new MojoExecutionException("Failed to connect to the DB in the '" + this.container + "' container at '"
+                        + dbUri + "': " + e.getMessage(), e);
             }
-            throw new MojoExecutionException("Failed to connect to the DB in the '" + this.container + "' container at '" + dbUri + "'");
         }
     }
 
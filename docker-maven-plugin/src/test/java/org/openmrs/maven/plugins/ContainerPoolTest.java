@@ -0,0 +1,100 @@
+package org.openmrs.maven.plugins;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Runs against the local docker daemon and is skipped if there is none, or if the MySQL image has not been pulled.
+ * The pool uses its own name prefix, so that the containers of the pool used by servers are left alone.
+ */
+public class ContainerPoolTest {
+
+    private static final String TEST_PREFIX = "openmrs-sdk-pool-test-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+
+    private static final String CHECKED_OUT = TEST_PREFIX + "checked-out";
+
+    private DockerClient docker;
+
+    private ContainerPool pool;
+
+    @Before
+    public void setUp() {
+        DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        docker = DockerClientBuilder.getInstance(config).withDockerHttpClient(
+                new ApacheDockerHttpClient.Builder().dockerHost(config.getDockerHost()).sslConfig(config.getSSLConfig()).build()
+        ).build();
+        try {
+            docker.infoCmd().exec();
+        } catch (Exception e) {
+            assumeNoException("Docker is not available", e);
+        }
+        assumeFalse("The " + ContainerPool.Engine.MYSQL.image + " image is not available", docker.listImagesCmd()
+                .withImageNameFilter(ContainerPool.Engine.MYSQL.image).exec().isEmpty());
+
+        pool = new ContainerPool(docker, TEST_PREFIX);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            for (Container container : docker.listContainersCmd().withShowAll(true)
+                    .withNameFilter(Collections.singletonList(TEST_PREFIX)).exec()) {
+                docker.removeContainerCmd(container.getId()).withForce(true).withRemoveVolumes(true).exec();
+            }
+        }
+        if (docker != null) {
+            docker.close();
+        }
+    }
+
+    @Test
+    public void fill_shouldCreateContainersOnDistinctPortsUpToTheSize() {
+        pool.fill(ContainerPool.Engine.MYSQL, 2);
+        pool.fill(ContainerPool.Engine.MYSQL, 2);
+
+        List<Container> idle = pool.getIdleContainers(ContainerPool.Engine.MYSQL);
+        assertThat(idle, hasSize(2));
+        assertThat(pool.getHostPort(idle.get(0).getId(), ContainerPool.Engine.MYSQL),
+                not(pool.getHostPort(idle.get(1).getId(), ContainerPool.Engine.MYSQL)));
+    }
+
+    @Test
+    public void checkout_shouldTakeAnIdleContainerOutOfThePool() throws Exception {
+        pool.fill(ContainerPool.Engine.MYSQL, 1);
+        Integer port = pool.getHostPort(pool.getIdleContainers(ContainerPool.Engine.MYSQL).get(0).getId(),
+                ContainerPool.Engine.MYSQL);
+        pool.awaitReady(ContainerPool.Engine.MYSQL, port, 120000);
+
+        assertThat(pool.checkout(ContainerPool.Engine.MYSQL, CHECKED_OUT), is(true));
+
+        assertThat(pool.getIdleContainers(ContainerPool.Engine.MYSQL), hasSize(0));
+        assertThat(pool.getHostPort(CHECKED_OUT, ContainerPool.Engine.MYSQL), is(port));
+    }
+
+    @Test
+    public void checkout_shouldCreateAContainerIfThePoolIsEmpty() {
+        assertThat(pool.checkout(ContainerPool.Engine.MYSQL, CHECKED_OUT), is(false));
+
+        assertThat(pool.getHostPort(CHECKED_OUT, ContainerPool.Engine.MYSQL), notNullValue());
+        assertThat(pool.getIdleContainers(ContainerPool.Engine.MYSQL), hasSize(0));
+    }
+}
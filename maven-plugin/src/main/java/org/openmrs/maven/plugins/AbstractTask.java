@@ -21,6 +21,7 @@ import org.openmrs.maven.plugins.utility.ContentHelper;
 import org.openmrs.maven.plugins.utility.DefaultJira;
 import org.openmrs.maven.plugins.utility.DistroHelper;
 import org.openmrs.maven.plugins.utility.DockerHelper;
+import org.openmrs.maven.plugins.utility.HttpFetcher;
 import org.openmrs.maven.plugins.utility.Jira;
 import org.openmrs.maven.plugins.utility.MavenEnvironment;
 import org.openmrs.maven.plugins.utility.ModuleInstaller;
@@ -199,7 +200,7 @@ public abstract class AbstractTask extends AbstractMojo {
 			gitHelper = new DefaultGitHelper();
 		}
 		if (versionsHelper == null) {
-			versionsHelper = new VersionsHelper(mavenEnvironment);
+			versionsHelper = mavenEnvironment.getVersionsHelper();
 		}
 		if (moduleInstaller == null) {
 			moduleInstaller = new ModuleInstaller(mavenEnvironment);
@@ -225,6 +226,9 @@ public abstract class AbstractTask extends AbstractMojo {
 		if (StringUtils.isNotBlank(openMRSPath)) {
 			Server.setServersPath(openMRSPath);
 		}
+		if (mavenSession != null) {
+			HttpFetcher.setOffline(mavenSession.isOffline());
+		}
 
 		if ((batchAnswers != null && !batchAnswers.isEmpty()) || testMode) {
 			wizard.setAnswers(batchAnswers);
@@ -234,9 +238,18 @@ public abstract class AbstractTask extends AbstractMojo {
 
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
+		long start = System.nanoTime();
 		initTask();
-		new StatsManager(wizard, mavenSession, stats).incrementGoalStats();
-		executeTask();
+		getLog().debug(String.format("Initialized %s in %.1f ms", getClass().getSimpleName(),
+				(System.nanoTime() - start) / 1000000.0));
+		StatsManager statsManager = new StatsManager(wizard, mavenSession, stats);
+		statsManager.incrementGoalStats();
+		try {
+			executeTask();
+		}
+		finally {
+			statsManager.awaitFlush();
+		}
 	}
 
     abstract public void executeTask() throws MojoExecutionException, MojoFailureException;
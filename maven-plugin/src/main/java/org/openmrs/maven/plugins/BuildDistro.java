@@ -32,7 +32,11 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.openmrs.maven.plugins.utility.SDKConstants.REFAPP_2X_PROMPT;
 import static org.openmrs.maven.plugins.utility.SDKConstants.REFAPP_3X_PROMPT;
@@ -81,6 +85,13 @@ public class BuildDistro extends AbstractTask {
 	@Parameter(property = "distro")
 	private String distro;
 
+	/**
+	 * Comma-separated list of distro properties files or distro artifacts to build within a single invocation.
+	 * Each distribution is built into its own subdirectory of the build directory.
+	 */
+	@Parameter(property = "distros")
+	private String distros;
+
 	/**
 	 * Directory for generated files. (default to 'docker')
 	 */
@@ -123,6 +134,11 @@ public class BuildDistro extends AbstractTask {
 
 	@Override
 	public void executeTask() throws MojoExecutionException, MojoFailureException {
+		if (StringUtils.isNotBlank(distros)) {
+			buildDistros();
+			return;
+		}
+
 		File buildDirectory = getBuildDirectory();
 
 		File userDir = new File(System.getProperty("user.dir"));
@@ -150,6 +166,7 @@ public class BuildDistro extends AbstractTask {
 		}
 
 		if (distribution == null) {
+			wizard.prefetchDistroVersions(versionsHelper);
 
 			List<String> options = new ArrayList<>();
 			options.add(REFAPP_2X_PROMPT);
@@ -178,6 +195,92 @@ public class BuildDistro extends AbstractTask {
 						+ buildDirectory.getAbsolutePath() + "\n");
 	}
 
+	/**
+	 * Builds each of the distributions listed in the distros parameter, sharing the resolved distributions and
+	 * the node installation between the builds, and reports the time taken for each of them
+	 */
+	private void buildDistros() throws MojoExecutionException {
+		long batchStart = System.currentTimeMillis();
+
+		File baseDirectory = new File(StringUtils.isNotBlank(dir) ? dir : wizard.promptForValueIfMissingWithDefault(
+				"Specify build directory for generated files (-Ddir, default: 'docker')", dir, "dir", "docker"));
+		if (baseDirectory.exists() && !baseDirectory.isDirectory()) {
+			throw new MojoExecutionException("The specified path '" + baseDirectory.getAbsolutePath() + "' is not a directory.");
+		}
+		baseDirectory.mkdirs();
+
+		if (overrideReuseNodeCache == null) {
+			overrideReuseNodeCache = true;
+		}
+
+		DistributionBuilder builder = new DistributionBuilder(getMavenEnvironment());
+		Map<String, Distribution> distributions = new LinkedHashMap<>();
+		Map<String, Long> resolveTimes = new LinkedHashMap<>();
+		for (String specifier : distros.split(",")) {
+			specifier = specifier.trim();
+			if (specifier.isEmpty()) {
+				continue;
+			}
+			long start = System.currentTimeMillis();
+			Distribution distribution = distroHelper.resolveDistributionForStringSpecifier(specifier, versionsHelper, builder);
+			if (distribution == null) {
+				throw new MojoExecutionException("The distro you specified, '" + specifier + "' could not be retrieved");
+			}
+			distributions.put(specifier, distribution);
+			resolveTimes.put(specifier, System.currentTimeMillis() - start);
+		}
+
+		Set<String> directoryNames = new HashSet<>();
+		Map<String, Long> buildTimes = new LinkedHashMap<>();
+		Map<String, File> buildDirectories = new LinkedHashMap<>();
+		for (Map.Entry<String, Distribution> entry : distributions.entrySet()) {
+			Distribution distribution = entry.getValue();
+			String directoryName = adjustImageName(distribution.getName());
+			if (directoryName.isEmpty() || !directoryNames.add(directoryName)) {
+				directoryName = directoryName + "-" + adjustImageName(distribution.getVersion());
+				if (!directoryNames.add(directoryName)) {
+					throw new MojoExecutionException("The distro '" + entry.getKey() + "' is listed more than once");
+				}
+			}
+
+			File buildDirectory = new File(baseDirectory, directoryName);
+			prepareBatchBuildDirectory(buildDirectory);
+
+			wizard.showMessage("Building distribution '" + entry.getKey() + "' into " + buildDirectory.getAbsolutePath() + "\n");
+			long start = System.currentTimeMillis();
+			buildDistro(buildDirectory, distribution);
+			buildTimes.put(entry.getKey(), System.currentTimeMillis() - start);
+			buildDirectories.put(entry.getKey(), buildDirectory);
+		}
+
+		StringBuilder report = new StringBuilder("Built " + distributions.size() + " distributions:\n");
+		for (String specifier : distributions.keySet()) {
+			report.append(String.format("  %s -> %s (resolved in %.1fs, built in %.1fs)%n", specifier,
+					buildDirectories.get(specifier).getAbsolutePath(), resolveTimes.get(specifier) / 1000.0,
+					buildTimes.get(specifier) / 1000.0));
+		}
+		report.append(String.format("Total time: %.1fs%n", (System.currentTimeMillis() - batchStart) / 1000.0));
+		report.append("To start up a server run 'docker-compose up' from its directory\n");
+		wizard.showMessage(report.toString());
+	}
+
+	/**
+	 * Build directories within a batch are owned by the batch, so they are cleaned without prompting if they contain
+	 * a previous build, but any other content is only removed if reset is requested
+	 */
+	private void prepareBatchBuildDirectory(File targetDir) throws MojoExecutionException {
+		if (!targetDir.exists()) {
+			targetDir.mkdirs();
+		} else if (reset) {
+			deleteDirectory(targetDir);
+		} else if (isDockerComposeCreated(targetDir)) {
+			deleteDistroFiles(new File(targetDir, WEB));
+		} else if (targetDir.list() != null && targetDir.list().length != 0) {
+			throw new MojoExecutionException("The directory at '" + targetDir.getAbsolutePath()
+					+ "' is not empty. Use -Dreset=true to remove its content.");
+		}
+	}
+
 	private File getBuildDirectory() throws MojoExecutionException {
 		final File targetDir;
 		if (StringUtils.isBlank(dir)) {
@@ -256,6 +359,7 @@ public class BuildDistro extends AbstractTask {
 		File web = new File(targetDirectory, WEB);
 		web.mkdirs();
 
+		spaInstaller.prepareFromDistroProperties(distroProperties, overrideReuseNodeCache);
 		moduleInstaller.installModules(distroProperties.getWarArtifacts(), web.getAbsolutePath());
 		renameWebApp(web);
 
@@ -347,10 +451,7 @@ public class BuildDistro extends AbstractTask {
 		List<Artifact> owas = distroProperties.getOwaArtifacts();
 		if (!owas.isEmpty()) {
 			wizard.showMessage("Downloading OWAs...\n");
-			for (Artifact owa : owas) {
-				wizard.showMessage("Downloading OWA: " + owa);
-				owaHelper.downloadOwa(owasDir, owa, moduleInstaller);
-			}
+			owaHelper.downloadOwas(owasDir, owas, moduleInstaller);
 		}
 	}
 
@@ -491,9 +592,7 @@ public class BuildDistro extends AbstractTask {
 					stream = resourceUrl.openStream();
 				} else {
 					if (distroArtifact != null && distroArtifact.isValid()) {
-						File extractedSqlFile = distroHelper
-								.extractFileFromDistro(targetDirectory, distroArtifact, sqlScript);
-						stream = Files.newInputStream(extractedSqlFile.toPath());
+						stream = distroHelper.openFileFromDistro(targetDirectory, distroArtifact, sqlScript);
 					}
 				}
 			} else {
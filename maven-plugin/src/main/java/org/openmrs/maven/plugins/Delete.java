@@ -41,6 +41,15 @@ public class Delete extends AbstractServerTask {
 				connector.dropDatabase();
 				connector.close();
 			}
+
+			// containers taken from the pool are dedicated to the server
+			if (server.getContainerId() != null && server.getContainerId()
+					.equals(DockerHelper.DOCKER_POOLED_CONTAINER_PREFIX + server.getServerId())) {
+				if (!new DockerHelper(getMavenEnvironment()).removePooledContainer(server.getContainerId())) {
+					getLog().warn("The '" + server.getContainerId() + "' container was not taken from the pool, "
+							+ "it has been left in place");
+				}
+			}
 			getLog().info(String.format(TEMPLATE_SUCCESS, server.getServerId()));
 		}
 		catch (IOException e) {
@@ -157,6 +157,10 @@ public class Deploy extends AbstractServerTask {
 	}
 
 	private void runInteractiveMode(Server server, ServerUpgrader upgrader) throws MojoExecutionException, MojoFailureException {
+		wizard.prefetchDistroVersions(versionsHelper);
+		if (server.getDistroGroupId() != null && server.getDistroArtifactId() != null) {
+			versionsHelper.prefetchVersions(new Artifact(server.getDistroArtifactId(), server.getVersion(), server.getDistroGroupId()));
+		}
 
 		List<String> options = new ArrayList<>(Arrays.asList(
 				DEPLOY_MODULE_OPTION,
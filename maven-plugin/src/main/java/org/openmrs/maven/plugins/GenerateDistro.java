@@ -42,6 +42,7 @@ public class GenerateDistro extends AbstractTask {
 
     @Override
     public void executeTask() throws MojoExecutionException, MojoFailureException {
+        wizard.prefetchDistroVersions(versionsHelper);
         List<String> options = new ArrayList<>();
         options.add(SDKConstants.REFAPP_2X_PROMPT);
         options.add(SDKConstants.REFAPP_3X_PROMPT);
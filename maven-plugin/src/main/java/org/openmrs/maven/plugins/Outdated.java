@@ -0,0 +1,213 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openmrs.maven.plugins.model.Artifact;
+import org.openmrs.maven.plugins.model.BaseSdkProperties;
+import org.openmrs.maven.plugins.utility.NpmRegistryClient;
+import org.openmrs.maven.plugins.utility.VersionsHelper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lists the modules, OWAs and frontend modules of a server or distribution which have newer releases.
+ * <p>
+ * The latest versions of all components are looked up concurrently, through the same caches as the version prompts, so
+ * that a distribution with over a hundred components is checked in seconds.
+ */
+@Mojo(name = "outdated", requiresProject = false)
+public class Outdated extends AbstractServerTask {
+
+	private static final int MAX_CONCURRENT_QUERIES = 8;
+
+	private static final String UNKNOWN = "?";
+
+	/**
+	 * Distribution to check instead of a server, in a format 'groupId:artifactId:version' or a path to a distro.properties file
+	 */
+	@Parameter(property = "distro")
+	String distro;
+
+	@Override
+	public void executeTask() throws MojoExecutionException {
+		long start = System.currentTimeMillis();
+		BaseSdkProperties properties;
+		if (StringUtils.isNotBlank(distro)) {
+			properties = distroHelper.resolveDistributionForStringSpecifier(distro, versionsHelper).getEffectiveProperties();
+		} else {
+			properties = getServer();
+		}
+
+		List<Component> components = getComponents(properties);
+		if (components.isEmpty()) {
+			wizard.showMessage("No modules, OWAs or frontend modules found.");
+			return;
+		}
+		resolveLatestVersions(components);
+
+		int outdated = 0;
+		for (Component component : components) {
+			if (component.isOutdated()) {
+				outdated++;
+			}
+		}
+		wizard.showMessage(formatMatrix(components));
+		wizard.showMessage(String.format("%d of %d components have newer releases (checked in %.1f s)", outdated,
+				components.size(), (System.currentTimeMillis() - start) / 1000.0));
+	}
+
+	private List<Component> getComponents(BaseSdkProperties properties) {
+		List<Component> components = new ArrayList<>();
+		for (Artifact artifact : properties.getWarArtifacts()) {
+			components.add(new Component("war", artifact));
+		}
+		for (Artifact artifact : properties.getModuleArtifacts()) {
+			components.add(new Component("omod", artifact));
+		}
+		for (Artifact artifact : properties.getOwaArtifacts()) {
+			components.add(new Component("owa", artifact));
+		}
+		for (Artifact artifact : properties.getSpaArtifacts()) {
+			components.add(new Component("spa", artifact));
+		}
+		for (Map.Entry<String, String> frontendModule : properties.getSpaBuildFrontendModules().entrySet()) {
+			components.add(new Component("frontend", frontendModule.getKey(), frontendModule.getValue()));
+		}
+		return components;
+	}
+
+	/**
+	 * Looks up the latest version of every component on a pool of threads. A component which cannot be looked up is
+	 * reported with an unknown latest version rather than failing the goal.
+	 */
+	private void resolveLatestVersions(List<Component> components) {
+		List<Artifact> artifacts = new ArrayList<>();
+		for (Component component : components) {
+			if (component.artifact != null) {
+				artifacts.add(component.artifact);
+			}
+		}
+		versionsHelper.prefetchVersions(artifacts.toArray(new Artifact[0]));
+
+		NpmRegistryClient npmRegistryClient = new NpmRegistryClient();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(components.size(), MAX_CONCURRENT_QUERIES));
+		try {
+			List<Future<?>> queries = new ArrayList<>();
+			for (Component component : components) {
+				queries.add(executor.submit(() -> resolveLatestVersion(component, npmRegistryClient)));
+			}
+			for (Future<?> query : queries) {
+				try {
+					query.get();
+				}
+				catch (ExecutionException e) {
+					getLog().debug("Unable to check a component", e.getCause());
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void resolveLatestVersion(Component component, NpmRegistryClient npmRegistryClient) {
+		if (component.artifact != null) {
+			String latest = versionsHelper.getLatestReleasedVersion(component.artifact);
+			component.latest = VersionsHelper.NO_VERSION_AVAILABLE_MSG.equals(latest) ? null : latest;
+			component.resolvedVersion = component.version;
+			return;
+		}
+		try {
+			component.latest = npmRegistryClient.resolveVersion(component.name, "latest");
+			component.resolvedVersion = npmRegistryClient.resolveVersion(component.name, component.version);
+		}
+		catch (IOException e) {
+			getLog().debug("Unable to check " + component.name + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the components as a table, with outdated components marked by an asterisk
+	 */
+	static String formatMatrix(List<Component> components) {
+		int typeWidth = "TYPE".length();
+		int nameWidth = "COMPONENT".length();
+		int versionWidth = "CURRENT".length();
+		for (Component component : components) {
+			typeWidth = Math.max(typeWidth, component.type.length());
+			nameWidth = Math.max(nameWidth, component.name.length());
+			versionWidth = Math.max(versionWidth, component.getCurrent().length());
+		}
+
+		String format = "%s %-" + typeWidth + "s  %-" + nameWidth + "s  %-" + versionWidth + "s  %s";
+		StringBuilder matrix = new StringBuilder();
+		matrix.append(String.format(format, " ", "TYPE", "COMPONENT", "CURRENT", "LATEST"));
+		for (Component component : components) {
+			matrix.append("\n").append(String.format(format, component.isOutdated() ? "*" : " ", component.type,
+					component.name, component.getCurrent(), component.latest != null ? component.latest : UNKNOWN));
+		}
+		return matrix.toString();
+	}
+
+	/**
+	 * A module, OWA or frontend module and the versions found for it
+	 */
+	static class Component {
+
+		final String type;
+
+		final String name;
+
+		final String version;
+
+		final Artifact artifact;
+
+		/**
+		 * The version the declared version resolves to, which differs from it for npm tags and ranges such as 'next'
+		 */
+		volatile String resolvedVersion;
+
+		volatile String latest;
+
+		Component(String type, Artifact artifact) {
+			this.type = type;
+			this.name = artifact.getGroupId() + ":" + artifact.getArtifactId();
+			this.version = StringUtils.defaultString(artifact.getVersion());
+			this.artifact = artifact;
+		}
+
+		Component(String type, String name, String version) {
+			this.type = type;
+			this.name = name;
+			this.version = StringUtils.defaultString(version);
+			this.artifact = null;
+		}
+
+		String getCurrent() {
+			if (resolvedVersion != null && !resolvedVersion.equals(version)) {
+				return version + " (" + resolvedVersion + ")";
+			}
+			return version;
+		}
+
+		boolean isOutdated() {
+			if (resolvedVersion == null || latest == null) {
+				return false;
+			}
+			return new ComparableVersion(resolvedVersion).compareTo(new ComparableVersion(latest)) < 0;
+		}
+	}
+}
@@ -6,9 +6,11 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.openmrs.maven.plugins.model.DistroProperties;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.utility.DBConnector;
+import org.openmrs.maven.plugins.utility.DatabaseSnapshotHelper;
 import org.openmrs.maven.plugins.utility.DockerHelper;
 import org.openmrs.maven.plugins.utility.SDKConstants;
 
@@ -23,6 +25,12 @@ public class Reset extends AbstractServerTask {
 
     private static final String TEMPLATE_SUCCESS_FULL = "Server '%s' has been reset";
 
+    /**
+     * Name of the database snapshot to reset the database to instead of creating a new database
+     */
+    @Parameter(property = "snapshot")
+    private String snapshot;
+
     public void executeTask() throws MojoExecutionException {
         Server server = getServer();
         if (StringUtils.isNotBlank(server.getContainerId())){
@@ -33,6 +41,18 @@ public class Reset extends AbstractServerTask {
                     server.getDbPassword());
         }
 
+        DatabaseSnapshotHelper snapshotHelper = new DatabaseSnapshotHelper(wizard);
+        if (StringUtils.isNotBlank(snapshot)) {
+            // before anything is deleted, so that the server is left untouched if the snapshot cannot be restored
+            if (!snapshotHelper.hasSnapshot(snapshot)) {
+                throw new MojoExecutionException("There is no database snapshot named '" + snapshot + "'");
+            }
+            snapshotHelper.checkRestorable(server, snapshot);
+        } else if (snapshotHelper.hasSnapshot(serverId)) {
+            wizard.showMessage("Resetting to a new database. Run with -Dsnapshot=" + serverId
+                    + " to reset to the snapshot of the server instead.");
+        }
+
         if (server.isMySqlDb() || server.isPostgreSqlDb()){
             DBConnector connector = null;
             try {
@@ -71,6 +91,9 @@ public class Reset extends AbstractServerTask {
             newServer.setServerDirectory(getServersPath().resolve(serverId).toFile());
 
             Setup setup = new Setup(this);
+            if (StringUtils.isNotBlank(snapshot)) {
+                setup.dbSnapshot = snapshot;
+            }
             DistroProperties distroProperties = server.getDistroProperties();
             FileUtils.deleteDirectory(server.getServerDirectory());
             setup.setup(newServer, distroProperties);
@@ -15,6 +15,8 @@ import org.openmrs.maven.plugins.model.Artifact;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Project;
 import org.openmrs.maven.plugins.model.Version;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+import org.openmrs.maven.plugins.utility.GoldenImageHelper;
 import org.openmrs.maven.plugins.utility.SDKConstants;
 import org.openmrs.maven.plugins.utility.ServerHelper;
 
@@ -74,6 +76,12 @@ public class Run extends AbstractServerTask {
 	@Parameter(property = "watchApi")
 	private Boolean watchApi;
 
+	/**
+	 * Flag to indicate whether Tomcat serves the frontend directly, with its precompressed files (defaults to 'false')
+	 */
+	@Parameter(defaultValue = "false", property = "serveFrontend")
+	private boolean serveFrontend;
+
 	/**
 	 * Flag to indicate whether to build server's watched projects, OWA projects, or node projects.
 	 */
@@ -136,6 +144,17 @@ public class Run extends AbstractServerTask {
 			new Build(this, serverId).executeTask();
 		}
 
+		if (server.getPendingGoldenImage() != null && server.getFirstBootMarker().exists()) {
+			if (StringUtils.isNotBlank(server.getContainerId())) {
+				new DockerHelper(getMavenEnvironment()).runDbContainer(
+						server.getContainerId(),
+						server.getDbUri(),
+						server.getDbUser(),
+						server.getDbPassword());
+			}
+			new GoldenImageHelper(wizard).captureIfFirstBootCompleted(server);
+		}
+
 		
 		runInFork(server);
 	}
@@ -217,6 +236,8 @@ public class Run extends AbstractServerTask {
 		if (isWatchApi()) {
 			properties.put("watchApi", "true");
 		}
+
+		properties.put("serveFrontend", String.valueOf(serveFrontend));
 		
 		if (server.hasWatchedProjects() && isWatchApi()) {
 			properties.put("springloaded", "inclusions=org.openmrs..*");
@@ -1,9 +1,7 @@
 package org.openmrs.maven.plugins;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang.StringUtils;
-import org.apache.ibatis.jdbc.ScriptRunner;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -13,22 +11,26 @@ import org.openmrs.maven.plugins.model.Distribution;
 import org.openmrs.maven.plugins.model.DistroProperties;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Version;
+import org.openmrs.maven.plugins.utility.DBConnectionPool;
 import org.openmrs.maven.plugins.utility.DBConnector;
+import org.openmrs.maven.plugins.utility.DatabaseSnapshotHelper;
+import org.openmrs.maven.plugins.utility.GoldenImageHelper;
 import org.openmrs.maven.plugins.utility.DistributionBuilder;
+import org.openmrs.maven.plugins.utility.ParallelSqlScriptImporter;
 import org.openmrs.maven.plugins.utility.SDKConstants;
 import org.openmrs.maven.plugins.utility.ServerHelper;
+import org.openmrs.maven.plugins.utility.SqlScriptImporter;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -106,6 +108,25 @@ public class Setup extends AbstractServerTask {
 	@Parameter(property = "dbReset")
 	private Boolean dbReset;
 
+	/**
+	 * Number of database connections used to import the data of the initial database concurrently
+	 */
+	@Parameter(defaultValue = "4", property = "dbImportThreads")
+	private int dbImportThreads = 4;
+
+	/**
+	 * Name of a database snapshot to restore instead of creating a new database
+	 */
+	@Parameter(property = "dbSnapshot")
+	String dbSnapshot;
+
+	/**
+	 * Use the golden image captured after the first start of a server of the same distribution, if there is one
+	 * (prompts if not set in interactive mode)
+	 */
+	@Parameter(property = "goldenImage")
+	private Boolean goldenImage;
+
 	/**
 	 * Path to JDK Version
 	 */
@@ -153,6 +174,8 @@ public class Setup extends AbstractServerTask {
 
 	private ServerHelper serverHelper;
 
+	private DBConnectionPool connectionPool;
+
 	public Setup() {
 		super();
 	}
@@ -281,6 +304,9 @@ public class Setup extends AbstractServerTask {
 
 			setServerVersionsFromDistroProperties(server, distroProperties);
 			distroHelper.validateDistribution(distroProperties);
+			if (spaInstaller != null) {
+				spaInstaller.prepareFromDistroProperties(distroProperties, overrideReuseNodeCache);
+			}
 			moduleInstaller.installModulesForDistro(server, distroProperties);
 
 			File configurationDir = new File(server.getServerDirectory(), SDKConstants.OPENMRS_SERVER_CONFIGURATION);
@@ -301,7 +327,14 @@ public class Setup extends AbstractServerTask {
 		setServerPort(server);
 		setDebugPort(server);
 
-		setupDatabase(server, distroProperties);
+		try (DBConnectionPool pool = new DBConnectionPool()) {
+			connectionPool = pool;
+			setupDatabase(server, distroProperties);
+			getLog().info(pool.getStatistics());
+		}
+		finally {
+			connectionPool = null;
+		}
 
 		// If there's no distro at this point, we create a minimal one here,
 		// *after* having initialized server.isH2Supported in `setupDatabase` above.
@@ -344,16 +377,13 @@ public class Setup extends AbstractServerTask {
 		List<Artifact> owas = distroProperties.getOwaArtifacts();
 		if (!owas.isEmpty()) {
 			wizard.showMessage("Downloading OWAs...\n");
-			for (Artifact owa : owas) {
-				wizard.showMessage("Downloading OWA: " + owa);
-				owaHelper.downloadOwa(owasDir, owa, moduleInstaller);
-			}
+			owaHelper.downloadOwas(owasDir, owas, moduleInstaller);
 		}
 	}
 
 	private void wipeDatabase(Server server) throws MojoExecutionException {
 		String uri = getUriWithoutDb(server);
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+		try (DBConnector connector = new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 			connector.dropDatabase();
 			if (server.isMySqlDb() || server.isPostgreSqlDb()) {
 				connector.checkAndCreate(server);
@@ -418,11 +448,67 @@ public class Setup extends AbstractServerTask {
 		}
 
 		if (server.getDbDriver() != null) {
-			setupDatabaseForServer(server);
+			String goldenImageKey = null;
+			if (distroProperties != null && !Boolean.FALSE.equals(goldenImage)) {
+				goldenImageKey = GoldenImageHelper.getKey(distroProperties, server);
+			}
+
+			if (StringUtils.isBlank(dbSnapshot) && useGoldenImage(server, distroProperties, goldenImageKey)) {
+				setupDatabaseForServer(server, GoldenImageHelper.getSnapshotName(goldenImageKey), true);
+				if (!Boolean.FALSE.equals(dbReset)) {
+					new GoldenImageHelper(wizard).restoreApplicationData(server, goldenImageKey);
+				}
+			} else {
+				String snapshot = resolveDbSnapshot(server, distroProperties);
+				setupDatabaseForServer(server, snapshot, false);
+				if (goldenImageKey != null && snapshot == null && !Boolean.FALSE.equals(dbReset)) {
+					server.setPendingGoldenImage(goldenImageKey);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the golden image with the given key exists and should be used to set up the server
+	 */
+	private boolean useGoldenImage(Server server, DistroProperties distroProperties, String goldenImageKey) throws MojoExecutionException {
+		if (goldenImageKey == null || dbSql != null || Boolean.FALSE.equals(dbReset)
+				|| !new GoldenImageHelper(wizard).canRestore(server, goldenImageKey)) {
+			return false;
+		}
+		if (goldenImage != null) {
+			return goldenImage;
 		}
+		return wizard.isInteractiveMode() && wizard.promptYesNo("A golden image of " + distroProperties.getName() + " "
+				+ distroProperties.getVersion() + " captured after its first start is available. "
+				+ "Would you like to use it to skip the initialization of the server?");
 	}
 
-	private void setupDatabaseForServer(Server server) throws MojoExecutionException {
+	/**
+	 * @return the name of the snapshot to restore, either given explicitly or chosen by the user amongst the snapshots
+	 * of the same distribution version, or null if the database should be created
+	 */
+	private String resolveDbSnapshot(Server server, DistroProperties distroProperties) throws MojoExecutionException {
+		DatabaseSnapshotHelper snapshotHelper = new DatabaseSnapshotHelper(wizard, connectionPool);
+		if (StringUtils.isNotBlank(dbSnapshot)) {
+			if (!snapshotHelper.hasSnapshot(dbSnapshot)) {
+				throw new MojoExecutionException("There is no database snapshot named '" + dbSnapshot + "'");
+			}
+			return dbSnapshot;
+		}
+
+		if (distroProperties == null || dbSql != null || Boolean.FALSE.equals(dbReset) || !wizard.isInteractiveMode()) {
+			return null;
+		}
+		String snapshot = snapshotHelper.findSnapshot(distroProperties.getName(), distroProperties.getVersion(), server);
+		if (snapshot != null && wizard.promptYesNo("A database snapshot of " + distroProperties.getName() + " "
+				+ distroProperties.getVersion() + " is available ('" + snapshot + "'). Would you like to use it?")) {
+			return snapshot;
+		}
+		return null;
+	}
+
+	private void setupDatabaseForServer(Server server, String snapshot, boolean fromGoldenImage) throws MojoExecutionException {
 		if (server.getDbName() == null) {
 			server.setDbName(determineDbName(server.getDbUri(), server.getServerId()));
 		}
@@ -435,7 +521,7 @@ public class Setup extends AbstractServerTask {
 
 			while (!connectionEstablished && attempts < maxAttempts) {
 				attempts++;
-				try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+				try (DBConnector connector = new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 					connector.checkAndCreate(server);
 					wizard.showMessage("Connected to the database.");
 					connectionEstablished = true;
@@ -462,6 +548,11 @@ public class Setup extends AbstractServerTask {
 				}
 			}
 
+			if (snapshot != null) {
+				// before any existing data is wiped, as the snapshot may not be restorable to this database server
+				new DatabaseSnapshotHelper(wizard, connectionPool).checkRestorable(server, snapshot);
+			}
+
 			if (hasDbTables(server)) {
 				if (dbReset == null) {
 					dbReset = !wizard.promptYesNo(
@@ -479,7 +570,14 @@ public class Setup extends AbstractServerTask {
 				dbReset = true;
 			}
 
-			if (!"null".equals(dbSql) && dbReset) {
+			if (snapshot != null && dbReset) {
+				new DatabaseSnapshotHelper(wizard, connectionPool).restoreSnapshot(server, snapshot);
+				server.setParam("create_tables", "false");
+				// the search index of a golden image is restored with its application data
+				if (!fromGoldenImage) {
+					resetSearchIndex(server);
+				}
+			} else if (!"null".equals(dbSql) && dbReset) {
 				if (dbSql != null) {
 					importDb(server, dbSql);
 					resetSearchIndex(server);
@@ -493,14 +591,19 @@ public class Setup extends AbstractServerTask {
 			}
 		} else {
 			moduleInstaller.installModule(SDKConstants.H2_ARTIFACT, server.getServerDirectory().getPath());
-			wizard.showMessage(
-					"The specified database " + server.getDbName() + " does not exist and it will be created for you.");
+			if (snapshot != null) {
+				new DatabaseSnapshotHelper(wizard, connectionPool).restoreSnapshot(server, snapshot);
+				server.setParam("create_tables", "false");
+			} else {
+				wizard.showMessage(
+						"The specified database " + server.getDbName() + " does not exist and it will be created for you.");
+			}
 		}
 	}
 
 	private boolean hasDbTables(Server server) throws MojoExecutionException {
 		String uri = getUriWithoutDb(server);
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+		try (DBConnector connector = new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 			DatabaseMetaData md = connector.getConnection().getMetaData();
 
 			try (ResultSet rs = md.getTables(server.getDbName(), null, null, new String[] { "TABLE" })) {
@@ -515,7 +618,7 @@ public class Setup extends AbstractServerTask {
 	private void resetSearchIndex(Server server) throws MojoExecutionException {
 		String uri = server.getDbUri();
 
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName());
+		try (DBConnector connector = new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(), server.getDbName());
 			PreparedStatement ps = connector.getConnection().prepareStatement(SDKConstants.RESET_SEARCH_INDEX_SQL)) {
 			ps.execute();
 			wizard.showMessage("The search index has been reset.");
@@ -536,15 +639,7 @@ public class Setup extends AbstractServerTask {
 			if (sqlStream == null) {
 				Artifact distroArtifact = new Artifact(server.getDistroArtifactId(), server.getVersion(),
 						server.getDistroGroupId(), "jar");
-				File extractedSqlFile = distroHelper
-						.extractFileFromDistro(server.getServerDirectory(), distroArtifact, sqlScript);
-				extractedSqlFile.deleteOnExit();
-				try {
-					sqlStream = Files.newInputStream(extractedSqlFile.toPath());
-				}
-				catch (Exception e) {
-					throw new MojoExecutionException("Error during opening sql dump script file", e);
-				}
+				sqlStream = distroHelper.openFileFromDistro(server.getServerDirectory(), distroArtifact, sqlScript);
 			}
 		} else {
 			File scriptFile = new File(sqlScriptPath);
@@ -557,13 +652,16 @@ public class Setup extends AbstractServerTask {
 			}
 		}
 
-		try (InputStreamReader sqlReader = new InputStreamReader(sqlStream);
-		     Connection connection = DriverManager.getConnection(uri, server.getDbUser(), server.getDbPassword())) {
-			ScriptRunner scriptRunner = new ScriptRunner(connection);
-			//we don't want to display ~5000 lines of queries to user if there is no error
-			scriptRunner.setLogWriter(new PrintWriter(new NullOutputStream()));
-			scriptRunner.setStopOnError(true);
-			scriptRunner.runScript(sqlReader);
+		try (Reader sqlReader = new InputStreamReader(sqlStream, StandardCharsets.UTF_8)) {
+			if (dbImportThreads > 1) {
+				new ParallelSqlScriptImporter(uri, server.getDbUser(), server.getDbPassword(), dbImportThreads, wizard,
+						connectionPool).importScript(sqlReader);
+			} else {
+				try (DBConnector connector = new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(),
+						server.getDbName())) {
+					new SqlScriptImporter(connector.getConnection(), wizard).importScript(sqlReader);
+				}
+			}
 
 			wizard.showMessage("Database imported successfully.");
 			server.setParam("create_tables", "false");
@@ -612,6 +710,10 @@ public class Setup extends AbstractServerTask {
 
 	public void executeTask() throws MojoExecutionException, MojoFailureException {
 		wizard.showMessage(SETTING_UP_A_NEW_SERVER);
+		if (distro == null && platform == null && file == null) {
+			// the versions are listed after the server id prompt and the choice of distribution
+			wizard.prefetchDistroVersions(versionsHelper);
+		}
 
 		Server.ServerBuilder serverBuilder;
 		if (file != null) {
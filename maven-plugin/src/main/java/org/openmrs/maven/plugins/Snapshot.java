@@ -0,0 +1,72 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openmrs.maven.plugins.model.DistroProperties;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.DatabaseSnapshotHelper;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+
+/**
+ * Captures, restores or deletes a snapshot of the database of a server. A snapshot is best taken after the first start
+ * of the server, and can be restored by reset, or by setup for new servers of the same distribution.
+ * The server should be stopped while a snapshot is taken or restored.
+ */
+@Mojo(name = "snapshot", requiresProject = false)
+public class Snapshot extends AbstractServerTask {
+
+	/**
+	 * Name of the snapshot (defaults to the server id)
+	 */
+	@Parameter(property = "snapshot")
+	private String snapshot;
+
+	/**
+	 * Restores the snapshot instead of capturing it
+	 */
+	@Parameter(defaultValue = "false", property = "restore")
+	private boolean restore;
+
+	/**
+	 * Deletes the snapshot instead of capturing it
+	 */
+	@Parameter(defaultValue = "false", property = "delete")
+	private boolean delete;
+
+	public void executeTask() throws MojoExecutionException {
+		Server server = getServer();
+		String name = StringUtils.isNotBlank(snapshot) ? snapshot : server.getServerId();
+		DatabaseSnapshotHelper snapshotHelper = new DatabaseSnapshotHelper(wizard);
+
+		if (delete) {
+			snapshotHelper.deleteSnapshot(name);
+			wizard.showMessage("Snapshot '" + name + "' deleted");
+			return;
+		}
+
+		if (StringUtils.isNotBlank(server.getContainerId())) {
+			new DockerHelper(getMavenEnvironment()).runDbContainer(
+					server.getContainerId(),
+					server.getDbUri(),
+					server.getDbUser(),
+					server.getDbPassword());
+		}
+
+		if (restore) {
+			snapshotHelper.restoreSnapshot(server, name);
+			server.setParam("create_tables", "false");
+			server.save();
+		} else {
+			DistroProperties distroProperties = server.getDistroProperties();
+			snapshotHelper.createSnapshot(server, name, distroProperties != null ? distroProperties.getName() : null,
+					distroProperties != null ? distroProperties.getVersion() : null);
+		}
+	}
+
+	@Override
+	protected Server loadServer() throws MojoExecutionException {
+		return loadValidatedServer(serverId);
+	}
+}
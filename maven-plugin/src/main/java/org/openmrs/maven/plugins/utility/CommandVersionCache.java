@@ -0,0 +1,203 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.SystemUtils;
+import org.openmrs.maven.plugins.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Remembers the versions reported by executables, such as 'node -v', so that they are not started on every goal.
+ * <p>
+ * A version is cached for the file the command resolves to, through the PATH for a bare command name, and is only used
+ * while that file keeps the same modification time and size. Upgrading node or npm replaces the file, which
+ * invalidates the cached version. A command which cannot be found is not started at all.
+ */
+public class CommandVersionCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(CommandVersionCache.class);
+
+	public static final String CACHE_FILE = "_openmrs_sdk_command_versions.properties";
+
+	/**
+	 * System property to always start the commands, with -DcommandVersionCache=false
+	 */
+	public static final String ENABLED_PROPERTY = "commandVersionCache";
+
+	private static final String[] WINDOWS_EXTENSIONS = { ".exe", ".cmd", ".bat" };
+
+	private static final Map<String, String> versions = new ConcurrentHashMap<>();
+
+	private final File cacheFile;
+
+	private final String path;
+
+	private final boolean enabled;
+
+	public CommandVersionCache() {
+		this(Server.getServersPath() != null ? Server.getServersPath().resolve(CACHE_FILE).toFile() : null,
+				System.getenv("PATH"), Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")));
+	}
+
+	CommandVersionCache(File cacheFile, String path, boolean enabled) {
+		this.cacheFile = cacheFile;
+		this.path = path;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @param command the command, either a bare name looked up in the PATH or a path relative to the working directory
+	 * @param detect starts the command and returns the version it reports, or null if it fails
+	 * @return the version, or null if the command cannot be found or fails
+	 */
+	public String getVersion(String command, Function<String, String> detect) {
+		File executable = resolve(command);
+		if (executable == null) {
+			logger.debug("{} was not found", command);
+			return null;
+		}
+		if (!enabled) {
+			return detect.apply(command);
+		}
+
+		String key = executable.getPath();
+		String fingerprint = getFingerprint(executable);
+		if (fingerprint == null) {
+			return detect.apply(command);
+		}
+		String cached = versions.get(key + "@" + fingerprint);
+		if (cached != null) {
+			return cached;
+		}
+
+		Properties properties = readCache();
+		if (fingerprint.equals(properties.getProperty(key + ".fingerprint")) && properties.getProperty(key + ".version") != null) {
+			cached = properties.getProperty(key + ".version");
+			versions.put(key + "@" + fingerprint, cached);
+			return cached;
+		}
+
+		String version = detect.apply(command);
+		if (version != null) {
+			versions.put(key + "@" + fingerprint, version);
+			properties.setProperty(key + ".fingerprint", fingerprint);
+			properties.setProperty(key + ".version", version);
+			writeCache(properties);
+		}
+		return version;
+	}
+
+	/**
+	 * @return the file the command runs, with links resolved, or null if there is none
+	 */
+	File resolve(String command) {
+		if (command.contains("/") || command.contains("\\")) {
+			return toRealFile(withExtension(new File(command).getAbsoluteFile()));
+		}
+		if (StringUtils.isBlank(path)) {
+			return null;
+		}
+		for (String dir : path.split(File.pathSeparator)) {
+			if (StringUtils.isNotBlank(dir)) {
+				File executable = withExtension(new File(dir, command));
+				if (executable != null && executable.canExecute()) {
+					return toRealFile(executable);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static File withExtension(File file) {
+		if (file.isFile()) {
+			return file;
+		}
+		if (SystemUtils.IS_OS_WINDOWS) {
+			for (String extension : WINDOWS_EXTENSIONS) {
+				File withExtension = new File(file.getPath() + extension);
+				if (withExtension.isFile()) {
+					return withExtension;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static File toRealFile(File file) {
+		if (file == null) {
+			return null;
+		}
+		try {
+			return file.toPath().toRealPath().toFile();
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static String getFingerprint(File executable) {
+		try {
+			Path file = executable.toPath();
+			return Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private Properties readCache() {
+		Properties properties = new Properties();
+		if (cacheFile != null && cacheFile.isFile()) {
+			try (InputStream in = Files.newInputStream(cacheFile.toPath())) {
+				properties.load(in);
+			}
+			catch (IOException e) {
+				logger.debug("Unable to read {}", cacheFile, e);
+			}
+		}
+		return properties;
+	}
+
+	private void writeCache(Properties properties) {
+		if (cacheFile == null) {
+			return;
+		}
+		// forget executables which have been removed, such as the node of a deleted project
+		for (String name : properties.stringPropertyNames()) {
+			if (name.endsWith(".fingerprint") && !Paths.get(StringUtils.removeEnd(name, ".fingerprint")).toFile().exists()) {
+				properties.remove(name);
+				properties.remove(StringUtils.removeEnd(name, ".fingerprint") + ".version");
+			}
+		}
+		File temp = new File(cacheFile.getParentFile(), cacheFile.getName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			Files.createDirectories(cacheFile.getParentFile().toPath());
+			try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+				properties.store(out, null);
+			}
+			Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			logger.debug("Unable to write {}", cacheFile, e);
+			temp.delete();
+		}
+	}
+
+	static void clearMemoryCache() {
+		versions.clear();
+	}
+}
@@ -0,0 +1,167 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the database connections opened by a goal, so that each step of the goal reuses them instead of connecting
+ * to the database again, which is slow for remote or freshly started database servers.
+ * <p>
+ * Idle connections are validated before being handed out and are returned to the pool with auto-commit enabled and
+ * their original catalog, or are closed if they had none and one has been set. The pool records how long it takes to
+ * acquire connections.
+ */
+public class DBConnectionPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(DBConnectionPool.class);
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final Map<String, Deque<Connection>> idleConnections = new HashMap<>();
+
+	private final Map<Connection, Lease> leases = new IdentityHashMap<>();
+
+	private int acquired;
+
+	private int opened;
+
+	private long acquisitionNanos;
+
+	private long maxAcquisitionNanos;
+
+	private static class Lease {
+
+		private final String key;
+
+		private final String catalog;
+
+		Lease(String key, String catalog) {
+			this.key = key;
+			this.catalog = catalog;
+		}
+	}
+
+	/**
+	 * @return an idle connection to the given database that is still valid, or a new connection if there is none
+	 */
+	public synchronized Connection acquire(String url, String user, String password) throws SQLException {
+		long start = System.nanoTime();
+		String key = url + '\n' + user + '\n' + password;
+
+		Connection connection = null;
+		Deque<Connection> idle = idleConnections.get(key);
+		while (connection == null && idle != null && !idle.isEmpty()) {
+			Connection candidate = idle.poll();
+			if (isValid(candidate)) {
+				connection = candidate;
+			} else {
+				closeQuietly(candidate);
+			}
+		}
+		if (connection == null) {
+			connection = DBConnector.openConnection(url, user, password);
+			opened++;
+		}
+		leases.put(connection, new Lease(key, connection.getCatalog()));
+
+		long elapsed = System.nanoTime() - start;
+		acquired++;
+		acquisitionNanos += elapsed;
+		maxAcquisitionNanos = Math.max(maxAcquisitionNanos, elapsed);
+		log.debug("Acquired a connection to {} in {} ms", url, elapsed / 1000000);
+		return connection;
+	}
+
+	/**
+	 * Returns a connection obtained from {@link #acquire(String, String, String)} to the pool
+	 */
+	public synchronized void release(Connection connection) {
+		Lease lease = leases.remove(connection);
+		if (lease == null) {
+			closeQuietly(connection);
+			return;
+		}
+
+		try {
+			if (connection.isClosed()) {
+				return;
+			}
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			String catalog = connection.getCatalog();
+			if (lease.catalog == null && catalog != null) {
+				// a connection cannot be reset to having no catalog, and must not be handed out with another one
+				log.debug("Discarding a connection whose catalog has been changed to {}", catalog);
+				closeQuietly(connection);
+				return;
+			}
+			if (lease.catalog != null && !lease.catalog.equals(catalog)) {
+				connection.setCatalog(lease.catalog);
+			}
+			idleConnections.computeIfAbsent(lease.key, key -> new ArrayDeque<>()).push(connection);
+		}
+		catch (SQLException e) {
+			log.debug("Discarding a connection that could not be reset", e);
+			closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * Closes a connection obtained from {@link #acquire(String, String, String)} whose session has been changed in a
+	 * way that cannot be reset, instead of returning it to the pool
+	 */
+	public synchronized void discard(Connection connection) {
+		leases.remove(connection);
+		closeQuietly(connection);
+	}
+
+	/**
+	 * @return a summary of the connections opened and the time spent acquiring them
+	 */
+	public synchronized String getStatistics() {
+		return String.format("%d database connection(s) acquired, %d opened, %.1f ms on average, %.1f ms at most",
+				acquired, opened, acquired == 0 ? 0.0 : acquisitionNanos / 1000000.0 / acquired,
+				maxAcquisitionNanos / 1000000.0);
+	}
+
+	/**
+	 * Closes all connections, including those that have not been released
+	 */
+	@Override
+	public synchronized void close() {
+		for (Deque<Connection> idle : idleConnections.values()) {
+			idle.forEach(this::closeQuietly);
+		}
+		idleConnections.clear();
+		leases.keySet().forEach(this::closeQuietly);
+		leases.clear();
+	}
+
+	private boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		}
+		catch (SQLException e) {
+			log.debug("Failed to close connection", e);
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package org.openmrs.maven.plugins.utility;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -13,25 +12,28 @@ public class DBConnector implements AutoCloseable {
 
 	String dbName;
 
+	DBConnectionPool pool;
+
 	public DBConnector(String url, String user, String pass, String dbName) throws SQLException {
-		DriverManager.setLoginTimeout(60);
+		this.connection = openConnection(url, user, pass);
+		this.dbName = dbName;
+	}
+
+	/**
+	 * Borrows the connection from the given pool, if any, returning it to the pool when closed
+	 */
+	public DBConnector(DBConnectionPool pool, String url, String user, String pass, String dbName) throws SQLException {
+		this.pool = pool;
+		this.connection = pool != null ? pool.acquire(url, user, pass) : openConnection(url, user, pass);
+		this.dbName = dbName;
+	}
+
+	static Connection openConnection(String url, String user, String pass) throws SQLException {
 		/*
-		 * Connection attempts to a database in a newly created Docker container might fail on the first try due to the container not being fully ready
+		 * Connection attempts to a database in a newly created Docker container might fail on the first tries due to the container not being fully ready
 		 * This is to mitigate such errors.
 		 */
-		try {
-			this.connection = DriverManager.getConnection(url, user, pass);
-		} catch (SQLException e) {
-			try {
-				this.connection = DriverManager.getConnection(url, user, pass);
-			} catch (SQLException e2) {
-				if (e2.getMessage().contains("Access denied")) {
-					throw new SQLException("Invalid database credentials. Please check your username and password.", e2);
-				}
-				throw e2;
-			}
-		}
-		this.dbName = dbName;
+		return new DatabaseReadinessProbe().awaitConnection(url, user, pass);
 	}
 
 	/**
@@ -40,12 +42,13 @@ public class DBConnector implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public void checkAndCreate(Server server) throws SQLException {
-		Statement stmt = connection.createStatement();
 		String query = String.format("create database if not exists `%s` default character set utf8", dbName);
 		if (server.isPostgreSqlDb()) {
 			query = String.format("create database %s encoding 'utf8'", dbName);
 		}
-		stmt.executeUpdate(query);
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate(query);
+		}
 	}
 
 	/**
@@ -54,19 +57,24 @@ public class DBConnector implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public void dropDatabase() throws SQLException {
-		Statement stmt = connection.createStatement();
 		String query = String.format("drop database if exists `%s`", dbName);
-		stmt.executeUpdate(query);
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate(query);
+		}
 	}
 
 	/**
-	 * Close connection
+	 * Close connection, or return it to the pool it was borrowed from
 	 *
 	 * @throws SQLException
 	 */
 	public void close() throws SQLException {
 		if (connection != null) {
-			connection.close();
+			if (pool != null) {
+				pool.release(connection);
+			} else {
+				connection.close();
+			}
 		}
 	}
 
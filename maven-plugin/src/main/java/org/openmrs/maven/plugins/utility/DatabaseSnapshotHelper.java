@@ -0,0 +1,499 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Captures and restores snapshots of server databases, so that a database can be brought back to a known state
+ * without re-importing a dump or repeating the work done by OpenMRS on its first start.
+ * <p>
+ * Snapshots are stored in the servers directory, with a snapshot.properties file describing each of them.
+ * H2 databases are snapshotted by copying their files, MySQL databases by copying their tables into a snapshot
+ * database on the same server, and PostgreSQL databases by creating a snapshot database from them as a template.
+ * As MySQL and PostgreSQL snapshots live on the database server they were taken on, they record the URI and the
+ * identity of that server, and are only restored to the same database server.
+ */
+public class DatabaseSnapshotHelper {
+
+	public static final String SNAPSHOTS_DIRECTORY = "_openmrs_sdk_snapshots";
+
+	public static final String ENGINE_H2 = "h2";
+
+	public static final String ENGINE_MYSQL = "mysql";
+
+	public static final String ENGINE_POSTGRESQL = "postgresql";
+
+	private static final String SNAPSHOT_PROPERTIES = "snapshot.properties";
+
+	private static final String PROPERTY_ENGINE = "engine";
+
+	private static final String PROPERTY_DATABASE = "database";
+
+	private static final String PROPERTY_SERVER = "server";
+
+	private static final String PROPERTY_DISTRO_NAME = "distro.name";
+
+	private static final String PROPERTY_DISTRO_VERSION = "distro.version";
+
+	private static final String PROPERTY_CREATED = "created";
+
+	private static final String PROPERTY_DB_URI = "db.uri";
+
+	private static final String PROPERTY_DB_INSTANCE = "db.instance";
+
+	private static final String H2_DATABASE_DIRECTORY = "database";
+
+	private final Wizard wizard;
+
+	private final DBConnectionPool connectionPool;
+
+	public DatabaseSnapshotHelper(Wizard wizard) {
+		this(wizard, null);
+	}
+
+	/**
+	 * @param connectionPool the pool to borrow database connections from, or null to open new connections
+	 */
+	public DatabaseSnapshotHelper(Wizard wizard, DBConnectionPool connectionPool) {
+		this.wizard = wizard;
+		this.connectionPool = connectionPool;
+	}
+
+	public static String getEngine(Server server) {
+		if (server.isMySqlDb()) {
+			return ENGINE_MYSQL;
+		} else if (server.isPostgreSqlDb()) {
+			return ENGINE_POSTGRESQL;
+		}
+		return ENGINE_H2;
+	}
+
+	/**
+	 * @return the URI of the database server of the given server, without the database name, or null for H2
+	 */
+	public static String getDatabaseServerUri(Server server) {
+		if (!server.isMySqlDb() && !server.isPostgreSqlDb()) {
+			return null;
+		}
+		String uri = server.getDbUri();
+		return uri.substring(0, uri.lastIndexOf("/") + 1);
+	}
+
+	public File getSnapshotDirectory(String name) {
+		return Server.getServersPath().resolve(SNAPSHOTS_DIRECTORY).resolve(name).toFile();
+	}
+
+	public boolean hasSnapshot(String name) {
+		return new File(getSnapshotDirectory(name), SNAPSHOT_PROPERTIES).exists();
+	}
+
+	/**
+	 * @return the name of the most recent snapshot of the given distribution which can be restored to the database of
+	 * the given server, or null if there is none
+	 */
+	public String findSnapshot(String distroName, String distroVersion, Server server) {
+		String engine = getEngine(server);
+		String dbUri = getDatabaseServerUri(server);
+		File[] snapshots = Server.getServersPath().resolve(SNAPSHOTS_DIRECTORY).toFile().listFiles(File::isDirectory);
+		if (snapshots == null || distroName == null || distroVersion == null) {
+			return null;
+		}
+		String found = null;
+		long foundCreated = 0;
+		for (File snapshot : snapshots) {
+			File propertiesFile = new File(snapshot, SNAPSHOT_PROPERTIES);
+			if (!propertiesFile.exists()) {
+				continue;
+			}
+			try {
+				Properties properties = PropertiesUtils.loadPropertiesFromFile(propertiesFile);
+				long created = Long.parseLong(properties.getProperty(PROPERTY_CREATED, "0"));
+				if (distroName.equals(properties.getProperty(PROPERTY_DISTRO_NAME))
+						&& distroVersion.equals(properties.getProperty(PROPERTY_DISTRO_VERSION))
+						&& engine.equals(properties.getProperty(PROPERTY_ENGINE))
+						&& (dbUri == null || dbUri.equals(properties.getProperty(PROPERTY_DB_URI)))
+						&& created >= foundCreated) {
+					found = snapshot.getName();
+					foundCreated = created;
+				}
+			}
+			catch (MojoExecutionException | NumberFormatException e) {
+				wizard.showWarning("Ignoring invalid snapshot at " + snapshot.getAbsolutePath() + ": " + e.getMessage());
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Captures a snapshot of the database of the given server, replacing any existing snapshot with the same name.
+	 * The server should not be running while the snapshot is taken.
+	 */
+	public void createSnapshot(Server server, String name, String distroName, String distroVersion) throws MojoExecutionException {
+		long start = System.currentTimeMillis();
+		String engine = getEngine(server);
+		if (hasSnapshot(name)) {
+			deleteSnapshot(name);
+		}
+
+		File snapshotDirectory = getSnapshotDirectory(name);
+		snapshotDirectory.mkdirs();
+		Properties properties = new Properties();
+		properties.setProperty(PROPERTY_ENGINE, engine);
+		properties.setProperty(PROPERTY_SERVER, server.getServerId());
+		properties.setProperty(PROPERTY_CREATED, String.valueOf(System.currentTimeMillis()));
+		if (distroName != null && distroVersion != null) {
+			properties.setProperty(PROPERTY_DISTRO_NAME, distroName);
+			properties.setProperty(PROPERTY_DISTRO_VERSION, distroVersion);
+		}
+
+		wizard.showMessage("Creating snapshot '" + name + "' of the " + server.getDbName() + " database...");
+		if (ENGINE_H2.equals(engine)) {
+			copyDirectory(new File(server.getServerDirectory(), H2_DATABASE_DIRECTORY),
+					new File(snapshotDirectory, H2_DATABASE_DIRECTORY));
+		} else {
+			String snapshotDatabase = getSnapshotDatabaseName(name);
+			properties.setProperty(PROPERTY_DATABASE, snapshotDatabase);
+			properties.setProperty(PROPERTY_DB_URI, getDatabaseServerUri(server));
+			String instance = getDatabaseInstance(server);
+			if (instance != null) {
+				properties.setProperty(PROPERTY_DB_INSTANCE, instance);
+			}
+			copyDatabase(server, server.getDbName(), snapshotDatabase);
+		}
+
+		PropertiesUtils.savePropertiesChangesToFile(properties, new File(snapshotDirectory, SNAPSHOT_PROPERTIES));
+		wizard.showMessage(String.format("Snapshot '%s' created in %.1fs", name, (System.currentTimeMillis() - start) / 1000.0));
+	}
+
+	/**
+	 * Replaces the database of the given server with the given snapshot.
+	 * The server should not be running while the snapshot is restored.
+	 */
+	public void restoreSnapshot(Server server, String name) throws MojoExecutionException {
+		long start = System.currentTimeMillis();
+		Properties properties = checkRestorable(server, name);
+		String engine = getEngine(server);
+
+		wizard.showMessage("Restoring snapshot '" + name + "' to the " + server.getDbName() + " database...");
+		if (ENGINE_H2.equals(engine)) {
+			File databaseDirectory = new File(server.getServerDirectory(), H2_DATABASE_DIRECTORY);
+			FileUtils.deleteQuietly(databaseDirectory);
+			copyDirectory(new File(getSnapshotDirectory(name), H2_DATABASE_DIRECTORY), databaseDirectory);
+		} else {
+			copyDatabase(server, properties.getProperty(PROPERTY_DATABASE), server.getDbName());
+		}
+		wizard.showMessage(String.format("Snapshot '%s' restored in %.1fs", name, (System.currentTimeMillis() - start) / 1000.0));
+	}
+
+	/**
+	 * Checks that the given snapshot can be restored to the database of the given server, without changing the database
+	 *
+	 * @return the properties of the snapshot
+	 * @throws MojoExecutionException if the snapshot is of another engine or database server, or its data is missing
+	 */
+	public Properties checkRestorable(Server server, String name) throws MojoExecutionException {
+		Properties properties = loadSnapshotProperties(name);
+		String engine = getEngine(server);
+		if (!engine.equals(properties.getProperty(PROPERTY_ENGINE))) {
+			throw new MojoExecutionException("Snapshot '" + name + "' is of a " + properties.getProperty(PROPERTY_ENGINE)
+					+ " database and cannot be restored to a " + engine + " database");
+		}
+		if (ENGINE_H2.equals(engine)) {
+			if (!new File(getSnapshotDirectory(name), H2_DATABASE_DIRECTORY).isDirectory()) {
+				throw new MojoExecutionException("The database files of snapshot '" + name + "' are missing");
+			}
+			return properties;
+		}
+
+		String snapshotUri = properties.getProperty(PROPERTY_DB_URI);
+		if (snapshotUri != null && !snapshotUri.equals(getDatabaseServerUri(server))) {
+			throw new MojoExecutionException("Snapshot '" + name + "' was taken on the database server at " + snapshotUri
+					+ " and cannot be restored to the database server at " + getDatabaseServerUri(server));
+		}
+		String snapshotInstance = properties.getProperty(PROPERTY_DB_INSTANCE);
+		String instance = getDatabaseInstance(server);
+		if (snapshotInstance != null && instance != null && !snapshotInstance.equals(instance)) {
+			throw new MojoExecutionException("Snapshot '" + name + "' was taken on another database server than the one at "
+					+ getDatabaseServerUri(server) + ", e.g. a container which has since been recreated");
+		}
+		try (DBConnector connector = connect(server)) {
+			checkSourceDatabase(connector.getConnection(), server, properties.getProperty(PROPERTY_DATABASE));
+		}
+		catch (SQLException e) {
+			throw new MojoExecutionException("Failed to check snapshot '" + name + "' " + e.getMessage(), e);
+		}
+		return properties;
+	}
+
+	/**
+	 * @return an identifier of the database server of the given server, which changes when the database server is
+	 * recreated even at the same address, or null if it is H2 or cannot be determined
+	 */
+	private String getDatabaseInstance(Server server) throws MojoExecutionException {
+		if (ENGINE_H2.equals(getEngine(server))) {
+			return null;
+		}
+		String query = server.isPostgreSqlDb() ? "select system_identifier from pg_control_system()" : "select @@server_uuid";
+		try (DBConnector connector = connect(server);
+			 Statement statement = connector.getConnection().createStatement();
+			 ResultSet rs = statement.executeQuery(query)) {
+			return rs.next() ? rs.getString(1) : null;
+		}
+		catch (SQLException e) {
+			// e.g. MariaDB, which has no server uuid, or a PostgreSQL user not allowed to read the control data
+			return null;
+		}
+	}
+
+	/**
+	 * Deletes the given snapshot, including the snapshot database if it was taken with the given server
+	 */
+	public void deleteSnapshot(String name) throws MojoExecutionException {
+		Properties properties = loadSnapshotProperties(name);
+		String snapshotDatabase = properties.getProperty(PROPERTY_DATABASE);
+		if (snapshotDatabase != null) {
+			String serverId = properties.getProperty(PROPERTY_SERVER);
+			if (serverId != null && Server.hasServerConfig(Server.getServersPath().resolve(serverId))) {
+				Server server = Server.loadServer(serverId);
+				try (DBConnector connector = connect(server)) {
+					dropDatabase(connector.getConnection(), server, snapshotDatabase);
+				}
+				catch (SQLException e) {
+					throw new MojoExecutionException("Failed to drop snapshot database " + snapshotDatabase + " " + e.getMessage(), e);
+				}
+			} else {
+				wizard.showWarning("The server of snapshot '" + name + "' no longer exists, the " + snapshotDatabase
+						+ " database has to be dropped manually");
+			}
+		}
+		FileUtils.deleteQuietly(getSnapshotDirectory(name));
+	}
+
+	private Properties loadSnapshotProperties(String name) throws MojoExecutionException {
+		if (!hasSnapshot(name)) {
+			throw new MojoExecutionException("There is no snapshot named '" + name + "'");
+		}
+		return PropertiesUtils.loadPropertiesFromFile(new File(getSnapshotDirectory(name), SNAPSHOT_PROPERTIES));
+	}
+
+	static String getSnapshotDatabaseName(String name) {
+		String database = "sdk_snapshot_" + name.toLowerCase().replaceAll("[^a-z0-9_]", "_");
+		return database.length() > 63 ? database.substring(0, 63) : database;
+	}
+
+	private void copyDirectory(File source, File target) throws MojoExecutionException {
+		if (!source.isDirectory()) {
+			throw new MojoExecutionException("The database directory " + source.getAbsolutePath() + " does not exist");
+		}
+		try {
+			FileUtils.copyDirectory(source, target);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to copy " + source.getAbsolutePath() + " to " + target.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Copies a database within the database server of the given server, replacing the target database
+	 */
+	private void copyDatabase(Server server, String source, String target) throws MojoExecutionException {
+		try (DBConnector connector = connect(server)) {
+			Connection connection = connector.getConnection();
+			// the target is only dropped once the source is known to be there, as it may be the only copy of the data
+			checkSourceDatabase(connection, server, source);
+			dropDatabase(connection, server, target);
+			if (server.isPostgreSqlDb()) {
+				try (Statement statement = connection.createStatement()) {
+					statement.executeUpdate(String.format("create database %s template %s", target, source));
+				}
+			} else {
+				copyMySqlDatabase(connection, source, target);
+			}
+		}
+		catch (SQLException e) {
+			throw new MojoExecutionException("Failed to copy database " + source + " to " + target + " " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Fails if the given database does not exist on the database server or has no tables
+	 */
+	private void checkSourceDatabase(Connection connection, Server server, String database)
+			throws SQLException, MojoExecutionException {
+		boolean hasTables;
+		if (server.isPostgreSqlDb()) {
+			hasTables = count(connection, "select count(*) from pg_database where datname = ?", database) > 0;
+			if (hasTables) {
+				// the tables of a PostgreSQL database are only visible when connected to it. The connection is not
+				// pooled, as a database cannot be used as a template while anyone is connected to it.
+				String uri = server.getDbUri();
+				uri = uri.substring(0, uri.lastIndexOf("/") + 1) + database;
+				try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), database)) {
+					hasTables = count(connector.getConnection(), "select count(*) from information_schema.tables "
+							+ "where table_catalog = ? and table_schema not in ('pg_catalog', 'information_schema') "
+							+ "and table_type = 'BASE TABLE'", database) > 0;
+				}
+			}
+		} else {
+			hasTables = count(connection, "select count(*) from information_schema.tables where table_schema = ? "
+					+ "and table_type = 'BASE TABLE'", database) > 0;
+		}
+		if (!hasTables) {
+			throw new MojoExecutionException("The database " + database + " does not exist or has no tables on the "
+					+ "database server at " + getDatabaseServerUri(server));
+		}
+	}
+
+	private static int count(Connection connection, String query, String parameter) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(query)) {
+			ps.setString(1, parameter);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		}
+	}
+
+	/**
+	 * MySQL cannot copy a database as a whole, so tables are recreated from their definitions and copied one by one
+	 * on the database server, without transferring the data to the SDK. Views, routines and triggers are recreated
+	 * once the data is copied, so that triggers do not fire on the copied rows.
+	 * <p>
+	 * This is a logical copy of every row and rebuilds every index, so it takes time proportional to the size of the
+	 * data, unlike the file level copy of PostgreSQL templates and H2. It still avoids parsing and sending a dump, but
+	 * is not instant. Renaming the tables of the snapshot into the target would be, but would consume the snapshot.
+	 */
+	private void copyMySqlDatabase(Connection connection, String source, String target) throws SQLException {
+		String characterSet;
+		String collation;
+		try (PreparedStatement ps = connection.prepareStatement(
+				"select default_character_set_name, default_collation_name from information_schema.schemata where schema_name = ?")) {
+			ps.setString(1, source);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					throw new SQLException("The database " + source + " does not exist");
+				}
+				characterSet = rs.getString(1);
+				collation = rs.getString(2);
+			}
+		}
+
+		String catalog = connection.getCatalog();
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("set foreign_key_checks = 0");
+			statement.executeUpdate(String.format("create database `%s` default character set %s collate %s", target,
+					characterSet, collation));
+			// the definitions refer to objects without a schema, so they are created in the target database
+			connection.setCatalog(target);
+			for (String table : listNames(connection, source,
+					"select table_name from information_schema.tables where table_schema = ? and table_type = 'BASE TABLE'")) {
+				statement.execute(showCreate(statement, "table", source, table, 2));
+				statement.executeUpdate(String.format("insert into `%s`.`%s` select * from `%s`.`%s`", target, table, source, table));
+			}
+			copyViews(connection, statement, source, target);
+			for (String routine : listNames(connection, source,
+					"select concat(routine_type, ' ', routine_name) from information_schema.routines where routine_schema = ?")) {
+				String[] typeAndName = routine.split(" ", 2);
+				executeDefinition(statement, showCreate(statement, typeAndName[0], source, typeAndName[1], 3), routine);
+			}
+			for (String trigger : listNames(connection, source,
+					"select trigger_name from information_schema.triggers where trigger_schema = ?")) {
+				executeDefinition(statement, showCreate(statement, "trigger", source, trigger, 3), "trigger " + trigger);
+			}
+		}
+		finally {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("set foreign_key_checks = 1");
+			}
+			// a pooled connection without a catalog cannot be reset to none, so the pool discards it instead
+			if (catalog != null) {
+				connection.setCatalog(catalog);
+			}
+		}
+	}
+
+	/**
+	 * Views may select from other views, so views whose dependencies do not exist yet are retried until none is left
+	 */
+	private void copyViews(Connection connection, Statement statement, String source, String target) throws SQLException {
+		List<String> pending = listNames(connection, source, "select table_name from information_schema.views where table_schema = ?");
+		SQLException failure = null;
+		while (!pending.isEmpty()) {
+			List<String> failed = new ArrayList<>();
+			for (String view : pending) {
+				// the definition refers to the tables of the source database by their qualified names
+				String createView = showCreate(statement, "view", source, view, 2).replace("`" + source + "`.", "`" + target + "`.");
+				try {
+					statement.execute(createView);
+				}
+				catch (SQLException e) {
+					failed.add(view);
+					failure = e;
+				}
+			}
+			if (failed.size() == pending.size()) {
+				throw failure;
+			}
+			pending = failed;
+		}
+	}
+
+	private void executeDefinition(Statement statement, String definition, String description) {
+		if (definition == null) {
+			wizard.showWarning("Unable to read the definition of " + description + ", it has not been copied");
+			return;
+		}
+		try {
+			statement.execute(definition);
+		}
+		catch (SQLException e) {
+			wizard.showWarning("Failed to copy " + description + ": " + e.getMessage());
+		}
+	}
+
+	private static String showCreate(Statement statement, String type, String schema, String name, int column) throws SQLException {
+		try (ResultSet rs = statement.executeQuery(String.format("show create %s `%s`.`%s`", type, schema, name))) {
+			return rs.next() ? rs.getString(column) : null;
+		}
+	}
+
+	private static List<String> listNames(Connection connection, String schema, String query) throws SQLException {
+		List<String> names = new ArrayList<>();
+		try (PreparedStatement ps = connection.prepareStatement(query)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					names.add(rs.getString(1));
+				}
+			}
+		}
+		return names;
+	}
+
+	private void dropDatabase(Connection connection, Server server, String database) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			if (server.isPostgreSqlDb()) {
+				statement.executeUpdate(String.format("drop database if exists %s", database));
+			} else {
+				statement.executeUpdate(String.format("drop database if exists `%s`", database));
+			}
+		}
+	}
+
+	private DBConnector connect(Server server) throws SQLException {
+		String uri = server.getDbUri();
+		uri = uri.substring(0, uri.lastIndexOf("/") + 1);
+		return new DBConnector(connectionPool, uri, server.getDbUser(), server.getDbPassword(), server.getDbName());
+	}
+}
@@ -0,0 +1,360 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.openmrs.maven.plugins.model.SortedProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.openmrs.maven.plugins.utility.PropertiesUtils.loadPropertiesFromFile;
+
+/**
+ * Updates the frontend modules of an installed frontend in place, instead of assembling and building the whole frontend
+ * again, when only the versions of some frontend modules have changed.
+ * <p>
+ * {@link SpaInstaller} records the inputs of each frontend it installs in {@value #ASSEMBLE_INPUTS_FILE}. If the next
+ * install differs only by added, removed or changed frontend modules, the bundles of those modules are fetched from
+ * the npm registry and unpacked the same way the assemble command of the frontend tooling does, and the import map and
+ * the routes registry are rewritten. The app shell is kept, so the core version, the node and npm versions, the other
+ * build properties and the frontend configuration must be unchanged. Dist-tags and version ranges are never updated in
+ * place, as they may resolve to different versions than the ones installed.
+ */
+public class FrontendModuleUpdater {
+
+	private static final Logger log = LoggerFactory.getLogger(FrontendModuleUpdater.class);
+
+	public static final String ASSEMBLE_INPUTS_FILE = "spa-assemble-inputs.properties";
+
+	/**
+	 * System property to always assemble and build the whole frontend, with -Dspa.incremental=false
+	 */
+	public static final String INCREMENTAL_PROPERTY = "spa.incremental";
+
+	static final String IMPORTMAP_FILE = "importmap.json";
+
+	static final String ROUTES_REGISTRY_FILE = "routes.registry.json";
+
+	private static final String FRONTEND_MODULES = "frontendModules.";
+
+	private static final String CORE = "core";
+
+	private static final String CONFIG = "config";
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final NpmRegistryClient registryClient;
+
+	public FrontendModuleUpdater() {
+		this(new NpmRegistryClient());
+	}
+
+	FrontendModuleUpdater(NpmRegistryClient registryClient) {
+		this.registryClient = registryClient;
+	}
+
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(INCREMENTAL_PROPERTY, "true"));
+	}
+
+	/**
+	 * @param buildProperties the spa build properties, without the core, node and npm versions
+	 * @param configHash the hash of the frontend configuration installed before the build
+	 * @return the inputs of a frontend build
+	 */
+	public static Properties getInputs(Map<String, String> buildProperties, String coreVersion, String nodeVersion,
+			String npmVersion, boolean ignorePeerDependencies, String configHash) {
+		Properties inputs = new Properties();
+		inputs.putAll(buildProperties);
+		inputs.setProperty(CORE, coreVersion);
+		inputs.setProperty("node", nodeVersion);
+		inputs.setProperty("npm", npmVersion);
+		inputs.setProperty("legacyPeerDeps", String.valueOf(ignorePeerDependencies));
+		inputs.setProperty(CONFIG, configHash);
+		return inputs;
+	}
+
+	/**
+	 * @return the inputs of the frontend installed in the directory, or null if they were not recorded
+	 */
+	public static Properties readInputs(File appDataDir) {
+		File inputsFile = new File(appDataDir, ASSEMBLE_INPUTS_FILE);
+		if (!inputsFile.isFile()) {
+			return null;
+		}
+		try {
+			Properties inputs = new Properties();
+			loadPropertiesFromFile(inputsFile, inputs);
+			return inputs;
+		}
+		catch (Exception e) {
+			log.debug("Unable to read {}", inputsFile, e);
+			return null;
+		}
+	}
+
+	public static void writeInputs(File appDataDir, Properties inputs) {
+		File inputsFile = new File(appDataDir, ASSEMBLE_INPUTS_FILE);
+		try (OutputStream out = Files.newOutputStream(inputsFile.toPath())) {
+			SortedProperties sortedProperties = new SortedProperties();
+			sortedProperties.putAll(inputs);
+			sortedProperties.store(out, null);
+		}
+		catch (IOException e) {
+			log.debug("Unable to write {}", inputsFile, e);
+			FileUtils.deleteQuietly(inputsFile);
+		}
+	}
+
+	public static void deleteInputs(File appDataDir) {
+		FileUtils.deleteQuietly(new File(appDataDir, ASSEMBLE_INPUTS_FILE));
+	}
+
+	/**
+	 * Updates the frontend modules in the frontend directory from the previous inputs to the next ones
+	 *
+	 * @return true if the frontend was updated, false if it must be assembled and built again
+	 */
+	public boolean update(File frontendDir, Properties previous, Properties next) {
+		File importmapFile = new File(frontendDir, IMPORTMAP_FILE);
+		File routesFile = new File(frontendDir, ROUTES_REGISTRY_FILE);
+		if (!importmapFile.isFile() || !routesFile.isFile()) {
+			return false;
+		}
+		if (!getOtherInputs(previous).equals(getOtherInputs(next))
+				|| !SpaBuildCache.isExactVersion(next.getProperty(CORE))) {
+			return false;
+		}
+
+		Map<String, String> previousModules = getModules(previous);
+		Map<String, String> nextModules = getModules(next);
+		Map<String, String> changedModules = new TreeMap<>();
+		for (Map.Entry<String, String> module : nextModules.entrySet()) {
+			if (!SpaBuildCache.isExactVersion(module.getValue())) {
+				return false;
+			}
+			if (!module.getValue().equals(previousModules.get(module.getKey()))) {
+				changedModules.put(module.getKey(), module.getValue());
+			}
+		}
+		Set<String> removedModules = new HashSet<>(previousModules.keySet());
+		removedModules.removeAll(nextModules.keySet());
+
+		Map<String, File> stagingDirs = new LinkedHashMap<>();
+		try {
+			ObjectNode importmap = (ObjectNode) objectMapper.readTree(importmapFile);
+			ObjectNode imports = (ObjectNode) importmap.get("imports");
+			ObjectNode routes = (ObjectNode) objectMapper.readTree(routesFile);
+			Set<String> replacedDirs = new HashSet<>();
+
+			for (String module : removedModules) {
+				addDir(replacedDirs, imports.get(module));
+				imports.remove(module);
+				routes.remove(module);
+			}
+
+			Map<String, String> entryPoints = new LinkedHashMap<>();
+			for (Map.Entry<String, String> module : changedModules.entrySet()) {
+				String dirName = getDirName(module.getKey(), module.getValue());
+				File stagingDir = new File(frontendDir, dirName + "." + UUID.randomUUID() + ".tmp");
+				stagingDirs.put(dirName, stagingDir);
+				log.info("Fetching frontend module {}@{}", module.getKey(), module.getValue());
+				JsonNode packageJson = fetchModule(module.getKey(), module.getValue(), stagingDir);
+
+				String entryPoint = getEntryPoint(packageJson);
+				if (entryPoint == null) {
+					throw new IOException("The package.json of " + module.getKey() + " has no entry point");
+				}
+				entryPoints.put(module.getKey(), "./" + dirName + "/" + entryPoint);
+
+				ObjectNode moduleRoutes = objectMapper.createObjectNode();
+				File routesJson = new File(stagingDir, "routes.json");
+				if (routesJson.isFile()) {
+					moduleRoutes = (ObjectNode) objectMapper.readTree(routesJson);
+				}
+				moduleRoutes.put("version", module.getValue());
+				routes.set(module.getKey(), moduleRoutes);
+			}
+
+			// nothing in the frontend directory is changed until all modules have been fetched
+			for (Map.Entry<String, File> stagingDir : stagingDirs.entrySet()) {
+				File moduleDir = new File(frontendDir, stagingDir.getKey());
+				if (moduleDir.exists()) {
+					FileUtils.deleteDirectory(moduleDir);
+				}
+				Files.move(stagingDir.getValue().toPath(), moduleDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			for (Map.Entry<String, String> entryPoint : entryPoints.entrySet()) {
+				addDir(replacedDirs, imports.get(entryPoint.getKey()));
+				imports.put(entryPoint.getKey(), entryPoint.getValue());
+			}
+			writeJson(importmapFile, importmap);
+			writeJson(routesFile, routes);
+
+			for (JsonNode entryPoint : imports) {
+				replacedDirs.remove(getDir(entryPoint));
+			}
+			for (String replacedDir : replacedDirs) {
+				FileUtils.deleteQuietly(new File(frontendDir, replacedDir));
+			}
+			log.info("Updated {} and removed {} frontend module(s) in {}", changedModules.size(), removedModules.size(),
+					frontendDir);
+			return true;
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Unable to update the frontend modules in place, the frontend will be rebuilt: {}", e.getMessage());
+			log.debug(e.getMessage(), e);
+			return false;
+		}
+		finally {
+			for (File stagingDir : stagingDirs.values()) {
+				FileUtils.deleteQuietly(stagingDir);
+			}
+		}
+	}
+
+	/**
+	 * Unpacks the dist directory of the package of the module into the target directory
+	 *
+	 * @return the package.json of the module
+	 */
+	JsonNode fetchModule(String name, String version, File targetDir) throws IOException {
+		String tarball = registryClient.getTarballUrl(name, version);
+		if (HttpFetcher.isOffline()) {
+			throw new IOException("Unable to fetch " + tarball + " while Maven runs offline");
+		}
+		HttpGet request = new HttpGet(tarball);
+		String authorization = registryClient.getAuthorization(tarball);
+		if (authorization != null) {
+			request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		try (CloseableHttpResponse response = HttpFetcher.getHttpClient().execute(request)) {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				throw new IOException("Unable to fetch " + tarball + ": HTTP " + response.getStatusLine().getStatusCode());
+			}
+			return unpack(response.getEntity().getContent(), targetDir);
+		}
+	}
+
+	static JsonNode unpack(InputStream tgz, File targetDir) throws IOException {
+		JsonNode packageJson = null;
+		Path target = targetDir.toPath().toAbsolutePath().normalize();
+		Files.createDirectories(target);
+		try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(tgz))) {
+			TarArchiveEntry entry;
+			while ((entry = tar.getNextTarEntry()) != null) {
+				// npm packs the files of a package in a single top level directory, usually 'package'
+				String path = StringUtils.substringAfter(entry.getName(), "/");
+				if (entry.isFile() && path.equals("package.json")) {
+					packageJson = objectMapper.readTree(IOUtils.toByteArray(tar));
+				} else if (entry.isFile() && path.startsWith("dist/")) {
+					Path file = target.resolve(path.substring("dist/".length())).normalize();
+					if (!file.startsWith(target)) {
+						throw new IOException("Invalid entry in the package: " + entry.getName());
+					}
+					Files.createDirectories(file.getParent());
+					Files.copy(tar, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+		if (packageJson == null) {
+			throw new IOException("The package has no package.json");
+		}
+		return packageJson;
+	}
+
+	/**
+	 * @return the name of the directory in which the frontend tooling unpacks a module, named like its npm package
+	 */
+	static String getDirName(String name, String version) {
+		return name.replace("@", "").replace("/", "-") + "-" + version;
+	}
+
+	private static String getEntryPoint(JsonNode packageJson) {
+		for (String field : new String[] { "browser", "module", "main" }) {
+			JsonNode entryPoint = packageJson.get(field);
+			if (entryPoint != null && entryPoint.isTextual()) {
+				return FilenameUtils.getName(entryPoint.asText());
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, String> getModules(Properties inputs) {
+		Map<String, String> modules = new TreeMap<>();
+		for (String key : inputs.stringPropertyNames()) {
+			if (key.startsWith(FRONTEND_MODULES)) {
+				modules.put(key.substring(FRONTEND_MODULES.length()), inputs.getProperty(key));
+			}
+		}
+		return modules;
+	}
+
+	private static Map<String, String> getOtherInputs(Properties inputs) {
+		Map<String, String> others = new TreeMap<>();
+		for (String key : inputs.stringPropertyNames()) {
+			if (!key.startsWith(FRONTEND_MODULES)) {
+				others.put(key, inputs.getProperty(key));
+			}
+		}
+		return others;
+	}
+
+	private static void addDir(Set<String> dirs, JsonNode entryPoint) {
+		String dir = getDir(entryPoint);
+		if (dir != null) {
+			dirs.add(dir);
+		}
+	}
+
+	/**
+	 * @return the directory of an entry point of the import map, such as './openmrs-esm-login-app-5.1.0/main.js'
+	 */
+	private static String getDir(JsonNode entryPoint) {
+		if (entryPoint == null || !entryPoint.isTextual()) {
+			return null;
+		}
+		String[] segments = StringUtils.removeStart(entryPoint.asText(), "./").split("/");
+		if (segments.length != 2 || segments[0].isEmpty() || segments[0].equals("..") || segments[0].contains(":")) {
+			return null;
+		}
+		return segments[0];
+	}
+
+	private static void writeJson(File file, JsonNode json) throws IOException {
+		File temp = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp, json);
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			FileUtils.deleteQuietly(temp);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.model.DistroProperties;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Manages golden images, which are snapshots of the database and of the application data of a server taken after
+ * the first successful start of OpenMRS. They let new servers of the same distribution skip the Liquibase updates,
+ * the loading of the configuration and the search indexing done on the first start.
+ * <p>
+ * A golden image is identified by a hash of the resolved distribution properties, the database engine and the database
+ * server, as MySQL and PostgreSQL snapshots can only be restored on the database server they were taken on. Setup marks
+ * new servers with the golden image they can produce, the Tomcat plugins record the first start of OpenMRS, and the
+ * golden image is captured before the server is run again, when it is not running.
+ */
+public class GoldenImageHelper {
+
+	private static final String GOLDEN_IMAGE_PREFIX = "golden-";
+
+	private static final String APPLICATION_DATA_DIRECTORY = "application-data";
+
+	/**
+	 * Files of the server directory that are installed by setup, specific to the server or transient,
+	 * and so are not part of the application data of a golden image
+	 */
+	private static final Set<String> EXCLUDED_FILES = new HashSet<>(Arrays.asList(
+			SDKConstants.OPENMRS_SERVER_PROPERTIES,
+			"openmrs-runtime.properties",
+			DistroProperties.DISTRO_FILE_NAME,
+			"backup.properties",
+			"modules",
+			"owa",
+			"frontend",
+			SDKConstants.OPENMRS_SERVER_CONFIGURATION,
+			"database",
+			"tmp",
+			".openmrs-lib-cache",
+			"activemq-data",
+			FrontendModuleUpdater.ASSEMBLE_INPUTS_FILE,
+			SpaInstaller.SPA_BUILD_CONFIG_FILE
+	));
+
+	private final Wizard wizard;
+
+	private final DatabaseSnapshotHelper snapshotHelper;
+
+	public GoldenImageHelper(Wizard wizard) {
+		this.wizard = wizard;
+		this.snapshotHelper = new DatabaseSnapshotHelper(wizard);
+	}
+
+	/**
+	 * @return the key of the golden image of the given distribution for the database of the given server
+	 */
+	public static String getKey(DistroProperties distroProperties, Server server) throws MojoExecutionException {
+		return getKey(distroProperties, DatabaseSnapshotHelper.getEngine(server), DatabaseSnapshotHelper.getDatabaseServerUri(server));
+	}
+
+	/**
+	 * @param databaseServerUri the URI of the database server, or null for H2
+	 * @return the key of the golden image of the given distribution for the given database engine and server
+	 */
+	static String getKey(DistroProperties distroProperties, String engine, String databaseServerUri) throws MojoExecutionException {
+		StringBuilder content = new StringBuilder("engine=").append(engine).append('\n');
+		if (databaseServerUri != null) {
+			content.append("databaseServer=").append(databaseServerUri).append('\n');
+		}
+		for (String key : new TreeSet<>(distroProperties.getAllKeys())) {
+			content.append(key).append('=').append(distroProperties.getParam(key)).append('\n');
+		}
+
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				key.append(String.format("%02x", hash[i]));
+			}
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new MojoExecutionException("Failed to compute the golden image key", e);
+		}
+	}
+
+	/**
+	 * @return the name of the database snapshot of the golden image with the given key
+	 */
+	public static String getSnapshotName(String key) {
+		return GOLDEN_IMAGE_PREFIX + key;
+	}
+
+	public boolean hasGoldenImage(String key) {
+		return snapshotHelper.hasSnapshot(getSnapshotName(key)) && getApplicationDataDirectory(key).isDirectory();
+	}
+
+	/**
+	 * @return true if the golden image with the given key exists and its database can be restored to the given server,
+	 * warning if it exists but cannot be restored, e.g. because its database server has been recreated
+	 */
+	public boolean canRestore(Server server, String key) {
+		if (!hasGoldenImage(key)) {
+			return false;
+		}
+		try {
+			snapshotHelper.checkRestorable(server, getSnapshotName(key));
+			return true;
+		}
+		catch (MojoExecutionException e) {
+			wizard.showWarning("The golden image " + key + " cannot be used: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Captures the golden image the server is marked with, if OpenMRS has been started on it. The server should not be
+	 * running. A failure to capture the golden image is reported but does not prevent the server from being used.
+	 */
+	public void captureIfFirstBootCompleted(Server server) throws MojoExecutionException {
+		String key = server.getPendingGoldenImage();
+		if (key == null || !server.getFirstBootMarker().exists()) {
+			return;
+		}
+
+		if (!hasGoldenImage(key)) {
+			wizard.showMessage("Capturing a golden image of " + server.getServerId()
+					+ " after its first start, so that new servers of the same distribution start faster...");
+			DistroProperties distroProperties = server.getDistroPropertiesFile().exists() ? server.getDistroProperties() : null;
+			String snapshot = getSnapshotName(key);
+			File serverDirectory = server.getServerDirectory();
+			File firstBootMarker = server.getFirstBootMarker();
+			try {
+				snapshotHelper.createSnapshot(server, snapshot, distroProperties != null ? distroProperties.getName() : null,
+						distroProperties != null ? distroProperties.getVersion() : null);
+				FileUtils.copyDirectory(serverDirectory, getApplicationDataDirectory(key),
+						(FileFilter) file -> !file.getParentFile().equals(serverDirectory)
+								|| !(isExcluded(file.getName()) || file.equals(firstBootMarker)));
+			}
+			catch (MojoExecutionException | IOException e) {
+				wizard.showWarning("Failed to capture a golden image of " + server.getServerId() + ": " + e.getMessage());
+				if (snapshotHelper.hasSnapshot(snapshot)) {
+					snapshotHelper.deleteSnapshot(snapshot);
+				}
+				FileUtils.deleteQuietly(snapshotHelper.getSnapshotDirectory(snapshot));
+			}
+		}
+
+		server.setPendingGoldenImage(null);
+		server.save();
+		FileUtils.deleteQuietly(server.getFirstBootMarker());
+	}
+
+	/**
+	 * Copies the application data of the golden image with the given key to the given server. The database is restored
+	 * separately, as the snapshot named by {@link #getSnapshotName(String)}.
+	 */
+	public void restoreApplicationData(Server server, String key) throws MojoExecutionException {
+		try {
+			FileUtils.copyDirectory(getApplicationDataDirectory(key), server.getServerDirectory());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to restore the application data of the golden image " + key, e);
+		}
+	}
+
+	private File getApplicationDataDirectory(String key) {
+		return new File(snapshotHelper.getSnapshotDirectory(getSnapshotName(key)), APPLICATION_DATA_DIRECTORY);
+	}
+
+	static boolean isExcluded(String fileName) {
+		return EXCLUDED_FILES.contains(fileName) || fileName.endsWith(".war") || fileName.endsWith(".log");
+	}
+}
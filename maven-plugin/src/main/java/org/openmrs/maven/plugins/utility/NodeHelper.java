@@ -15,9 +15,17 @@ import org.twdata.maven.mojoexecutor.MojoExecutor;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
@@ -38,22 +46,80 @@ public class NodeHelper implements AutoCloseable {
 
 	private static final Logger logger = LoggerFactory.getLogger(NodeHelper.class);
 
+	/**
+	 * Reused installations of node and npm that have already been installed by this JVM, so that several builds
+	 * within the same Maven session do not need to run the frontend plugin to install the same versions again
+	 */
+	private static final Set<String> installedToolchains = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Downloads started in the background by {@link #prepareNodeAndNpm}, by toolchain
+	 */
+	private static final Map<String, CompletableFuture<Void>> pendingToolchains = new ConcurrentHashMap<>();
+
+	private static final String NODE_DOWNLOAD_ROOT = "https://nodejs.org/dist/";
+
+	private static final String NPM_DOWNLOAD_ROOT = "https://registry.npmjs.org/npm/-/";
+
+	/**
+	 * Written to the installation directory once node and npm are installed, so that later builds, including those run
+	 * by other JVMs, can reuse the installation without running the frontend plugin
+	 */
+	static final String TOOLCHAIN_STAMP = ".openmrs-sdk-toolchain";
+
+	static final String NODE_CACHE_DIR = "_openmrs_sdk_node_cache";
+
 	public NodeHelper(MavenEnvironment mavenEnvironment) {
 		this.mavenEnvironment = mavenEnvironment;
 	}
 
+	/**
+	 * Starts downloading node and npm in the background, so that the download overlaps with other work, such as
+	 * downloading the modules of a distribution. The archives are downloaded directly to the cache of the frontend
+	 * plugin in the local repository, and {@link #installNodeAndNpm} then runs the plugin on the calling thread, as
+	 * mojos must not run concurrently within the same Maven session.
+	 */
+	public void prepareNodeAndNpm(String nodeVersion, String npmVersion, boolean reuseNodeCache) {
+		File installDir = getSharedInstallDir(reuseNodeCache);
+		if (installDir != null && isToolchainInstalled(installDir, nodeVersion, npmVersion)) {
+			return;
+		}
+		String nodeClassifier = getNodeClassifier();
+		File localRepository = getLocalRepository();
+		if (nodeClassifier == null || localRepository == null || HttpFetcher.isOffline()) {
+			return;
+		}
+		String toolchain = getToolchain(installDir, nodeVersion, npmVersion);
+		pendingToolchains.computeIfAbsent(toolchain, key -> {
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			Thread thread = new Thread(() -> {
+				try {
+					String nodeArchive = "node-v" + nodeVersion + "-" + nodeClassifier + ".tar.gz";
+					downloadIfMissing(NODE_DOWNLOAD_ROOT + "v" + nodeVersion + "/" + nodeArchive,
+							getCachedArchive(localRepository, "node", nodeVersion, nodeClassifier));
+					downloadIfMissing(NPM_DOWNLOAD_ROOT + "npm-" + npmVersion + ".tgz",
+							getCachedArchive(localRepository, "npm", npmVersion, null));
+					future.complete(null);
+				}
+				catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}, "openmrs-sdk-node-download");
+			thread.setDaemon(true);
+			thread.start();
+			return future;
+		});
+	}
+
 	/**
 	 * Installs node and npm, creating a new installation directory if necessary
 	 */
 	public void installNodeAndNpm(String nodeVersion, String npmVersion, boolean reuseNodeCache) throws MojoExecutionException {
 		this.reuseNodeCache = reuseNodeCache;
-		if (reuseNodeCache) {
-			this.nodeInstallDir = new File(Server.getServersPath().toString(), "_openmrs_sdk_node_cache");
-		}
-		String nodeCacheSystemProperty = System.getProperty("nodeCacheDir");
-		if (StringUtils.isNotBlank(nodeCacheSystemProperty)) {
+		File sharedInstallDir = getSharedInstallDir(reuseNodeCache);
+		if (sharedInstallDir != null) {
 			this.reuseNodeCache = true;
-			this.nodeInstallDir = new File(nodeCacheSystemProperty);
+			this.nodeInstallDir = sharedInstallDir;
 		}
 		if (this.nodeInstallDir != null && this.nodeInstallDir.mkdir()) {
 			logger.info("Created node install directory: " + this.nodeInstallDir.getAbsolutePath());
@@ -68,7 +134,20 @@ public class NodeHelper implements AutoCloseable {
 			}
 		}
 
-        List<MojoExecutor.Element> configuration = new ArrayList<>(3);
+		awaitPendingDownload(getToolchain(sharedInstallDir, nodeVersion, npmVersion));
+		String toolchain = getToolchain(nodeInstallDir, nodeVersion, npmVersion);
+		if (this.reuseNodeCache) {
+			if ((installedToolchains.contains(toolchain) && new File(nodeInstallDir, "node").exists())
+					|| isToolchainInstalled(nodeInstallDir, nodeVersion, npmVersion)) {
+				logger.info("Node " + nodeVersion + " and npm " + npmVersion + " are already installed in " + nodeInstallDir.getAbsolutePath());
+				installedToolchains.add(toolchain);
+				return;
+			}
+		} else if (linkFromNodeCache(nodeVersion, npmVersion)) {
+			return;
+		}
+
+		List<MojoExecutor.Element> configuration = new ArrayList<>(3);
 		configuration.add(element("nodeVersion", "v" + nodeVersion));
 		configuration.add(element("npmVersion", npmVersion));
 		configuration.add(element("installDirectory",  nodeInstallDir.getAbsolutePath()));
@@ -78,6 +157,155 @@ public class NodeHelper implements AutoCloseable {
 			logger.info("Created lib dir " + libDir.getAbsolutePath());
 		}
 		runFrontendMavenPlugin("install-node-and-npm", configuration);
+		writeToolchainStamp(nodeInstallDir, nodeVersion, npmVersion);
+		if (this.reuseNodeCache) {
+			installedToolchains.add(toolchain);
+		}
+	}
+
+	/**
+	 * @return true if the given versions of node and npm have been fully installed in the directory
+	 */
+	static boolean isToolchainInstalled(File installDir, String nodeVersion, String npmVersion) {
+		File stamp = new File(installDir, TOOLCHAIN_STAMP);
+		File nodeDir = new File(installDir, "node");
+		boolean nodeExists = new File(nodeDir, "node").isFile() || new File(nodeDir, "node.exe").isFile();
+		boolean npmExists = new File(nodeDir, "node_modules/npm/package.json").isFile();
+		if (!stamp.isFile() || !nodeExists || !npmExists) {
+			return false;
+		}
+		try {
+			return getStampContent(nodeVersion, npmVersion).equals(new String(Files.readAllBytes(stamp.toPath()), StandardCharsets.UTF_8));
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	static void writeToolchainStamp(File installDir, String nodeVersion, String npmVersion) {
+		try {
+			// written last and atomically, so that an interrupted installation is never taken as complete
+			Path temp = Files.createTempFile(installDir.toPath(), TOOLCHAIN_STAMP, ".tmp");
+			Files.write(temp, getStampContent(nodeVersion, npmVersion).getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, installDir.toPath().resolve(TOOLCHAIN_STAMP), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			logger.debug("Unable to write the toolchain stamp in " + installDir, e);
+		}
+	}
+
+	/**
+	 * Links node and npm from the shared node cache into the temporary installation directory, if they are installed
+	 * there, instead of installing them again
+	 *
+	 * @return true if node and npm were linked
+	 */
+	private boolean linkFromNodeCache(String nodeVersion, String npmVersion) {
+		File cacheDir = new File(Server.getServersPath().toString(), NODE_CACHE_DIR);
+		if (!isToolchainInstalled(cacheDir, nodeVersion, npmVersion)) {
+			return false;
+		}
+		try {
+			Files.createSymbolicLink(new File(nodeInstallDir, "node").toPath(), new File(cacheDir, "node").toPath());
+			logger.info("Using node " + nodeVersion + " and npm " + npmVersion + " installed in " + cacheDir.getAbsolutePath());
+			return true;
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			// for instance on Windows without the privilege to create symbolic links
+			logger.debug("Unable to link node from " + cacheDir, e);
+			return false;
+		}
+	}
+
+	private void awaitPendingDownload(String toolchain) throws MojoExecutionException {
+		CompletableFuture<Void> pending = pendingToolchains.get(toolchain);
+		if (pending == null) {
+			return;
+		}
+		try {
+			pending.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while downloading node and npm", e);
+		}
+		catch (ExecutionException e) {
+			// downloaded again by the frontend plugin, so that the failure is reported by this build
+			logger.debug("Downloading node and npm in the background failed", e.getCause());
+		}
+		finally {
+			pendingToolchains.remove(toolchain, pending);
+		}
+	}
+
+	/**
+	 * @return the shared installation directory, or null if node is installed to a temporary directory
+	 */
+	private static File getSharedInstallDir(boolean reuseNodeCache) {
+		String nodeCacheSystemProperty = System.getProperty("nodeCacheDir");
+		if (StringUtils.isNotBlank(nodeCacheSystemProperty)) {
+			return new File(nodeCacheSystemProperty);
+		}
+		return reuseNodeCache ? new File(Server.getServersPath().toString(), NODE_CACHE_DIR) : null;
+	}
+
+	private static String getToolchain(File installDir, String nodeVersion, String npmVersion) {
+		return (installDir != null ? installDir.getAbsolutePath() : "") + ":" + nodeVersion + ":" + npmVersion;
+	}
+
+	/**
+	 * @return the archive in the local repository where the frontend plugin caches downloads of node and npm
+	 */
+	static File getCachedArchive(File localRepository, String name, String version, String classifier) {
+		String fileName = name + "-" + version + (classifier != null ? "-" + classifier : "") + ".tar.gz";
+		return new File(localRepository, SDKConstants.FRONTEND_PLUGIN_GROUP_ID.replace('.', '/') + "/" + name + "/"
+				+ version + "/" + fileName);
+	}
+
+	/**
+	 * @return the classifier of the node archive for this platform, or null if node is not prefetched for it, in which
+	 * case the frontend plugin downloads it
+	 */
+	static String getNodeClassifier() {
+		String os;
+		if (SystemUtils.IS_OS_LINUX && !new File("/etc/alpine-release").exists()) {
+			os = "linux";
+		} else if (SystemUtils.IS_OS_MAC_OSX) {
+			os = "darwin";
+		} else {
+			return null;
+		}
+		String arch = SystemUtils.OS_ARCH;
+		if ("amd64".equals(arch) || "x86_64".equals(arch)) {
+			return os + "-x64";
+		} else if ("aarch64".equals(arch) || "arm64".equals(arch)) {
+			return os + "-arm64";
+		}
+		return null;
+	}
+
+	private File getLocalRepository() {
+		if (mavenEnvironment == null || mavenEnvironment.getMavenSession() == null
+				|| mavenEnvironment.getMavenSession().getLocalRepository() == null) {
+			return null;
+		}
+		return new File(mavenEnvironment.getMavenSession().getLocalRepository().getBasedir());
+	}
+
+	/**
+	 * Downloads to a temporary file moved in place once complete, so that the frontend plugin never reads a partial
+	 * archive
+	 */
+	private static void downloadIfMissing(String url, File target) throws IOException {
+		if (target.isFile()) {
+			return;
+		}
+		HttpFetcher.download(url, target, null);
+	}
+
+	private static String getStampContent(String nodeVersion, String npmVersion) {
+		return "node=" + nodeVersion + "\nnpm=" + npmVersion + "\n";
 	}
 
 	@Override
@@ -12,6 +12,8 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.SystemUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.Authentication;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.openmrs.maven.plugins.model.Artifact;
@@ -28,12 +30,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
@@ -55,9 +69,14 @@ public class OwaHelper {
 	public static final String NPM_VERSION_KEY = "npm";
 	public static final String OWA_PACKAGE_EXTENSION = ".owa";
 
+	private static final int MAX_CONCURRENT_DOWNLOADS = 4;
+
+	private static final String NODE_DISTROS_URL = "https://nodejs.org/dist/index.json";
+
 	private MavenEnvironment mavenEnvironment;
 	private Wizard wizard;
 	private File installationDir;
+	private CommandVersionCache commandVersionCache = new CommandVersionCache();
 
 	public OwaHelper() {}
 
@@ -67,28 +86,222 @@ public class OwaHelper {
 	}
 
 	public void downloadOwa(File owaDir, Artifact owa, ModuleInstaller moduleInstaller) throws MojoExecutionException {
+		downloadOwas(owaDir, Collections.singletonList(owa), moduleInstaller);
+	}
 
-		if (owa.getArtifactId().startsWith("openmrs-owa-")) {
-			owa.setArtifactId(owa.getArtifactId().substring(12));
+	/**
+	 * Installs OWAs into the owa directory as &lt;name&gt;.owa files, which the OWA module unpacks on startup.
+	 * <p>
+	 * An OWA is skipped if the same file is already installed, and copied straight from the local Maven repository if
+	 * it is a release which has been downloaded before. The remaining releases are downloaded concurrently over HTTP from
+	 * the remote repositories of the project, to a staging directory next to the owa directory. Snapshots, which need
+	 * the repository metadata to be resolved, and releases which could not be downloaded that way are then fetched by
+	 * the dependency plugin one after the other on the calling thread, as mojos must not run concurrently within the same
+	 * Maven session. Each OWA is moved into place atomically, so that an installed OWA is only replaced once its new
+	 * version has been downloaded.
+	 */
+	public void downloadOwas(File owaDir, List<Artifact> owas, ModuleInstaller moduleInstaller) throws MojoExecutionException {
+		List<Artifact> downloads = new ArrayList<>();
+		for (Artifact owa : owas) {
+			File owaFile = new File(owaDir, getOwaBaseName(owa) + OWA_PACKAGE_EXTENSION);
+			File repositoryFile = getLocalRepositoryFile(owa);
+			try {
+				if (repositoryFile != null && owaFile.isFile() && FileUtils.contentEquals(repositoryFile, owaFile)) {
+					showMessage("OWA " + owa + " is already installed");
+					continue;
+				}
+				if (repositoryFile != null) {
+					showMessage("Installing OWA: " + owa);
+					copyAtomically(repositoryFile, owaFile);
+					continue;
+				}
+			}
+			catch (IOException e) {
+				throw new MojoExecutionException("Unable to install OWA " + owa + " to " + owaFile, e);
+			}
+			downloads.add(owa);
+		}
+		if (downloads.isEmpty()) {
+			return;
+		}
+
+		File stagingDir;
+		try {
+			Files.createDirectories(owaDir.toPath());
+			stagingDir = Files.createTempDirectory(owaDir.getAbsoluteFile().getParentFile().toPath(), ".owa-download").toFile();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to create a directory to download OWAs next to " + owaDir, e);
+		}
+		CompositeException failures = new CompositeException("Unable to download OWAs from Maven");
+		try {
+			for (Artifact owa : downloadReleases(stagingDir, owaDir, downloads)) {
+				showMessage("Downloading OWA: " + owa);
+				try {
+					download(stagingDir, owaDir, owa, moduleInstaller);
+				}
+				catch (MojoExecutionException | RuntimeException e) {
+					failures.add(owa.toString(), e);
+				}
+			}
+		}
+		finally {
+			FileUtils.deleteQuietly(stagingDir);
+		}
+		failures.checkAndThrow();
+	}
+
+	/**
+	 * Downloads the releases concurrently over HTTP and installs them
+	 *
+	 * @return the OWAs which still need to be downloaded
+	 */
+	private List<Artifact> downloadReleases(File stagingDir, File owaDir, List<Artifact> owas) throws MojoExecutionException {
+		List<ArtifactRepository> repositories = getRemoteRepositories();
+		List<Artifact> remaining = new ArrayList<>();
+		Map<Artifact, Future<Boolean>> releases = new LinkedHashMap<>();
+		if (repositories.isEmpty() || HttpFetcher.isOffline()) {
+			return owas;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(owas.size(), MAX_CONCURRENT_DOWNLOADS));
+		try {
+			for (Artifact owa : owas) {
+				if (owa.getVersion() == null || owa.getVersion().endsWith("SNAPSHOT")) {
+					remaining.add(owa);
+					continue;
+				}
+				showMessage("Downloading OWA: " + owa);
+				releases.put(owa, executor.submit(() -> downloadRelease(stagingDir, owaDir, owa, repositories)));
+			}
+			for (Map.Entry<Artifact, Future<Boolean>> release : releases.entrySet()) {
+				try {
+					if (!release.getValue().get()) {
+						remaining.add(release.getKey());
+					}
+				}
+				catch (ExecutionException e) {
+					logger.debug("Unable to download OWA " + release.getKey() + " over HTTP", e.getCause());
+					remaining.add(release.getKey());
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while downloading OWAs", e);
+		}
+		finally {
+			executor.shutdownNow();
 		}
+		return remaining;
+	}
 
-		moduleInstaller.installModule(owa, owaDir.getAbsolutePath());
-		File owaFile = new File(owaDir, owa.getArtifactId() + "-" + owa.getVersion() + "." + owa.getType());
-		if (!owaFile.exists()) {
+	/**
+	 * @return true if the release was downloaded from one of the repositories and installed
+	 */
+	private boolean downloadRelease(File stagingDir, File owaDir, Artifact owa, List<ArtifactRepository> repositories)
+			throws IOException {
+		String fileName = getOwaBaseName(owa) + OWA_PACKAGE_EXTENSION;
+		File downloaded = new File(stagingDir, fileName);
+		for (ArtifactRepository repository : repositories) {
+			String url = StringUtils.removeEnd(repository.getUrl(), "/") + "/" + getRepositoryPath(owa);
+			try {
+				HttpFetcher.download(url, downloaded, getAuthorization(repository));
+			}
+			catch (HttpFetcher.HttpStatusException e) {
+				logger.debug(e.getMessage());
+				continue;
+			}
+			Files.move(downloaded.toPath(), new File(owaDir, fileName).toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		return false;
+	}
+
+	private void download(File stagingDir, File owaDir, Artifact owa, ModuleInstaller moduleInstaller)
+			throws MojoExecutionException {
+		Artifact item = new Artifact(owa.getArtifactId(), owa.getVersion(), owa.getGroupId(), owa.getType(), owa.getFileExtension());
+		item.setClassifier(owa.getClassifier());
+		item.setDestFileName(getOwaBaseName(owa) + OWA_PACKAGE_EXTENSION);
+		moduleInstaller.installModule(item, stagingDir.getAbsolutePath());
+
+		File downloaded = new File(stagingDir, item.getDestFileName());
+		if (!downloaded.exists()) {
 			throw new MojoExecutionException("Unable to download OWA " + owa + " from Maven");
 		}
+		try {
+			Files.move(downloaded.toPath(), new File(owaDir, item.getDestFileName()).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to install OWA " + owa + " to " + owaDir, e);
+		}
+	}
 
-		File renamedFile = new File(owaDir, getOwaBaseName(owa) + OWA_PACKAGE_EXTENSION);
+	private List<ArtifactRepository> getRemoteRepositories() {
+		if (mavenEnvironment == null || mavenEnvironment.getMavenProject() == null
+				|| mavenEnvironment.getMavenProject().getRemoteArtifactRepositories() == null) {
+			return Collections.emptyList();
+		}
+		return mavenEnvironment.getMavenProject().getRemoteArtifactRepositories();
+	}
 
-		if (renamedFile.exists()) {
-			renamedFile.delete();
+	private static String getAuthorization(ArtifactRepository repository) {
+		Authentication authentication = repository.getAuthentication();
+		if (authentication == null || authentication.getUsername() == null) {
+			return null;
 		}
+		String credentials = authentication.getUsername() + ":" + StringUtils.defaultString(authentication.getPassword());
+		return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+	}
 
+	/**
+	 * @return the path of the artifact within a repository with the default layout
+	 */
+	private static String getRepositoryPath(Artifact owa) {
+		return owa.getGroupId().replace('.', '/') + "/" + owa.getArtifactId() + "/" + owa.getVersion() + "/"
+				+ getArtifactFileName(owa);
+	}
+
+	private static String getArtifactFileName(Artifact owa) {
+		String extension = owa.getFileExtension() != null ? owa.getFileExtension() : owa.getType();
+		return owa.getArtifactId() + "-" + owa.getVersion() + (owa.getClassifier() != null ? "-" + owa.getClassifier() : "")
+				+ "." + extension;
+	}
+
+	/**
+	 * @return the file of a release in the local Maven repository, or null if it is a snapshot, which may have changed
+	 * since, or has not been downloaded
+	 */
+	File getLocalRepositoryFile(Artifact owa) {
+		if (mavenEnvironment == null || mavenEnvironment.getMavenSession() == null
+				|| mavenEnvironment.getMavenSession().getLocalRepository() == null
+				|| owa.getVersion() == null || owa.getVersion().endsWith("SNAPSHOT")) {
+			return null;
+		}
+		File file = Paths.get(mavenEnvironment.getMavenSession().getLocalRepository().getBasedir(),
+				owa.getGroupId().replace('.', File.separatorChar), owa.getArtifactId(), owa.getVersion(),
+				getArtifactFileName(owa)).toFile();
+		return file.isFile() ? file : null;
+	}
+
+	private static void copyAtomically(File source, File target) throws IOException {
+		Path temp = target.toPath().resolveSibling(target.getName() + "." + UUID.randomUUID() + ".tmp");
 		try {
-			FileUtils.moveFile(owaFile, renamedFile);
+			Files.copy(source.toPath(), temp);
+			Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
 		}
-		catch (IOException ioe) {
-			throw new MojoExecutionException("Unable to move OWA file to " + renamedFile, ioe);
+	}
+
+	private void showMessage(String message) {
+		if (wizard != null) {
+			wizard.showMessage(message);
+		}
+		else {
+			logger.info(message);
 		}
 	}
 
@@ -220,34 +433,37 @@ public class OwaHelper {
 	}
 
 	public String getSystemNpmVersion() {
-		String npmExecutable = getNpmSystemExecutable();
-		String npm = runProcessAndGetFirstResponseLine(npmExecutable, "-v");
-		return StringUtils.isNotBlank(npm) ? npm : null;
+		return getVersion(getNpmSystemExecutable());
 	}
 
 	public String getSystemNodeVersion() {
-		String node = runProcessAndGetFirstResponseLine("node", "-v");
-		return formatNodeVersion(node);
+		return formatNodeVersion(getVersion("node"));
 	}
 
 	public String getProjectNodeVersion() {
-		String node;
 		if (SystemUtils.IS_OS_WINDOWS) {
-			node = runProcessAndGetFirstResponseLine("node\\node.exe", "-v");
+			return formatNodeVersion(getVersion("node\\node.exe"));
 		} else {
-			node = runProcessAndGetFirstResponseLine("node/node", "-v");
+			return formatNodeVersion(getVersion("node/node"));
 		}
-		return formatNodeVersion(node);
 	}
 
 	public String getProjectNpmVersion() {
-		String npm;
 		if (SystemUtils.IS_OS_WINDOWS) {
-			npm = runProcessAndGetFirstResponseLine("node\\npm.cmd", "-v");
+			return getVersion("node\\npm.cmd");
 		} else {
-			npm = runProcessAndGetFirstResponseLine("node/npm", "-v");
+			return getVersion("node/npm");
 		}
-		return StringUtils.isNotBlank(npm) ? npm : null;
+	}
+
+	/**
+	 * @return the version reported by 'command -v', cached until the executable changes, or null if it cannot be run
+	 */
+	private String getVersion(String command) {
+		return commandVersionCache.getVersion(command, executable -> {
+			String version = runProcessAndGetFirstResponseLine(executable, "-v");
+			return StringUtils.isNotBlank(version) ? version.trim() : null;
+		});
 	}
 
 	private String formatNodeVersion(String node) {
@@ -318,12 +534,8 @@ public class OwaHelper {
 		ObjectMapper om = new ObjectMapper();
 		om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-		HttpURLConnection con;
 		try {
-			con = (HttpURLConnection) new URL("https://nodejs.org/dist/index.json").openConnection();
-			con.setRequestMethod("GET");
-
-			return om.readValue(con.getInputStream(), new TypeReference<List<NodeDistro>>() {});
+			return om.readValue(new HttpFetcher().get(NODE_DISTROS_URL), new TypeReference<List<NodeDistro>>() {});
 		} catch (IOException e) {
 			throw new MojoExecutionException("Failed to fetch node distributions " + e.getMessage(), e);
 		}
@@ -0,0 +1,452 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports SQL scripts, such as mysqldump output, loading the data of different tables concurrently.
+ * <p>
+ * The script is read once. Schema statements are executed as they are read, the INSERT statements of each table are
+ * spooled to a temporary file, and statements adding constraints, indexes or triggers are deferred until the end.
+ * The spooled data is loaded by a pool of connections, each table with a {@link SqlScriptImporter}, whenever a
+ * statement that may depend on the data already inserted is read, and at the end of the script.
+ * Session variables set by the script before the data are replayed on each of the connections.
+ * <p>
+ * If a {@link DBConnectionPool} is given, connections are borrowed from it. The connection executing the script is
+ * returned to the pool after a successful import, while the connections loading the data are closed, as the session
+ * variables replayed on them are not restored by the script.
+ */
+public class ParallelSqlScriptImporter {
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelSqlScriptImporter.class);
+
+	private static final Pattern EXECUTABLE_COMMENT = Pattern.compile("^/\\*!\\d*\\s*(.*?)\\s*\\*/$", Pattern.DOTALL);
+
+	private static final Pattern INSERT_TABLE = Pattern.compile(
+			"^(?:INSERT|REPLACE)\\s+(?:(?:LOW_PRIORITY|DELAYED|HIGH_PRIORITY|IGNORE)\\s+)*(?:INTO\\s+)?([`\"\\w.$]+)",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern VALUES = Pattern.compile("\\bVALUES?\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern SCHEMA = Pattern.compile(
+			"^(?:CREATE\\s+(?:TEMPORARY\\s+)?TABLE|CREATE\\s+(?:SCHEMA|DATABASE|SEQUENCE)|DROP\\s+(?:SCHEMA|DATABASE|SEQUENCE)|USE\\s)",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern DEFERRED = Pattern.compile(
+			"^(?:CREATE\\s+(?:UNIQUE\\s+)?INDEX|CREATE\\s+(?:DEFINER\\s*=\\s*\\S+\\s+)?TRIGGER|"
+					+ "ALTER\\s+TABLE\\s+(?:ONLY\\s+)?[`\"\\w.$]+\\s+ADD\\s+(?:CONSTRAINT|FOREIGN\\s+KEY|PRIMARY\\s+KEY|UNIQUE|INDEX|KEY))",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern IGNORED = Pattern.compile(
+			"^(?:LOCK\\s+TABLES|UNLOCK\\s+TABLES|ALTER\\s+TABLE\\s+\\S+\\s+(?:DISABLE|ENABLE)\\s+KEYS)",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern TABLE_DEFINITION = Pattern.compile(
+			"^(?:DROP\\s+TABLE(?:\\s+IF\\s+EXISTS)?|ALTER\\s+TABLE(?:\\s+ONLY)?)\\s+([`\"\\w.$]+(?:\\s*,\\s*[`\"\\w.$]+)*)",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final long WORKER_TERMINATION_TIMEOUT_SECONDS = 60;
+
+	private static final Pattern SESSION = Pattern.compile("^SET\\s", Pattern.CASE_INSENSITIVE);
+
+	private final String url;
+
+	private final String user;
+
+	private final String password;
+
+	private final int threads;
+
+	private final Wizard wizard;
+
+	private final DBConnectionPool connectionPool;
+
+	private SqlDialect dialect;
+
+	private File spoolDirectory;
+
+	private final Map<String, TableSpool> spools = new LinkedHashMap<>();
+
+	private final List<String> sessionStatements = new ArrayList<>();
+
+	private List<String> phaseSessionStatements;
+
+	private final List<String> deferredStatements = new ArrayList<>();
+
+	private final BlockingQueue<Connection> connections;
+
+	private ExecutorService executor;
+
+	private SqlScriptImporter.Result result;
+
+	public ParallelSqlScriptImporter(String url, String user, String password, int threads, Wizard wizard) {
+		this(url, user, password, threads, wizard, null);
+	}
+
+	/**
+	 * @param connectionPool the pool to borrow database connections from, or null to open new connections
+	 */
+	public ParallelSqlScriptImporter(String url, String user, String password, int threads, Wizard wizard,
+			DBConnectionPool connectionPool) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.threads = Math.max(1, threads);
+		this.wizard = wizard;
+		this.connectionPool = connectionPool;
+		this.connections = new ArrayBlockingQueue<>(this.threads);
+	}
+
+	/**
+	 * Executes all statements read from the given script
+	 *
+	 * @param script the script to import, which is not closed by this method
+	 * @return the statistics of the import
+	 */
+	public SqlScriptImporter.Result importScript(Reader script) throws MojoExecutionException {
+		result = new SqlScriptImporter.Result();
+		String sql = null;
+		Connection connection = null;
+		boolean imported = false;
+		try (TempDirectory tempDirectory = TempDirectory.create("sql-import")) {
+			connection = openConnection();
+			try (Statement statement = connection.createStatement()) {
+				spoolDirectory = tempDirectory.getFile();
+				dialect = SqlDialect.of(connection);
+				executor = Executors.newFixedThreadPool(threads);
+				for (String disableCheck : dialect.getDisableChecksStatements()) {
+					executeQuietly(statement, disableCheck);
+				}
+
+				try {
+					SqlStatementReader statements = new SqlStatementReader(script, dialect == SqlDialect.MYSQL);
+					while ((sql = statements.next()) != null) {
+						String command = unwrapExecutableComment(sql);
+						if (IGNORED.matcher(command).find()) {
+							continue;
+						}
+
+						Matcher insert = INSERT_TABLE.matcher(command);
+						if (insert.find() && isValuesInsert(command)) {
+							spool(insert.group(1), sql);
+							continue;
+						}
+
+						if (SESSION.matcher(command).find()) {
+							sessionStatements.add(sql);
+							statement.execute(sql);
+						} else if (DEFERRED.matcher(command).find()) {
+							deferredStatements.add(sql);
+						} else if (SCHEMA.matcher(command).find() || isDefinitionOfTablesWithoutPendingData(command)) {
+							statement.execute(sql);
+						} else {
+							// the statement may depend on the data, e.g. an UPDATE or INSERT ... SELECT, so load it first
+							loadSpooledData();
+							if (!statement.execute(sql) && statement.getUpdateCount() > 0) {
+								result.addRows(statement.getUpdateCount());
+							}
+						}
+						result.addStatement();
+					}
+					sql = null;
+					loadSpooledData();
+
+					if (!deferredStatements.isEmpty()) {
+						wizard.showMessage("Adding " + deferredStatements.size() + " constraints, indexes and triggers...");
+					}
+					for (String deferred : deferredStatements) {
+						sql = deferred;
+						statement.execute(deferred);
+					}
+					sql = null;
+
+					for (String enableCheck : dialect.getEnableChecksStatements()) {
+						executeQuietly(statement, enableCheck);
+					}
+				}
+				finally {
+					// workers may still use connections or read the spooled files after a failure
+					stopWorkers();
+				}
+			}
+			imported = true;
+		}
+		catch (SQLException e) {
+			String message = "Failed to import SQL script: " + e.getMessage();
+			if (sql != null) {
+				message += "\nStatement: " + StringUtils.abbreviate(sql, 500);
+			}
+			throw new MojoExecutionException(message, e);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to read SQL script " + e.getMessage(), e);
+		}
+		finally {
+			closeSpools();
+			closeConnections();
+			if (connection != null) {
+				// the script restores the session it changed, which is not the case if it failed part way
+				closeConnection(connection, imported);
+			}
+		}
+
+		result.finish();
+		wizard.showMessage(String.format("Imported %d statements (%d rows) in %.1fs using %d connections, %.0f rows/s",
+				result.getStatements(), result.getRows(), result.getElapsedMillis() / 1000.0, threads,
+				result.getRowsPerSecond()));
+		return result;
+	}
+
+	static String unwrapExecutableComment(String sql) {
+		Matcher matcher = EXECUTABLE_COMMENT.matcher(sql);
+		return matcher.matches() ? matcher.group(1) : sql;
+	}
+
+	/**
+	 * @return true if the insert only contains literal values, and not a SELECT depending on other tables
+	 */
+	static boolean isValuesInsert(String insert) {
+		Matcher values = VALUES.matcher(insert);
+		if (!values.find()) {
+			return false;
+		}
+		return !StringUtils.containsIgnoreCase(insert.substring(0, values.start()), "SELECT");
+	}
+
+	/**
+	 * mysqldump drops each table before creating it, which should not require loading the data of the previous tables
+	 */
+	private boolean isDefinitionOfTablesWithoutPendingData(String command) {
+		Matcher definition = TABLE_DEFINITION.matcher(command);
+		if (!definition.find()) {
+			return false;
+		}
+		for (String table : definition.group(1).split(",")) {
+			if (spools.containsKey(normalizeTableName(table))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static String normalizeTableName(String table) {
+		return table.trim().replace("`", "").replace("\"", "").toLowerCase();
+	}
+
+	private void spool(String table, String sql) throws IOException {
+		table = normalizeTableName(table);
+		if (spools.isEmpty()) {
+			phaseSessionStatements = new ArrayList<>(sessionStatements);
+		}
+		TableSpool spool = spools.get(table);
+		if (spool == null) {
+			spool = new TableSpool(table, new File(spoolDirectory, "table-" + spools.size() + ".sql"));
+			spools.put(table, spool);
+		}
+		spool.write(sql);
+	}
+
+	/**
+	 * Loads the data spooled since the last call concurrently, starting with the largest tables
+	 */
+	private void loadSpooledData() throws SQLException, IOException {
+		if (spools.isEmpty()) {
+			return;
+		}
+		List<TableSpool> tables = new ArrayList<>(spools.values());
+		spools.clear();
+		for (TableSpool table : tables) {
+			table.close();
+		}
+		tables.sort(Comparator.comparingLong((TableSpool table) -> table.file.length()).reversed());
+
+		wizard.showMessage("Loading data of " + tables.size() + " tables...");
+		openConnections();
+
+		List<String> session = phaseSessionStatements;
+		List<Future<SqlScriptImporter.Result>> futures = new ArrayList<>();
+		for (TableSpool table : tables) {
+			futures.add(executor.submit(() -> loadTable(table, session)));
+		}
+
+		try {
+			for (Future<SqlScriptImporter.Result> future : futures) {
+				result.add(future.get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading data", e);
+		}
+		catch (ExecutionException e) {
+			for (Future<SqlScriptImporter.Result> future : futures) {
+				future.cancel(true);
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			}
+			throw new SQLException(cause.getMessage(), cause);
+		}
+	}
+
+	private SqlScriptImporter.Result loadTable(TableSpool table, List<String> session) throws Exception {
+		Connection connection = connections.take();
+		try {
+			try (Statement statement = connection.createStatement()) {
+				for (String sql : session) {
+					statement.execute(sql);
+				}
+			}
+			try (Reader reader = Files.newBufferedReader(table.file.toPath(), StandardCharsets.UTF_8)) {
+				SqlScriptImporter importer = new SqlScriptImporter(connection, wizard);
+				importer.setShowProgress(false);
+				importer.setDisableChecks(false);
+				SqlScriptImporter.Result tableResult = importer.importScript(reader);
+				log.debug("Loaded {} rows into {} in {} ms", tableResult.getRows(), table.name, tableResult.getElapsedMillis());
+				return tableResult;
+			}
+			catch (MojoExecutionException e) {
+				throw new SQLException("Failed to load data into " + table.name + ": " + e.getMessage(), e.getCause());
+			}
+		}
+		finally {
+			table.file.delete();
+			// add rather than put, which would lose the connection if the worker has been interrupted
+			connections.add(connection);
+		}
+	}
+
+	private void openConnections() throws SQLException {
+		while (connections.size() < threads) {
+			Connection connection = openConnection();
+			try (Statement statement = connection.createStatement()) {
+				for (String disableCheck : dialect.getDisableChecksStatements()) {
+					executeQuietly(statement, disableCheck);
+				}
+			}
+			connections.add(connection);
+		}
+	}
+
+	/**
+	 * Interrupts the workers and waits for them to return their connections, so that none is closed while in use
+	 */
+	private void stopWorkers() {
+		if (executor == null) {
+			return;
+		}
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(WORKER_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				log.warn("Data loading threads did not stop within {} seconds", WORKER_TERMINATION_TIMEOUT_SECONDS);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Connection openConnection() throws SQLException {
+		return connectionPool != null ? connectionPool.acquire(url, user, password) : DriverManager.getConnection(url, user, password);
+	}
+
+	private void closeConnections() {
+		Connection connection;
+		while ((connection = connections.poll()) != null) {
+			closeConnection(connection, false);
+		}
+	}
+
+	/**
+	 * @param reusable whether the connection can be returned to the pool, if any
+	 */
+	private void closeConnection(Connection connection, boolean reusable) {
+		if (connectionPool != null) {
+			if (reusable) {
+				connectionPool.release(connection);
+			} else {
+				connectionPool.discard(connection);
+			}
+			return;
+		}
+		try {
+			connection.close();
+		}
+		catch (SQLException e) {
+			log.debug("Failed to close connection", e);
+		}
+	}
+
+	private void closeSpools() {
+		for (TableSpool spool : spools.values()) {
+			try {
+				spool.close();
+			}
+			catch (IOException e) {
+				log.debug("Failed to close " + spool.file, e);
+			}
+		}
+		spools.clear();
+	}
+
+	private void executeQuietly(Statement statement, String sql) {
+		try {
+			statement.execute(sql);
+		}
+		catch (SQLException e) {
+			log.debug("Unable to execute '" + sql + "': " + e.getMessage());
+		}
+	}
+
+	private static class TableSpool {
+
+		private final String name;
+
+		private final File file;
+
+		private final Writer writer;
+
+		TableSpool(String name, File file) throws IOException {
+			this.name = name;
+			this.file = file;
+			this.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		}
+
+		void write(String sql) throws IOException {
+			writer.write(sql);
+			writer.write(";\n");
+		}
+
+		void close() throws IOException {
+			writer.close();
+		}
+	}
+}
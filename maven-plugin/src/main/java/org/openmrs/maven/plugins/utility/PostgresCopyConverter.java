@@ -0,0 +1,183 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts INSERT statements of literal values into the CSV format of the PostgreSQL COPY command,
+ * so that consecutive inserts into the same table can be loaded with a single COPY ... FROM STDIN.
+ * Statements that contain anything else than string, numeric, boolean or NULL literals are not converted.
+ */
+public class PostgresCopyConverter {
+
+	private static final Pattern INSERT = Pattern.compile(
+			"^INSERT\\s+INTO\\s+([\"\\w.$]+)\\s*(\\([^()]*\\))?\\s*VALUES\\s*", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern UNQUOTED_LITERAL = Pattern.compile(
+			"^(?:[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?|NULL|TRUE|FALSE)$", Pattern.CASE_INSENSITIVE);
+
+	private PostgresCopyConverter() {
+	}
+
+	/**
+	 * The rows of an INSERT statement, in CSV format
+	 */
+	public static class Rows {
+
+		private final String table;
+
+		private final String columns;
+
+		private final String csv;
+
+		private final int count;
+
+		Rows(String table, String columns, String csv, int count) {
+			this.table = table;
+			this.columns = columns;
+			this.csv = csv;
+			this.count = count;
+		}
+
+		/**
+		 * @return the table and columns the rows are inserted into, identifying inserts that can share a COPY command
+		 */
+		public String getTarget() {
+			return columns == null ? table : table + " " + columns;
+		}
+
+		public String getCopyCommand() {
+			return "COPY " + getTarget() + " FROM STDIN WITH (FORMAT csv)";
+		}
+
+		public String getCsv() {
+			return csv;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * @return the rows inserted by the given statement, or null if the statement cannot be converted
+	 */
+	public static Rows convert(String sql) {
+		Matcher matcher = INSERT.matcher(sql);
+		if (!matcher.find()) {
+			return null;
+		}
+		String columns = matcher.group(2) != null ? matcher.group(2).replaceAll("\\s+", " ") : null;
+
+		StringBuilder csv = new StringBuilder(sql.length());
+		int count = 0;
+		int position = matcher.end();
+		int length = sql.length();
+		while (true) {
+			position = skipWhitespace(sql, position);
+			if (position >= length || sql.charAt(position) != '(') {
+				return null;
+			}
+			position = appendRow(sql, position + 1, csv);
+			if (position < 0) {
+				return null;
+			}
+			count++;
+
+			position = skipWhitespace(sql, position);
+			if (position >= length) {
+				break;
+			}
+			if (sql.charAt(position) != ',') {
+				return null;
+			}
+			position++;
+		}
+		return new Rows(matcher.group(1), columns, csv.toString(), count);
+	}
+
+	/**
+	 * Appends the values of a row, starting after its opening parenthesis, as a CSV line
+	 *
+	 * @return the position after the closing parenthesis of the row, or -1 if the row cannot be converted
+	 */
+	private static int appendRow(String sql, int position, StringBuilder csv) {
+		List<String> values = new ArrayList<>();
+		int length = sql.length();
+		while (true) {
+			position = skipWhitespace(sql, position);
+			if (position >= length) {
+				return -1;
+			}
+
+			if (sql.charAt(position) == '\'') {
+				StringBuilder value = new StringBuilder();
+				position++;
+				while (true) {
+					if (position >= length) {
+						return -1;
+					}
+					char c = sql.charAt(position++);
+					if (c == '\'') {
+						if (position < length && sql.charAt(position) == '\'') {
+							value.append('\'');
+							position++;
+						} else {
+							break;
+						}
+					} else {
+						value.append(c);
+					}
+				}
+				values.add(quote(value.toString()));
+			} else {
+				int start = position;
+				while (position < length && sql.charAt(position) != ',' && sql.charAt(position) != ')'
+						&& !Character.isWhitespace(sql.charAt(position))) {
+					position++;
+				}
+				String token = sql.substring(start, position);
+				if (!UNQUOTED_LITERAL.matcher(token).matches()) {
+					return -1;
+				}
+				values.add("NULL".equalsIgnoreCase(token) ? "" : token);
+			}
+
+			position = skipWhitespace(sql, position);
+			if (position >= length) {
+				return -1;
+			}
+			char separator = sql.charAt(position++);
+			if (separator == ')') {
+				break;
+			} else if (separator != ',') {
+				return -1;
+			}
+		}
+
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) {
+				csv.append(',');
+			}
+			csv.append(values.get(i));
+		}
+		csv.append('\n');
+		return position;
+	}
+
+	/**
+	 * Strings are always quoted, so that empty strings are distinguished from NULL, which is an unquoted empty value
+	 */
+	private static String quote(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static int skipWhitespace(String sql, int position) {
+		while (position < sql.length() && Character.isWhitespace(sql.charAt(position))) {
+			position++;
+		}
+		return position;
+	}
+}
@@ -0,0 +1,229 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.openmrs.maven.plugins.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the frontends built by {@link SpaInstaller}, so that a frontend built from the same configuration is restored
+ * instead of being assembled and built again.
+ * <p>
+ * A build is identified by a hash of the spa build properties, including the versions of the frontend modules, the
+ * versions of the frontend tooling, node and npm, and the frontend configuration installed before the build. Builds
+ * using a dist-tag or a version range, such as 'next' or '^5.0.0', are not cached, as they may resolve to different
+ * versions over time. Cached builds are restored with hard links where the file system supports them, which is safe as
+ * the files of a frontend are replaced rather than modified.
+ */
+public class SpaBuildCache {
+
+	private static final Logger log = LoggerFactory.getLogger(SpaBuildCache.class);
+
+	public static final String SPA_BUILD_CACHE = "_openmrs_sdk_spa_cache";
+
+	/**
+	 * System property to disable the cache, with -Dspa.cache=false
+	 */
+	public static final String SPA_CACHE_PROPERTY = "spa.cache";
+
+	private static final int MAX_ENTRIES = 5;
+
+	private static final Pattern EXACT_VERSION = Pattern.compile("^\\d+\\.\\d+\\.\\d+(-[0-9A-Za-z.-]+)?$");
+
+	private final File cacheDir;
+
+	public SpaBuildCache() {
+		this(Server.getServersPath().resolve(SPA_BUILD_CACHE).toFile());
+	}
+
+	SpaBuildCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(SPA_CACHE_PROPERTY, "true"));
+	}
+
+	/**
+	 * @param buildProperties the spa build properties, without the core, node and npm versions
+	 * @param configDir the frontend directory, with the configuration installed before the build
+	 * @return the key of the build, or null if the build cannot be cached
+	 */
+	public static String getKey(Map<String, String> buildProperties, String coreVersion, String nodeVersion,
+			String npmVersion, boolean ignorePeerDependencies, File configDir) throws IOException {
+		if (!isExactVersion(coreVersion)) {
+			return null;
+		}
+		Map<String, String> sorted = new TreeMap<>(buildProperties);
+		for (Map.Entry<String, String> property : sorted.entrySet()) {
+			if (property.getKey().startsWith("frontendModules.") && !isExactVersion(property.getValue())) {
+				return null;
+			}
+		}
+
+		MessageDigest digest = newDigest();
+		update(digest, "core=" + coreVersion, "node=" + nodeVersion, "npm=" + npmVersion,
+				"legacyPeerDeps=" + ignorePeerDependencies);
+		for (Map.Entry<String, String> property : sorted.entrySet()) {
+			update(digest, property.getKey() + "=" + property.getValue());
+		}
+		updateWithFiles(digest, configDir);
+		return toHex(digest);
+	}
+
+	/**
+	 * @return a hash of the names and contents of the files in the directory
+	 */
+	static String hashDirectory(File dir) throws IOException {
+		MessageDigest digest = newDigest();
+		updateWithFiles(digest, dir);
+		return toHex(digest);
+	}
+
+	/**
+	 * Replaces the target directory with the cached build, if there is one
+	 *
+	 * @return true if the build was restored
+	 */
+	public boolean restore(String key, File targetDir) {
+		File entry = new File(cacheDir, key);
+		if (!entry.isDirectory()) {
+			return false;
+		}
+
+		File staging = new File(targetDir.getParentFile(), targetDir.getName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			linkOrCopy(entry.toPath(), staging.toPath());
+			FileUtils.deleteDirectory(targetDir);
+			Files.move(staging.toPath(), targetDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			// so that the least recently used builds are evicted first
+			Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+			return true;
+		}
+		catch (IOException e) {
+			log.warn("Failed to restore the cached frontend build {}: {}", key, e.getMessage());
+			FileUtils.deleteQuietly(staging);
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a copy of the built frontend to the cache, evicting the least recently used builds
+	 */
+	public void store(String key, File builtDir) {
+		File entry = new File(cacheDir, key);
+		File staging = new File(cacheDir, key + "." + UUID.randomUUID() + ".tmp");
+		try {
+			Files.createDirectories(cacheDir.toPath());
+			FileUtils.copyDirectory(builtDir, staging);
+			if (entry.exists()) {
+				FileUtils.deleteDirectory(entry);
+			}
+			Files.move(staging.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			log.warn("Failed to cache the frontend build {}: {}", key, e.getMessage());
+			FileUtils.deleteQuietly(staging);
+			return;
+		}
+		evict();
+	}
+
+	private void evict() {
+		File[] entries = cacheDir.listFiles(file -> file.isDirectory() && !file.getName().endsWith(".tmp"));
+		if (entries == null || entries.length <= MAX_ENTRIES) {
+			return;
+		}
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+		for (File entry : Arrays.copyOfRange(entries, MAX_ENTRIES, entries.length)) {
+			log.debug("Evicting cached frontend build {}", entry.getName());
+			FileUtils.deleteQuietly(entry);
+		}
+	}
+
+	private static void linkOrCopy(Path source, Path target) throws IOException {
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Path copy = target.resolve(source.relativize(file).toString());
+				try {
+					Files.createLink(copy, file);
+				}
+				catch (IOException | UnsupportedOperationException e) {
+					Files.copy(file, copy);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	static boolean isExactVersion(String version) {
+		return version != null && EXACT_VERSION.matcher(version).matches();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void updateWithFiles(MessageDigest digest, File dir) throws IOException {
+		if (!dir.isDirectory()) {
+			return;
+		}
+		Path root = dir.toPath();
+		Map<String, Path> files = new TreeMap<>();
+		try (Stream<Path> walk = Files.walk(root)) {
+			walk.filter(Files::isRegularFile).forEach(file -> files.put(root.relativize(file).toString(), file));
+		}
+		for (Map.Entry<String, Path> file : files.entrySet()) {
+			update(digest, file.getKey());
+			digest.update(Files.readAllBytes(file.getValue()));
+		}
+	}
+
+	private static String toHex(MessageDigest digest) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : Arrays.copyOf(digest.digest(), 16)) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, String... values) {
+		for (String value : values) {
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+	}
+}
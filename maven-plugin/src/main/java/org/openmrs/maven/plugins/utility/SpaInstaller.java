@@ -26,6 +26,8 @@ import static org.openmrs.maven.plugins.utility.PropertiesUtils.getSdkProperties
 
 @Setter
 public class SpaInstaller {
+
+	public static final String SPA_BUILD_CONFIG_FILE = "spa-build-config.json";
 	
 	static final String BAD_SPA_PROPERTIES_MESSAGE = "Distro properties file contains invalid 'spa.' elements. "
 	        + "Please check the distro properties file and the specification. "
@@ -41,6 +43,9 @@ public class SpaInstaller {
 	private ModuleInstaller moduleInstaller;
 	private ContentHelper contentHelper;
 	private Wizard wizard;
+	private SpaBuildCache spaBuildCache = new SpaBuildCache();
+	private FrontendModuleUpdater frontendModuleUpdater = new FrontendModuleUpdater();
+	private StaticAssetCompressor staticAssetCompressor = new StaticAssetCompressor();
 
 	public SpaInstaller() {}
 
@@ -61,9 +66,35 @@ public class SpaInstaller {
 		installFromDistroProperties(appDataDir, distroProperties, false, null);
 	}
 	
+	/**
+	 * Starts downloading the node and npm versions needed to build the SPA in the background, if the SPA is built with
+	 * node, so that the download overlaps with the download of the other artifacts of the distribution.
+	 *
+	 * @param distroProperties Non-null
+	 */
+	public void prepareFromDistroProperties(DistroProperties distroProperties, Boolean overrideReuseNodeCache) throws MojoExecutionException {
+		Map<String, String> spaBuildProperties = distroProperties.getSpaBuildProperties();
+		if (!distroProperties.getSpaArtifacts().isEmpty() || spaBuildProperties.isEmpty()) {
+			return;
+		}
+		spaBuildProperties.remove("core");
+		String nodeVersion = removeNodeVersion(spaBuildProperties);
+		String npmVersion = removeNpmVersion(spaBuildProperties);
+		if (!spaBuildProperties.isEmpty()) {
+			nodeHelper.prepareNodeAndNpm(nodeVersion, npmVersion, isReuseNodeCache(overrideReuseNodeCache));
+		}
+	}
+
 	public void installFromDistroProperties(File appDataDir, DistroProperties distroProperties, boolean ignorePeerDependencies, Boolean overrideReuseNodeCache) throws MojoExecutionException {
 
 		File buildTargetDir = new File(appDataDir, SDKConstants.OPENMRS_SERVER_FRONTEND);
+		Properties previousInputs = FrontendModuleUpdater.readInputs(appDataDir);
+		if (previousInputs != null && FrontendModuleUpdater.isEnabled()
+				&& updateFrontendModules(appDataDir, buildTargetDir, distroProperties, ignorePeerDependencies, previousInputs)) {
+			return;
+		}
+		FrontendModuleUpdater.deleteInputs(appDataDir);
+
 		if (buildTargetDir.exists()) {
 			try {
 				FileUtils.deleteDirectory(buildTargetDir);
@@ -97,6 +128,7 @@ public class SpaInstaller {
 			}
 			String includes = spaArtifactProperties.get(BaseSdkProperties.INCLUDES);
 			moduleInstaller.installAndUnpackModule(artifact, buildTargetDir, includes);
+			precompress(buildTargetDir);
 			wizard.showMessage("SPA successfully installed to " + buildTargetDir.getAbsolutePath());
 			return;
 		}
@@ -106,18 +138,10 @@ public class SpaInstaller {
 		// First pull any optional properties that may be used to specify the core, node, or npm versions
 		// These properties are not passed to the build tool, but are used to specify the build execution itself
 		// Use defaults but allow overrides from distro.properties, system properties, or environment variables
-		String coreVersion = Optional.ofNullable(spaBuildProperties.remove("core"))
-				.orElse("next");
-
-		String nodeVersion = Optional.ofNullable(spaBuildProperties.remove("node.version"))
-				.orElseGet(() -> Optional.ofNullable(spaBuildProperties.remove("node"))
-						.orElseGet(() -> System.getProperty("spa.node.version",
-								System.getenv().getOrDefault("SPA_NODE_VERSION", NODE_VERSION))));
+		String coreVersion = removeCoreVersion(spaBuildProperties);
 
-		String npmVersion = Optional.ofNullable(spaBuildProperties.remove("npm.version"))
-				.orElseGet(() -> Optional.ofNullable(spaBuildProperties.remove("npm"))
-						.orElseGet(() -> System.getProperty("spa.npm.version",
-								System.getenv().getOrDefault("SPA_NPM_VERSION", NPM_VERSION))));
+		String nodeVersion = removeNodeVersion(spaBuildProperties);
+		String npmVersion = removeNpmVersion(spaBuildProperties);
 
 		log.info("Using Node.js version: {}", nodeVersion);
 		log.info("Using NPM version: {}", npmVersion);
@@ -132,11 +156,29 @@ public class SpaInstaller {
 		// If there are remaining spa properties, then build and install using node
 		Map<String, Object> spaConfigJson = convertPropertiesToJSON(spaBuildProperties);
 
-		File spaConfigFile = new File(appDataDir, "spa-build-config.json");
+		File spaConfigFile = new File(appDataDir, SPA_BUILD_CONFIG_FILE);
 		writeJSONObject(spaConfigFile, spaConfigJson);
 
-		Properties sdkProperties = getSdkProperties();
-		boolean reuseNodeCache = (overrideReuseNodeCache != null) ? overrideReuseNodeCache : Boolean.parseBoolean(sdkProperties.getProperty("reuseNodeCache"));
+		boolean reuseNodeCache = isReuseNodeCache(overrideReuseNodeCache);
+		String configHash = getConfigHash(buildTargetDir);
+
+		String cacheKey = null;
+		if (SpaBuildCache.isEnabled()) {
+			try {
+				cacheKey = SpaBuildCache.getKey(spaBuildProperties, coreVersion, nodeVersion, npmVersion,
+						ignorePeerDependencies, buildTargetDir);
+			}
+			catch (IOException e) {
+				log.debug("Unable to compute the key of the frontend build", e);
+			}
+			if (cacheKey == null) {
+				log.info("Not caching the frontend build, as it uses a dist-tag or a version range");
+			} else if (spaBuildCache.restore(cacheKey, buildTargetDir)) {
+				wizard.showMessage("Restored the frontend from a cached build of the same configuration");
+				writeInputs(appDataDir, spaBuildProperties, coreVersion, nodeVersion, npmVersion, ignorePeerDependencies, configHash);
+				return;
+			}
+		}
 
 		String program = "openmrs@" + coreVersion;
 		String legacyPeerDeps = ignorePeerDependencies ? "--legacy-peer-deps" : "";
@@ -153,8 +195,111 @@ public class SpaInstaller {
 		finally {
 			nodeHelper.close();
 		}
+
+		precompress(buildTargetDir);
+		if (cacheKey != null) {
+			spaBuildCache.store(cacheKey, buildTargetDir);
+		}
+		writeInputs(appDataDir, spaBuildProperties, coreVersion, nodeVersion, npmVersion, ignorePeerDependencies, configHash);
+	}
+
+	/**
+	 * Updates only the changed frontend modules of the installed frontend, if nothing else has changed since it was
+	 * installed
+	 *
+	 * @return true if the frontend was updated
+	 */
+	private boolean updateFrontendModules(File appDataDir, File buildTargetDir, DistroProperties distroProperties,
+			boolean ignorePeerDependencies, Properties previousInputs) throws MojoExecutionException {
+		Map<String, String> spaBuildProperties = distroProperties.getSpaBuildProperties();
+		if (!distroProperties.getSpaArtifacts().isEmpty() || !buildTargetDir.isDirectory()) {
+			return false;
+		}
+		String coreVersion = removeCoreVersion(spaBuildProperties);
+		String nodeVersion = removeNodeVersion(spaBuildProperties);
+		String npmVersion = removeNpmVersion(spaBuildProperties);
+		if (spaBuildProperties.isEmpty()) {
+			return false;
+		}
+
+		// the configuration is compared with the one installed, without touching the installed frontend
+		String configHash;
+		try (TempDirectory configDir = TempDirectory.create("frontend-config")) {
+			contentHelper.installFrontendConfig(distroProperties, configDir.getFile());
+			configHash = getConfigHash(configDir.getFile());
+		}
+		Properties inputs = FrontendModuleUpdater.getInputs(spaBuildProperties, coreVersion, nodeVersion, npmVersion,
+				ignorePeerDependencies, configHash);
+		if (configHash == null || !frontendModuleUpdater.update(buildTargetDir, previousInputs, inputs)) {
+			return false;
+		}
+
+		precompress(buildTargetDir);
+		FrontendModuleUpdater.writeInputs(appDataDir, inputs);
+		writeJSONObject(new File(appDataDir, SPA_BUILD_CONFIG_FILE), convertPropertiesToJSON(spaBuildProperties));
+		wizard.showMessage("Updated the changed frontend modules in " + buildTargetDir.getAbsolutePath());
+		return true;
+	}
+
+	/**
+	 * Writes compressed copies of the frontend files, which the server sends instead of compressing them on each request
+	 */
+	private void precompress(File buildTargetDir) {
+		if (!StaticAssetCompressor.isEnabled()) {
+			return;
+		}
+		try {
+			staticAssetCompressor.compress(buildTargetDir);
+		}
+		catch (IOException e) {
+			log.warn("Unable to compress the frontend files in {}: {}", buildTargetDir, e.getMessage());
+		}
+	}
+
+	private static void writeInputs(File appDataDir, Map<String, String> spaBuildProperties, String coreVersion,
+			String nodeVersion, String npmVersion, boolean ignorePeerDependencies, String configHash) {
+		if (configHash != null) {
+			FrontendModuleUpdater.writeInputs(appDataDir, FrontendModuleUpdater.getInputs(spaBuildProperties, coreVersion,
+					nodeVersion, npmVersion, ignorePeerDependencies, configHash));
+		}
+	}
+
+	private static String getConfigHash(File configDir) {
+		try {
+			return SpaBuildCache.hashDirectory(configDir);
+		}
+		catch (IOException e) {
+			log.debug("Unable to hash the frontend configuration in {}", configDir, e);
+			return null;
+		}
+	}
+
+	private static String removeCoreVersion(Map<String, String> spaBuildProperties) {
+		return Optional.ofNullable(spaBuildProperties.remove("core")).orElse("next");
 	}
 	
+	private static String removeNodeVersion(Map<String, String> spaBuildProperties) {
+		return Optional.ofNullable(spaBuildProperties.remove("node.version"))
+				.orElseGet(() -> Optional.ofNullable(spaBuildProperties.remove("node"))
+						.orElseGet(() -> System.getProperty("spa.node.version",
+								System.getenv().getOrDefault("SPA_NODE_VERSION", NODE_VERSION))));
+	}
+
+	private static String removeNpmVersion(Map<String, String> spaBuildProperties) {
+		return Optional.ofNullable(spaBuildProperties.remove("npm.version"))
+				.orElseGet(() -> Optional.ofNullable(spaBuildProperties.remove("npm"))
+						.orElseGet(() -> System.getProperty("spa.npm.version",
+								System.getenv().getOrDefault("SPA_NPM_VERSION", NPM_VERSION))));
+	}
+
+	private static boolean isReuseNodeCache(Boolean overrideReuseNodeCache) throws MojoExecutionException {
+		if (overrideReuseNodeCache != null) {
+			return overrideReuseNodeCache;
+		}
+		Properties sdkProperties = getSdkProperties();
+		return Boolean.parseBoolean(sdkProperties.getProperty("reuseNodeCache"));
+	}
+
 	private Map<String, Object> convertPropertiesToJSON(Map<String, String> properties) throws MojoExecutionException {
 		Set<String> foundPropertySetKeys = new HashSet<>();
 		Map<String, Object> result = new LinkedHashMap<>();
@@ -0,0 +1,50 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The databases supported by the SDK, with the statements used to relax integrity checks while importing a script
+ */
+public enum SqlDialect {
+
+	MYSQL(new String[] { "SET FOREIGN_KEY_CHECKS=0", "SET UNIQUE_CHECKS=0" },
+			new String[] { "SET FOREIGN_KEY_CHECKS=1", "SET UNIQUE_CHECKS=1" }),
+
+	POSTGRESQL(new String[] { "SET session_replication_role = replica" },
+			new String[] { "SET session_replication_role = DEFAULT" }),
+
+	H2(new String[] { "SET REFERENTIAL_INTEGRITY FALSE" },
+			new String[] { "SET REFERENTIAL_INTEGRITY TRUE" }),
+
+	OTHER(new String[0], new String[0]);
+
+	private final String[] disableChecks;
+
+	private final String[] enableChecks;
+
+	SqlDialect(String[] disableChecks, String[] enableChecks) {
+		this.disableChecks = disableChecks;
+		this.enableChecks = enableChecks;
+	}
+
+	public String[] getDisableChecksStatements() {
+		return disableChecks.clone();
+	}
+
+	public String[] getEnableChecksStatements() {
+		return enableChecks.clone();
+	}
+
+	public static SqlDialect of(Connection connection) throws SQLException {
+		String productName = connection.getMetaData().getDatabaseProductName().toLowerCase();
+		if (productName.contains("mysql") || productName.contains("mariadb")) {
+			return MYSQL;
+		} else if (productName.contains("postgres")) {
+			return POSTGRESQL;
+		} else if (productName.contains("h2")) {
+			return H2;
+		}
+		return OTHER;
+	}
+}
@@ -0,0 +1,309 @@
+package org.openmrs.maven.plugins.utility;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Imports SQL scripts, such as database dumps, over a single JDBC connection.
+ * <p>
+ * Statements are streamed from the script, INSERT statements are sent to the database in JDBC batches,
+ * and the import is committed in large transactions with foreign key and unique checks disabled for the session.
+ * When importing into PostgreSQL, runs of INSERT statements into the same table are loaded with COPY instead.
+ */
+public class SqlScriptImporter {
+
+	static final int DEFAULT_BATCH_SIZE = 100;
+
+	static final int DEFAULT_COMMIT_INTERVAL = 5000;
+
+	private static final long PROGRESS_INTERVAL_MILLIS = 10000;
+
+	private static final int MAX_COPY_BUFFER_SIZE = 8 * 1024 * 1024;
+
+	private static final Logger log = LoggerFactory.getLogger(SqlScriptImporter.class);
+
+	private final Connection connection;
+
+	private final Wizard wizard;
+
+	/**
+	 * The number of INSERT statements sent to the database at once
+	 */
+	@Setter
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The number of statements executed within a single transaction
+	 */
+	@Setter
+	private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+	/**
+	 * Whether to show the progress and a summary of the import
+	 */
+	@Setter
+	private boolean showProgress = true;
+
+	/**
+	 * Whether to disable integrity checks during the import, which can be turned off if the caller already did so
+	 */
+	@Setter
+	private boolean disableChecks = true;
+
+	/**
+	 * Whether to load INSERT statements of literal values with COPY when importing into PostgreSQL
+	 */
+	@Setter
+	private boolean usePostgresCopy = true;
+
+	private long lastProgressReport;
+
+	private int pendingInserts;
+
+	private final StringBuilder copyRows = new StringBuilder();
+
+	private String copyTarget;
+
+	private String copyCommand;
+
+	public SqlScriptImporter(Connection connection, Wizard wizard) {
+		this.connection = connection;
+		this.wizard = wizard;
+	}
+
+	/**
+	 * Executes all statements read from the given script
+	 *
+	 * @param script the script to import, which is not closed by this method
+	 * @return the statistics of the import
+	 */
+	public Result importScript(Reader script) throws MojoExecutionException {
+		Result result = new Result();
+		lastProgressReport = result.startTime;
+		pendingInserts = 0;
+		copyRows.setLength(0);
+		copyTarget = null;
+
+		SqlDialect dialect;
+		boolean autoCommit;
+		try {
+			dialect = SqlDialect.of(connection);
+			autoCommit = connection.getAutoCommit();
+		}
+		catch (SQLException e) {
+			throw new MojoExecutionException("Failed to read database metadata " + e.getMessage(), e);
+		}
+
+		String sql = null;
+		try (Statement statement = connection.createStatement()) {
+			if (disableChecks) {
+				connection.setAutoCommit(true);
+				executeQuietly(statement, dialect.getDisableChecksStatements());
+			}
+			connection.setAutoCommit(false);
+
+			SqlStatementReader statements = new SqlStatementReader(script, dialect == SqlDialect.MYSQL);
+			CopyManager copyManager = usePostgresCopy && dialect == SqlDialect.POSTGRESQL ? getCopyManager() : null;
+			int uncommitted = 0;
+			while ((sql = statements.next()) != null) {
+				PostgresCopyConverter.Rows rows = copyManager != null && isInsert(sql) ? PostgresCopyConverter.convert(sql) : null;
+				if (rows != null) {
+					result.rows += executePendingInserts(statement);
+					if (copyTarget != null && !copyTarget.equals(rows.getTarget())) {
+						result.rows += executePendingCopy(copyManager);
+					}
+					copyTarget = rows.getTarget();
+					copyCommand = rows.getCopyCommand();
+					copyRows.append(rows.getCsv());
+					if (copyRows.length() >= MAX_COPY_BUFFER_SIZE) {
+						result.rows += executePendingCopy(copyManager);
+					}
+				} else if (isInsert(sql)) {
+					result.rows += executePendingCopy(copyManager);
+					statement.addBatch(sql);
+					pendingInserts++;
+					if (pendingInserts >= batchSize) {
+						result.rows += executePendingInserts(statement);
+					}
+				} else {
+					result.rows += executePendingCopy(copyManager);
+					result.rows += executePendingInserts(statement);
+					if (!statement.execute(sql) && statement.getUpdateCount() > 0) {
+						result.rows += statement.getUpdateCount();
+					}
+				}
+				result.statements++;
+
+				if (++uncommitted >= commitInterval) {
+					result.rows += executePendingCopy(copyManager);
+					result.rows += executePendingInserts(statement);
+					connection.commit();
+					uncommitted = 0;
+				}
+				reportProgress(result);
+			}
+			sql = null;
+			result.rows += executePendingCopy(copyManager);
+			result.rows += executePendingInserts(statement);
+			connection.commit();
+		}
+		catch (SQLException e) {
+			rollbackQuietly();
+			String message = "Failed to import SQL script: " + e.getMessage();
+			if (sql != null) {
+				message += "\nStatement: " + StringUtils.abbreviate(sql, 500);
+			}
+			throw new MojoExecutionException(message, e);
+		}
+		catch (IOException e) {
+			rollbackQuietly();
+			throw new MojoExecutionException("Failed to read SQL script " + e.getMessage(), e);
+		}
+		finally {
+			try (Statement statement = connection.createStatement()) {
+				if (disableChecks) {
+					connection.setAutoCommit(true);
+					executeQuietly(statement, dialect.getEnableChecksStatements());
+				}
+				connection.setAutoCommit(autoCommit);
+			}
+			catch (SQLException e) {
+				log.debug("Failed to restore the connection settings", e);
+			}
+		}
+
+		result.finish();
+		if (showProgress) {
+			wizard.showMessage(String.format("Imported %d statements (%d rows) in %.1fs, %.0f rows/s", result.statements,
+					result.rows, result.getElapsedMillis() / 1000.0, result.getRowsPerSecond()));
+		}
+		return result;
+	}
+
+	static boolean isInsert(String sql) {
+		return sql.regionMatches(true, 0, "INSERT", 0, 6) || sql.regionMatches(true, 0, "REPLACE", 0, 7);
+	}
+
+	private long executePendingInserts(Statement statement) throws SQLException {
+		if (pendingInserts == 0) {
+			return 0;
+		}
+		long rows = 0;
+		for (int count : statement.executeBatch()) {
+			if (count > 0) {
+				rows += count;
+			}
+		}
+		statement.clearBatch();
+		pendingInserts = 0;
+		return rows;
+	}
+
+	private long executePendingCopy(CopyManager copyManager) throws SQLException, IOException {
+		if (copyRows.length() == 0) {
+			return 0;
+		}
+		long rows = copyManager.copyIn(copyCommand, new StringReader(copyRows.toString()));
+		copyRows.setLength(0);
+		copyTarget = null;
+		return rows;
+	}
+
+	/**
+	 * @return the COPY API of the PostgreSQL connection, or null if the connection does not provide it
+	 */
+	private CopyManager getCopyManager() {
+		try {
+			return connection.unwrap(PGConnection.class).getCopyAPI();
+		}
+		catch (SQLException e) {
+			log.debug("Unable to use COPY to import data, falling back to INSERT statements", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Statements relaxing integrity checks may require privileges that the user does not have,
+	 * in which case the import still proceeds, only more slowly
+	 */
+	private void executeQuietly(Statement statement, String[] sqls) {
+		for (String sql : sqls) {
+			try {
+				statement.execute(sql);
+			}
+			catch (SQLException e) {
+				log.debug("Unable to execute '" + sql + "': " + e.getMessage());
+			}
+		}
+	}
+
+	private void rollbackQuietly() {
+		try {
+			connection.rollback();
+		}
+		catch (SQLException e) {
+			log.debug("Failed to roll back the import", e);
+		}
+	}
+
+	private void reportProgress(Result result) {
+		long now = System.currentTimeMillis();
+		if (showProgress && now - lastProgressReport >= PROGRESS_INTERVAL_MILLIS) {
+			lastProgressReport = now;
+			double seconds = (now - result.startTime) / 1000.0;
+			wizard.showMessage(String.format("Imported %d statements (%d rows) so far, %.0f rows/s", result.statements,
+					result.rows, result.rows / seconds));
+		}
+	}
+
+	@Getter
+	public static class Result {
+
+		private final long startTime = System.currentTimeMillis();
+
+		private long endTime;
+
+		private long statements;
+
+		private long rows;
+
+		synchronized void addStatement() {
+			statements++;
+		}
+
+		synchronized void addRows(long count) {
+			rows += count;
+		}
+
+		synchronized void add(Result other) {
+			statements += other.statements;
+			rows += other.rows;
+		}
+
+		void finish() {
+			endTime = System.currentTimeMillis();
+		}
+
+		public long getElapsedMillis() {
+			return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+		}
+
+		public double getRowsPerSecond() {
+			long elapsed = getElapsedMillis();
+			return elapsed > 0 ? rows * 1000.0 / elapsed : rows;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+/**
+ * Reads SQL statements one at a time from a script, without loading the whole script into memory.
+ * Quoted strings and identifiers, line comments, block comments and DELIMITER commands are taken into account
+ * when looking for the end of a statement.
+ * <p>
+ * When reading a script with MySQL syntax, backslash escapes within quotes and '#' line comments are supported,
+ * and MySQL executable comments (e.g. {@code /*!40101 SET NAMES utf8 *}{@code /}) are retained in the statement.
+ * Otherwise, dollar-quoted strings are supported and all block comments are removed.
+ */
+public class SqlStatementReader implements Closeable {
+
+	private static final String DELIMITER_COMMAND = "DELIMITER ";
+
+	private static final int MAX_DOLLAR_TAG_LENGTH = 64;
+
+	private final PushbackReader reader;
+
+	private final boolean mysqlSyntax;
+
+	private String delimiter = ";";
+
+	public SqlStatementReader(Reader reader, boolean mysqlSyntax) {
+		Reader bufferedReader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 65536);
+		this.reader = new PushbackReader(bufferedReader, MAX_DOLLAR_TAG_LENGTH + 2);
+		this.mysqlSyntax = mysqlSyntax;
+	}
+
+	/**
+	 * @return the next statement in the script without its delimiter, or null if there are no more statements
+	 */
+	public String next() throws IOException {
+		StringBuilder statement = new StringBuilder();
+		int c;
+		while ((c = reader.read()) != -1) {
+			if (c == '\'' || c == '"' || c == '`') {
+				statement.append((char) c);
+				readQuoted((char) c, statement);
+				continue;
+			}
+			if (c == '-' && peek() == '-') {
+				skipLine();
+				statement.append('\n');
+				continue;
+			}
+			if (c == '#' && mysqlSyntax) {
+				skipLine();
+				statement.append('\n');
+				continue;
+			}
+			if (c == '/' && peek() == '*') {
+				reader.read();
+				readBlockComment(statement);
+				continue;
+			}
+			if (c == '$' && !mysqlSyntax && readDollarQuoted(statement)) {
+				continue;
+			}
+
+			statement.append((char) c);
+
+			if (endsWithDelimiter(statement) && !isDelimiterCommand(statement)) {
+				String sql = statement.substring(0, statement.length() - delimiter.length()).trim();
+				statement.setLength(0);
+				if (!sql.isEmpty()) {
+					return sql;
+				}
+			} else if (c == '\n' && isDelimiterCommand(statement)) {
+				delimiter = statement.toString().trim().substring(DELIMITER_COMMAND.length()).trim();
+				statement.setLength(0);
+			}
+		}
+
+		String sql = statement.toString().trim();
+		if (isDelimiterCommand(statement)) {
+			return null;
+		}
+		return sql.isEmpty() ? null : sql;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private int peek() throws IOException {
+		int c = reader.read();
+		if (c != -1) {
+			reader.unread(c);
+		}
+		return c;
+	}
+
+	private void readQuoted(char quote, StringBuilder statement) throws IOException {
+		int c;
+		while ((c = reader.read()) != -1) {
+			statement.append((char) c);
+			if (c == '\\' && mysqlSyntax && quote != '`') {
+				int escaped = reader.read();
+				if (escaped == -1) {
+					return;
+				}
+				statement.append((char) escaped);
+			} else if (c == quote) {
+				return;
+			}
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		while ((c = reader.read()) != -1 && c != '\n') {
+			// skip the rest of the comment
+		}
+	}
+
+	private void readBlockComment(StringBuilder statement) throws IOException {
+		boolean executable = mysqlSyntax && peek() == '!';
+		if (executable) {
+			statement.append("/*");
+		}
+		int previous = -1;
+		int c;
+		while ((c = reader.read()) != -1) {
+			if (executable) {
+				statement.append((char) c);
+			}
+			if (previous == '*' && c == '/') {
+				break;
+			}
+			previous = c;
+		}
+		if (!executable) {
+			statement.append(' ');
+		}
+	}
+
+	/**
+	 * Reads a PostgreSQL dollar-quoted string such as $$...$$ or $body$...$body$, if one starts at the current position
+	 *
+	 * @return true if a dollar-quoted string was read, false if the '$' does not start one
+	 */
+	private boolean readDollarQuoted(StringBuilder statement) throws IOException {
+		StringBuilder tag = new StringBuilder("$");
+		int c;
+		while ((c = reader.read()) != -1 && tag.length() <= MAX_DOLLAR_TAG_LENGTH
+				&& (Character.isLetterOrDigit(c) || c == '_')) {
+			tag.append((char) c);
+		}
+		if (c != '$' || (tag.length() > 1 && Character.isDigit(tag.charAt(1)))) {
+			if (c != -1) {
+				reader.unread(c);
+			}
+			reader.unread(tag.substring(1).toCharArray());
+			return false;
+		}
+		tag.append('$');
+		statement.append(tag);
+
+		int start = statement.length();
+		while ((c = reader.read()) != -1) {
+			statement.append((char) c);
+			if (c == '$' && statement.length() - start >= tag.length()
+					&& statement.substring(statement.length() - tag.length()).equals(tag.toString())) {
+				return true;
+			}
+		}
+		return true;
+	}
+
+	private boolean endsWithDelimiter(StringBuilder statement) {
+		int length = statement.length();
+		int delimiterLength = delimiter.length();
+		if (length < delimiterLength) {
+			return false;
+		}
+		for (int i = 0; i < delimiterLength; i++) {
+			if (statement.charAt(length - delimiterLength + i) != delimiter.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isDelimiterCommand(StringBuilder statement) {
+		if (statement.length() > 100) {
+			return false;
+		}
+		String line = statement.toString().trim();
+		return line.length() > DELIMITER_COMMAND.length() && line.indexOf('\n') == -1
+				&& line.regionMatches(true, 0, DELIMITER_COMMAND, 0, DELIMITER_COMMAND.length());
+	}
+}
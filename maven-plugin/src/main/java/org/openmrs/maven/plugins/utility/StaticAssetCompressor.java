@@ -0,0 +1,144 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzip compressed copy next to each compressible file of a built frontend, such as 'main.js.gz' next to
+ * 'main.js', so that the server can send the compressed copy instead of compressing the file on each request.
+ * <p>
+ * Files are compressed with the best compression level, as it is done once per build. Copies which are already up to
+ * date are kept, and copies which are not smaller than their file are not written.
+ */
+public class StaticAssetCompressor {
+
+	private static final Logger log = LoggerFactory.getLogger(StaticAssetCompressor.class);
+
+	/**
+	 * System property to not compress the frontend, with -Dspa.precompress=false
+	 */
+	public static final String PRECOMPRESS_PROPERTY = "spa.precompress";
+
+	static final String GZIP_EXTENSION = "gz";
+
+	private static final Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<>(
+			Arrays.asList("js", "mjs", "css", "html", "json", "map", "svg", "txt", "xml", "webmanifest"));
+
+	/**
+	 * Files smaller than a network packet gain nothing from compression
+	 */
+	private static final long MIN_SIZE = 1024;
+
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(PRECOMPRESS_PROPERTY, "true"));
+	}
+
+	/**
+	 * @return the number of compressed copies written
+	 */
+	public int compress(File dir) throws IOException {
+		if (!dir.isDirectory()) {
+			return 0;
+		}
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(dir.toPath())) {
+			files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		// a compressed copy must never outlive its file, as it would be sent instead of the file
+		for (Path file : files) {
+			if (isCompressedCopy(file)) {
+				Path original = file.resolveSibling(FilenameUtils.removeExtension(file.getFileName().toString()));
+				if (Files.exists(original) && !isCompressible(original)) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+		files = files.stream().filter(StaticAssetCompressor::isCompressible).collect(Collectors.toList());
+
+		long start = System.currentTimeMillis();
+		AtomicInteger written = new AtomicInteger();
+		try {
+			files.parallelStream().forEach(file -> {
+				try {
+					if (compress(file)) {
+						written.incrementAndGet();
+					}
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		log.info("Compressed {} of {} frontend files in {} ms", written.get(), files.size(),
+				System.currentTimeMillis() - start);
+		return written.get();
+	}
+
+	static boolean isCompressible(Path file) {
+		String extension = FilenameUtils.getExtension(file.getFileName().toString()).toLowerCase();
+		try {
+			return COMPRESSIBLE_EXTENSIONS.contains(extension) && Files.size(file) >= MIN_SIZE;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static boolean isCompressedCopy(Path file) {
+		return FilenameUtils.getExtension(file.getFileName().toString()).equals(GZIP_EXTENSION);
+	}
+
+	private static boolean compress(Path file) throws IOException {
+		Path compressed = file.resolveSibling(file.getFileName() + "." + GZIP_EXTENSION);
+		if (Files.exists(compressed)
+				&& Files.getLastModifiedTime(compressed).compareTo(Files.getLastModifiedTime(file)) > 0) {
+			return false;
+		}
+
+		Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			try (OutputStream out = new BestCompressionGZIPOutputStream(Files.newOutputStream(temp))) {
+				Files.copy(file, out);
+			}
+			if (Files.size(temp) >= Files.size(file)) {
+				Files.deleteIfExists(compressed);
+				return false;
+			}
+			Files.move(temp, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+		BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+			super(out, 65536);
+			def.setLevel(Deflater.BEST_COMPRESSION);
+		}
+	}
+}
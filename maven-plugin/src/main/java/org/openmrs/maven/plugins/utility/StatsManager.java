@@ -4,12 +4,23 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.openmrs.maven.plugins.model.SdkStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- *
+ * Records the goals run, so that anonymous usage statistics can be reported weekly.
+ * <p>
+ * Goals are appended to a local spool. Merging the spool into the statistics and sending the report happen on a
+ * daemon thread, so that goals never wait for the network. The report gives up after a few seconds and the end of a
+ * goal waits at most {@link #FLUSH_GRACE_MILLIS} for it. A report cut short by the end of the build is sent again by a
+ * later goal, as it is only recorded once sent.
  */
 public class StatsManager {
 
+    private static final Logger log = LoggerFactory.getLogger(StatsManager.class);
+
+    static final long FLUSH_GRACE_MILLIS = 1000;
+
     private SdkStatistics sdkStatistics;
 
     private final Wizard wizard;
@@ -18,15 +29,21 @@ public class StatsManager {
 
     private final boolean stats;
 
+    private Thread flushThread;
+
     public StatsManager(Wizard wizard, MavenSession mavenSession, boolean stats){
         this.wizard = wizard;
         this.mavenSession = mavenSession;
         this.stats = stats;
     }
 
-    private void loadStatistics() throws MojoExecutionException {
+    /**
+     * @return true if the statistics file has just been created
+     */
+    private boolean loadStatistics() throws MojoExecutionException {
         try {
             sdkStatistics = SdkStatistics.loadStatistics();
+            return false;
         } catch (MojoExecutionException e) {
             boolean agree;
             if (!mavenSession.getRequest().isInteractiveMode()) {
@@ -35,28 +52,61 @@ public class StatsManager {
                 agree = wizard.promptYesNo(SDKConstants.SDK_STATS_ENABLED_QUESTION);
             }
             sdkStatistics = new SdkStatistics().createSdkStatsFile(agree);
-            sdkStatistics.sendReport(wizard);
+            return true;
         }
     }
 
     public void incrementGoalStats() {
         try {
-            loadStatistics();
+            boolean created = loadStatistics();
 
-            if(sdkStatistics.getStatsEnabled() && wizard.isInteractiveMode()){
+            if (sdkStatistics.getStatsEnabled() && wizard.isInteractiveMode()) {
                 String goal = getGoal();
                 if (StringUtils.isNotBlank(goal)) {
-                    sdkStatistics.incrementGoal(goal);
-                    sdkStatistics.setLastUsed();
-                    sdkStatistics.save();
+                    SdkStatistics.spoolGoal(goal);
                 }
-                sdkStatistics.sendReport(wizard);
+                flush();
+            } else if (created && sdkStatistics.getStatsEnabled()) {
+                flush();
             }
         } catch (Exception e) {
             wizard.showMessage("Failed to send anonymous user statistics. " + e.getMessage());
         }
     }
 
+    /**
+     * Waits for the statistics to be flushed, for at most {@link #FLUSH_GRACE_MILLIS}
+     */
+    public void awaitFlush() {
+        if (flushThread == null) {
+            return;
+        }
+        try {
+            flushThread.join(FLUSH_GRACE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flushThread.isAlive()) {
+            log.debug("Gave up waiting for anonymous usage statistics to be sent");
+        }
+    }
+
+    private void flush() {
+        flushThread = new Thread(() -> {
+            try {
+                SdkStatistics statistics = SdkStatistics.loadStatistics();
+                statistics.mergeSpool();
+                if (statistics.sendReportIfDue()) {
+                    log.debug("Sent anonymous usage statistics");
+                }
+            } catch (Exception e) {
+                log.debug("Failed to send anonymous usage statistics", e);
+            }
+        }, "openmrs-sdk-stats");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
     private String getGoal() {
         for(String mvnGoal: mavenSession.getGoals()){
             if(mvnGoal.contains("openmrs-sdk")){
@@ -0,0 +1,50 @@
+package org.openmrs.maven.plugins;
+
+import org.junit.Test;
+import org.openmrs.maven.plugins.model.Artifact;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class OutdatedTest {
+
+    @Test
+    public void isOutdated_shouldCompareTheResolvedVersionWithTheLatestRelease() {
+        Outdated.Component module = module("2.4.0", "2.10.0");
+        assertThat(module.isOutdated(), is(true));
+
+        Outdated.Component frontendModule = new Outdated.Component("frontend", "@openmrs/esm-login-app", "next");
+        frontendModule.resolvedVersion = "5.9.0-pre.120";
+        frontendModule.latest = "5.8.0";
+        assertThat(frontendModule.isOutdated(), is(false));
+        assertThat(frontendModule.getCurrent(), equalTo("next (5.9.0-pre.120)"));
+    }
+
+    @Test
+    public void isOutdated_shouldNotReportComponentsWhichCouldNotBeChecked() {
+        assertThat(module("2.4.0", null).isOutdated(), is(false));
+    }
+
+    @Test
+    public void formatMatrix_shouldAlignTheColumnsAndMarkOutdatedComponents() {
+        String matrix = Outdated.formatMatrix(Arrays.asList(module("2.4.0", "2.10.0"), module("2.10.0", "2.10.0"),
+                module("1.0.0", null)));
+
+        assertThat(matrix, equalTo(
+                "  TYPE  COMPONENT                            CURRENT  LATEST\n"
+                + "* omod  org.openmrs.module:webservices.rest  2.4.0    2.10.0\n"
+                + "  omod  org.openmrs.module:webservices.rest  2.10.0   2.10.0\n"
+                + "  omod  org.openmrs.module:webservices.rest  1.0.0    ?"));
+    }
+
+    private static Outdated.Component module(String version, String latest) {
+        Outdated.Component component = new Outdated.Component("omod",
+                new Artifact("webservices.rest", version, Artifact.GROUP_MODULE, Artifact.TYPE_OMOD));
+        component.resolvedVersion = version;
+        component.latest = latest;
+        return component;
+    }
+}
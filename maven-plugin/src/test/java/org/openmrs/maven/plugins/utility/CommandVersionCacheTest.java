@@ -0,0 +1,91 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CommandVersionCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    File binDir;
+
+    File cacheFile;
+
+    AtomicInteger runs = new AtomicInteger();
+
+    Function<String, String> detect = command -> {
+        runs.incrementAndGet();
+        return "20.17.0";
+    };
+
+    @Before
+    public void setup() throws Exception {
+        CommandVersionCache.clearMemoryCache();
+        binDir = temp.newFolder("bin");
+        cacheFile = new File(temp.getRoot(), "versions.properties");
+    }
+
+    @Test
+    public void getVersion_shouldRunTheCommandOnlyOnceUntilTheExecutableChanges() throws Exception {
+        File node = createExecutable("node", "v20");
+
+        assertThat(newCache().getVersion("node", detect), equalTo("20.17.0"));
+        CommandVersionCache.clearMemoryCache();
+        assertThat(newCache().getVersion("node", detect), equalTo("20.17.0"));
+        assertThat(runs.get(), is(1));
+
+        FileUtils.writeStringToFile(node, "upgraded to v22", StandardCharsets.UTF_8);
+        assertThat(newCache().getVersion("node", command -> "22.9.0"), equalTo("22.9.0"));
+    }
+
+    @Test
+    public void getVersion_shouldNotRunACommandWhichIsNotInThePath() {
+        assertThat(newCache().getVersion("node", detect), nullValue());
+        assertThat(runs.get(), is(0));
+    }
+
+    @Test
+    public void getVersion_shouldNotCacheFailures() throws Exception {
+        createExecutable("node", "v20");
+
+        assertThat(newCache().getVersion("node", command -> null), nullValue());
+        assertThat(newCache().getVersion("node", detect), equalTo("20.17.0"));
+        assertThat(runs.get(), is(1));
+    }
+
+    @Test
+    public void getVersion_shouldAlwaysRunTheCommandIfDisabled() throws Exception {
+        createExecutable("node", "v20");
+        CommandVersionCache cache = new CommandVersionCache(cacheFile, binDir.getAbsolutePath(), false);
+
+        cache.getVersion("node", detect);
+        cache.getVersion("node", detect);
+        assertThat(runs.get(), is(2));
+        assertThat(cacheFile.exists(), is(false));
+    }
+
+    private CommandVersionCache newCache() {
+        return new CommandVersionCache(cacheFile, binDir.getAbsolutePath(), true);
+    }
+
+    private File createExecutable(String name, String content) throws Exception {
+        File executable = new File(binDir, name);
+        FileUtils.writeStringToFile(executable, content, StandardCharsets.UTF_8);
+        executable.setExecutable(true);
+        return executable;
+    }
+}
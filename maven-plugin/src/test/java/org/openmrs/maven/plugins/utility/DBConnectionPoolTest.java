@@ -0,0 +1,60 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DBConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:connection-pool;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void acquire_shouldReuseReleasedConnections() throws Exception {
+        try (DBConnectionPool pool = new DBConnectionPool()) {
+            Connection connection = pool.acquire(URL, "sa", "");
+            connection.setAutoCommit(false);
+            pool.release(connection);
+
+            Connection reused = pool.acquire(URL, "sa", "");
+            assertThat(reused, sameInstance(connection));
+            assertThat(reused.getAutoCommit(), is(true));
+            pool.release(reused);
+
+            assertThat(pool.getStatistics(), containsString("2 database connection(s) acquired, 1 opened"));
+        }
+    }
+
+    @Test
+    public void acquire_shouldReplaceConnectionsThatAreNoLongerValid() throws Exception {
+        try (DBConnectionPool pool = new DBConnectionPool()) {
+            Connection connection = pool.acquire(URL, "sa", "");
+            pool.release(connection);
+            connection.close();
+
+            Connection replacement = pool.acquire(URL, "sa", "");
+            assertThat(replacement, not(sameInstance(connection)));
+            assertThat(replacement.isValid(1), is(true));
+        }
+    }
+
+    @Test
+    public void close_shouldReturnTheConnectionOfAConnectorToItsPool() throws Exception {
+        try (DBConnectionPool pool = new DBConnectionPool()) {
+            Connection connection;
+            try (DBConnector connector = new DBConnector(pool, URL, "sa", "", "test")) {
+                connection = connector.getConnection();
+            }
+            assertThat(connection.isClosed(), is(false));
+
+            try (DBConnector connector = new DBConnector(pool, URL, "sa", "", "test")) {
+                assertThat(connector.getConnection(), sameInstance(connection));
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DatabaseSnapshotHelperTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    Wizard wizard;
+
+    private Path originalServersPath;
+
+    private DatabaseSnapshotHelper snapshotHelper;
+
+    @Before
+    public void setUp() {
+        originalServersPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.getRoot().getAbsolutePath());
+        snapshotHelper = new DatabaseSnapshotHelper(wizard);
+    }
+
+    @After
+    public void tearDown() {
+        Server.setServersPath(originalServersPath.toString());
+    }
+
+    @Test
+    public void checkRestorable_shouldRefuseSnapshotsOfAnotherDatabaseServer() throws Exception {
+        writeSnapshot("refapp", "jdbc:mysql://localhost:3306/");
+
+        try {
+            snapshotHelper.checkRestorable(createMySqlServer("jdbc:mysql://localhost:3308/openmrs"), "refapp");
+            throw new AssertionError("Expected the snapshot to be refused");
+        }
+        catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("jdbc:mysql://localhost:3306/"));
+        }
+    }
+
+    @Test
+    public void findSnapshot_shouldOnlyFindSnapshotsOfTheSameDatabaseServer() throws Exception {
+        writeSnapshot("refapp", "jdbc:mysql://localhost:3306/");
+
+        assertThat(snapshotHelper.findSnapshot("refapp", "2.6.0", createMySqlServer("jdbc:mysql://localhost:3306/openmrs")),
+                equalTo("refapp"));
+        assertThat(snapshotHelper.findSnapshot("refapp", "2.6.0", createMySqlServer("jdbc:mysql://localhost:3308/openmrs")),
+                nullValue());
+    }
+
+    private void writeSnapshot(String name, String dbUri) throws Exception {
+        File directory = snapshotHelper.getSnapshotDirectory(name);
+        directory.mkdirs();
+        Properties properties = new Properties();
+        properties.setProperty("engine", DatabaseSnapshotHelper.ENGINE_MYSQL);
+        properties.setProperty("database", DatabaseSnapshotHelper.getSnapshotDatabaseName(name));
+        properties.setProperty("db.uri", dbUri);
+        properties.setProperty("distro.name", "refapp");
+        properties.setProperty("distro.version", "2.6.0");
+        properties.setProperty("created", "1");
+        PropertiesUtils.savePropertiesChangesToFile(properties, new File(directory, "snapshot.properties"));
+    }
+
+    private Server createMySqlServer(String dbUri) {
+        Server server = new Server.ServerBuilder()
+                .setServerId("server")
+                .setDbDriver(SDKConstants.DRIVER_MYSQL)
+                .setDbUri(dbUri)
+                .build();
+        server.setDbName("openmrs");
+        return server;
+    }
+}
@@ -0,0 +1,154 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FrontendModuleUpdaterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    HttpServer registry;
+
+    FrontendModuleUpdater updater;
+
+    File frontendDir;
+
+    @Before
+    public void setup() throws Exception {
+        registry = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        registry.start();
+        String registryUrl = "http://localhost:" + registry.getAddress().getPort();
+        updater = new FrontendModuleUpdater(new NpmRegistryClient(registryUrl, temp.newFolder("npm-cache"), 0));
+
+        frontendDir = temp.newFolder("frontend");
+        FileUtils.writeStringToFile(new File(frontendDir, "openmrs-esm-login-app-5.0.0/openmrs-esm-login-app.js"), "old",
+                StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(frontendDir, "openmrs-esm-home-app-5.0.0/openmrs-esm-home-app.js"), "home",
+                StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(frontendDir, FrontendModuleUpdater.IMPORTMAP_FILE), "{\"imports\":{"
+                + "\"@openmrs/esm-login-app\":\"./openmrs-esm-login-app-5.0.0/openmrs-esm-login-app.js\","
+                + "\"@openmrs/esm-home-app\":\"./openmrs-esm-home-app-5.0.0/openmrs-esm-home-app.js\"}}", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(frontendDir, FrontendModuleUpdater.ROUTES_REGISTRY_FILE), "{"
+                + "\"@openmrs/esm-login-app\":{\"version\":\"5.0.0\"},"
+                + "\"@openmrs/esm-home-app\":{\"version\":\"5.0.0\"}}", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void teardown() {
+        registry.stop(0);
+    }
+
+    @Test
+    public void update_shouldReplaceChangedModulesAndRemoveDroppedOnes() throws Exception {
+        publish("@openmrs/esm-login-app", "5.1.0", "{\"pages\":[{\"component\":\"root\",\"route\":\"login\"}]}");
+
+        boolean updated = updater.update(frontendDir, inputs("5.0.0", "5.0.0", "hash"), inputs("5.1.0", null, "hash"));
+
+        assertThat(updated, is(true));
+        JsonNode importmap = new ObjectMapper().readTree(new File(frontendDir, FrontendModuleUpdater.IMPORTMAP_FILE));
+        assertThat(importmap.get("imports").get("@openmrs/esm-login-app").asText(),
+                equalTo("./openmrs-esm-login-app-5.1.0/openmrs-esm-login-app.js"));
+        assertThat(importmap.get("imports").get("@openmrs/esm-home-app"), nullValue());
+
+        JsonNode routes = new ObjectMapper().readTree(new File(frontendDir, FrontendModuleUpdater.ROUTES_REGISTRY_FILE));
+        assertThat(routes.get("@openmrs/esm-login-app").get("version").asText(), equalTo("5.1.0"));
+        assertThat(routes.get("@openmrs/esm-login-app").get("pages").get(0).get("route").asText(), equalTo("login"));
+        assertThat(routes.get("@openmrs/esm-home-app"), nullValue());
+
+        assertThat(FileUtils.readFileToString(new File(frontendDir, "openmrs-esm-login-app-5.1.0/openmrs-esm-login-app.js"),
+                StandardCharsets.UTF_8), equalTo("new"));
+        assertThat(new File(frontendDir, "openmrs-esm-login-app-5.0.0").exists(), is(false));
+        assertThat(new File(frontendDir, "openmrs-esm-home-app-5.0.0").exists(), is(false));
+    }
+
+    @Test
+    public void update_shouldNotUpdateDistTagsOrOtherChanges() throws Exception {
+        publish("@openmrs/esm-login-app", "5.1.0", null);
+
+        assertThat(updater.update(frontendDir, inputs("5.0.0", "5.0.0", "hash"), inputs("next", "5.0.0", "hash")), is(false));
+        assertThat(updater.update(frontendDir, inputs("5.0.0", "5.0.0", "hash"), inputs("5.1.0", "5.0.0", "other")), is(false));
+        assertThat(new File(frontendDir, "openmrs-esm-login-app-5.0.0").exists(), is(true));
+    }
+
+    @Test
+    public void update_shouldLeaveTheFrontendUnchangedIfAModuleCannotBeFetched() throws Exception {
+        String importmap = FileUtils.readFileToString(new File(frontendDir, FrontendModuleUpdater.IMPORTMAP_FILE),
+                StandardCharsets.UTF_8);
+
+        assertThat(updater.update(frontendDir, inputs("5.0.0", "5.0.0", "hash"), inputs("5.1.0", "5.0.0", "hash")), is(false));
+        assertThat(FileUtils.readFileToString(new File(frontendDir, FrontendModuleUpdater.IMPORTMAP_FILE),
+                StandardCharsets.UTF_8), equalTo(importmap));
+        assertThat(frontendDir.list().length, equalTo(4));
+    }
+
+    private Properties inputs(String loginVersion, String homeVersion, String configHash) {
+        Map<String, String> buildProperties = new HashMap<>();
+        buildProperties.put("frontendModules.@openmrs/esm-login-app", loginVersion);
+        if (homeVersion != null) {
+            buildProperties.put("frontendModules.@openmrs/esm-home-app", homeVersion);
+        }
+        buildProperties.put("apiUrl", "/openmrs");
+        return FrontendModuleUpdater.getInputs(buildProperties, "5.1.0", "20.17.0", "10.8.2", false, configHash);
+    }
+
+    private void publish(String name, String version, String routes) throws IOException {
+        ByteArrayOutputStream tgz = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(tgz))) {
+            addEntry(tar, "package/package.json", "{\"name\":\"" + name + "\",\"browser\":\"dist/openmrs-esm-login-app.js\"}");
+            addEntry(tar, "package/dist/openmrs-esm-login-app.js", "new");
+            if (routes != null) {
+                addEntry(tar, "package/dist/routes.json", routes);
+            }
+            addEntry(tar, "package/src/index.ts", "source");
+        }
+        String tarball = "/" + name + "/-/esm-login-app-" + version + ".tgz";
+        serve(tarball, tgz.toByteArray());
+        String registryUrl = "http://localhost:" + registry.getAddress().getPort();
+        serve("/" + name, ("{\"name\":\"" + name + "\",\"versions\":{\"" + version + "\":{\"dist\":{\"tarball\":\""
+                + registryUrl + tarball + "\"}}}}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void serve(String path, byte[] body) {
+        registry.createContext(path, exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private static void addEntry(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+}
@@ -0,0 +1,123 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.maven.plugins.model.DistroProperties;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GoldenImageHelperTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    Wizard wizard;
+
+    private Path originalServersPath;
+
+    @Before
+    public void setUp() throws Exception {
+        originalServersPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        Server.setServersPath(originalServersPath.toString());
+    }
+
+    @Test
+    public void getKey_shouldDependOnTheDistributionAndTheDatabaseServer() throws Exception {
+        DistroProperties distro = createDistro("2.40.0");
+        DistroProperties sameDistro = createDistro("2.40.0");
+        DistroProperties otherDistro = createDistro("2.41.0");
+        String mysql = "jdbc:mysql://localhost:3306/";
+
+        String key = GoldenImageHelper.getKey(distro, DatabaseSnapshotHelper.ENGINE_MYSQL, mysql);
+        assertThat(GoldenImageHelper.getKey(sameDistro, DatabaseSnapshotHelper.ENGINE_MYSQL, mysql), equalTo(key));
+        assertThat(GoldenImageHelper.getKey(otherDistro, DatabaseSnapshotHelper.ENGINE_MYSQL, mysql), not(equalTo(key)));
+        assertThat(GoldenImageHelper.getKey(distro, DatabaseSnapshotHelper.ENGINE_H2, null), not(equalTo(key)));
+        assertThat(GoldenImageHelper.getKey(distro, DatabaseSnapshotHelper.ENGINE_MYSQL, "jdbc:mysql://localhost:3308/"),
+                not(equalTo(key)));
+    }
+
+    @Test
+    public void captureIfFirstBootCompleted_shouldCaptureTheDatabaseAndApplicationDataOfTheServer() throws Exception {
+        Server server = createH2Server("first");
+        server.setPendingGoldenImage("0123456789abcdef");
+        FileUtils.write(new File(server.getServerDirectory(), "database/openmrs.mv.db"), "data", StandardCharsets.UTF_8);
+        FileUtils.write(new File(server.getServerDirectory(), "lucene/indexes/Patient/segments"), "index", StandardCharsets.UTF_8);
+        FileUtils.write(new File(server.getServerDirectory(), "openmrs-runtime.properties"), "first", StandardCharsets.UTF_8);
+        FileUtils.write(new File(server.getServerDirectory(), SpaInstaller.SPA_BUILD_CONFIG_FILE), "{}", StandardCharsets.UTF_8);
+        FileUtils.touch(server.getFirstBootMarker());
+
+        GoldenImageHelper goldenImageHelper = new GoldenImageHelper(wizard);
+        goldenImageHelper.captureIfFirstBootCompleted(server);
+
+        assertThat(goldenImageHelper.hasGoldenImage("0123456789abcdef"), is(true));
+        assertThat(server.getPendingGoldenImage(), nullValue());
+        assertThat(server.getFirstBootMarker().exists(), is(false));
+
+        Server second = createH2Server("second");
+        new DatabaseSnapshotHelper(wizard).restoreSnapshot(second, GoldenImageHelper.getSnapshotName("0123456789abcdef"));
+        goldenImageHelper.restoreApplicationData(second, "0123456789abcdef");
+
+        assertThat(new File(second.getServerDirectory(), "database/openmrs.mv.db").exists(), is(true));
+        assertThat(new File(second.getServerDirectory(), "lucene/indexes/Patient/segments").exists(), is(true));
+        assertThat(new File(second.getServerDirectory(), "openmrs-runtime.properties").exists(), is(false));
+        assertThat(new File(second.getServerDirectory(), SpaInstaller.SPA_BUILD_CONFIG_FILE).exists(), is(false));
+        assertThat(second.getFirstBootMarker().exists(), is(false));
+    }
+
+    @Test
+    public void captureIfFirstBootCompleted_shouldWaitForTheFirstStartOfTheServer() throws Exception {
+        Server server = createH2Server("first");
+        server.setPendingGoldenImage("0123456789abcdef");
+
+        GoldenImageHelper goldenImageHelper = new GoldenImageHelper(wizard);
+        goldenImageHelper.captureIfFirstBootCompleted(server);
+
+        assertThat(goldenImageHelper.hasGoldenImage("0123456789abcdef"), is(false));
+        assertThat(server.getPendingGoldenImage(), equalTo("0123456789abcdef"));
+    }
+
+    private DistroProperties createDistro(String restVersion) {
+        Properties properties = new Properties();
+        properties.setProperty("name", "refapp");
+        properties.setProperty("version", "2.6.0");
+        properties.setProperty("omod.webservices.rest", restVersion);
+        return new DistroProperties(properties);
+    }
+
+    private Server createH2Server(String serverId) {
+        Server server = new Server.ServerBuilder()
+                .setServerId(serverId)
+                .setDbDriver(SDKConstants.DRIVER_H2)
+                .setDbUri("jdbc:h2:@APPLICATIONDATADIR@/database/@DBNAME@")
+                .build();
+        server.setDbName("openmrs");
+        File serverDirectory = Server.getServersPath().resolve(serverId).toFile();
+        serverDirectory.mkdirs();
+        server.setServerDirectory(serverDirectory);
+        return server;
+    }
+}
@@ -0,0 +1,76 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class NodeHelperTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void cleanup() {
+        System.clearProperty("nodeCacheDir");
+    }
+
+    @Test
+    public void isToolchainInstalled_shouldRequireTheStampOfTheSameVersions() throws Exception {
+        File installDir = temp.newFolder("node-cache");
+        createToolchain(installDir);
+
+        assertThat(NodeHelper.isToolchainInstalled(installDir, "20.17.0", "10.8.2"), is(false));
+        NodeHelper.writeToolchainStamp(installDir, "20.17.0", "10.8.2");
+        assertThat(NodeHelper.isToolchainInstalled(installDir, "20.17.0", "10.8.2"), is(true));
+        assertThat(NodeHelper.isToolchainInstalled(installDir, "18.17.0", "10.8.2"), is(false));
+        assertThat(NodeHelper.isToolchainInstalled(installDir, "20.17.0", "9.8.1"), is(false));
+    }
+
+    @Test
+    public void isToolchainInstalled_shouldReturnFalseIfNodeIsMissing() throws Exception {
+        File installDir = temp.newFolder("node-cache");
+        createToolchain(installDir);
+        NodeHelper.writeToolchainStamp(installDir, "20.17.0", "10.8.2");
+
+        FileUtils.forceDelete(new File(installDir, "node/node"));
+        assertThat(NodeHelper.isToolchainInstalled(installDir, "20.17.0", "10.8.2"), is(false));
+    }
+
+    @Test
+    public void installNodeAndNpm_shouldReuseAStampedInstallationWithoutRunningThePlugin() throws Exception {
+        File installDir = temp.newFolder("node-cache");
+        createToolchain(installDir);
+        NodeHelper.writeToolchainStamp(installDir, "20.17.0", "10.8.2");
+        System.setProperty("nodeCacheDir", installDir.getAbsolutePath());
+
+        // without a maven environment, running the frontend plugin would fail
+        NodeHelper nodeHelper = new NodeHelper(null);
+        nodeHelper.installNodeAndNpm("20.17.0", "10.8.2", false);
+        assertThat(nodeHelper.getNodeInstallDir(), equalTo(installDir));
+        assertThat(nodeHelper.isReuseNodeCache(), is(true));
+    }
+
+    @Test
+    public void getCachedArchive_shouldMatchTheCacheOfTheFrontendPlugin() {
+        File localRepository = new File("repository");
+
+        assertThat(NodeHelper.getCachedArchive(localRepository, "node", "20.17.0", "linux-x64"),
+                equalTo(new File(localRepository, "com/github/eirslett/node/20.17.0/node-20.17.0-linux-x64.tar.gz")));
+        assertThat(NodeHelper.getCachedArchive(localRepository, "npm", "10.8.2", null),
+                equalTo(new File(localRepository, "com/github/eirslett/npm/10.8.2/npm-10.8.2.tar.gz")));
+    }
+
+    private static void createToolchain(File installDir) throws Exception {
+        FileUtils.writeStringToFile(new File(installDir, "node/node"), "", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(installDir, "node/node_modules/npm/package.json"), "{}", StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,215 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.maven.plugins.model.Artifact;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OwaHelperTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Mock
+    MavenSession mavenSession;
+
+    @Mock
+    ArtifactRepository localRepository;
+
+    @Mock
+    ModuleInstaller moduleInstaller;
+
+    OwaHelper owaHelper;
+
+    MavenEnvironment mavenEnvironment;
+
+    File repositoryDir;
+
+    File owaDir;
+
+    @Before
+    public void setup() throws Exception {
+        repositoryDir = temp.newFolder("repository");
+        owaDir = temp.newFolder("owa");
+        when(mavenSession.getLocalRepository()).thenReturn(localRepository);
+        when(localRepository.getBasedir()).thenReturn(repositoryDir.getAbsolutePath());
+
+        mavenEnvironment = new MavenEnvironment();
+        mavenEnvironment.setMavenSession(mavenSession);
+        owaHelper = new OwaHelper(mavenEnvironment);
+    }
+
+    @Test
+    public void downloadOwas_shouldSkipOwasWhichAreAlreadyInstalled() throws Exception {
+        writeToRepository("sysadmin", "1.2", "sysadmin 1.2");
+        FileUtils.writeStringToFile(new File(owaDir, "SystemAdministration.owa"), "sysadmin 1.2", StandardCharsets.UTF_8);
+
+        owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("openmrs-owa-sysadmin", "1.2")), moduleInstaller);
+
+        verifyNoInteractions(moduleInstaller);
+        assertThat(read(new File(owaDir, "SystemAdministration.owa")), equalTo("sysadmin 1.2"));
+    }
+
+    @Test
+    public void downloadOwas_shouldCopyReleasesFromTheLocalRepository() throws Exception {
+        writeToRepository("sysadmin", "2.0", "sysadmin 2.0");
+        FileUtils.writeStringToFile(new File(owaDir, "SystemAdministration.owa"), "sysadmin 1.2", StandardCharsets.UTF_8);
+
+        owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("sysadmin", "2.0")), moduleInstaller);
+
+        verifyNoInteractions(moduleInstaller);
+        assertThat(read(new File(owaDir, "SystemAdministration.owa")), equalTo("sysadmin 2.0"));
+        assertThat(owaDir.list().length, is(1));
+    }
+
+    @Test
+    public void downloadOwas_shouldDownloadMissingOwasIntoTheOwaDirectory() throws Exception {
+        writeToRepository("cohortbuilder", "1.0.0-SNAPSHOT", "stale snapshot");
+        doAnswer(invocation -> {
+            Artifact artifact = invocation.getArgument(0);
+            File file = new File((String) invocation.getArgument(1), artifact.getDestFileName());
+            FileUtils.writeStringToFile(file, artifact.getArtifactId() + " " + artifact.getVersion(), StandardCharsets.UTF_8);
+            return null;
+        }).when(moduleInstaller).installModule(any(Artifact.class), anyString());
+
+        owaHelper.downloadOwas(owaDir, Arrays.asList(owa("conceptdictionary", "1.0.0"), owa("cohortbuilder", "1.0.0-SNAPSHOT")),
+                moduleInstaller);
+
+        verify(moduleInstaller, times(2)).installModule(any(Artifact.class), anyString());
+        assertThat(owaDir.list(), arrayContainingInAnyOrder("conceptdictionary.owa", "cohortbuilder.owa"));
+        assertThat(read(new File(owaDir, "cohortbuilder.owa")), equalTo("cohortbuilder 1.0.0-SNAPSHOT"));
+    }
+
+    @Test
+    public void downloadOwas_shouldReportFailedDownloadsAfterTheOthersComplete() throws Exception {
+        ArgumentCaptor<Artifact> artifacts = ArgumentCaptor.forClass(Artifact.class);
+        doThrow(new MojoExecutionException("not found")).when(moduleInstaller).installModule(artifacts.capture(), anyString());
+
+        try {
+            owaHelper.downloadOwas(owaDir, Arrays.asList(owa("conceptdictionary", "1.0.0"), owa("sysadmin", "2.0")),
+                    moduleInstaller);
+            throw new AssertionError("Expected the downloads to fail");
+        }
+        catch (MojoExecutionException e) {
+            assertThat(artifacts.getAllValues().size(), is(2));
+            assertThat(owaDir.list().length, is(0));
+        }
+    }
+
+    @Test
+    public void downloadOwas_shouldKeepTheInstalledOwaIfTheDownloadFails() throws Exception {
+        FileUtils.writeStringToFile(new File(owaDir, "conceptdictionary.owa"), "conceptdictionary 1.0.0", StandardCharsets.UTF_8);
+        doThrow(new MojoExecutionException("not found")).when(moduleInstaller).installModule(any(Artifact.class), anyString());
+
+        try {
+            owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("conceptdictionary", "1.1.0")), moduleInstaller);
+            throw new AssertionError("Expected the download to fail");
+        }
+        catch (MojoExecutionException e) {
+            assertThat(read(new File(owaDir, "conceptdictionary.owa")), equalTo("conceptdictionary 1.0.0"));
+            assertThat(owaDir.getParentFile().list(), arrayContainingInAnyOrder("owa", "repository"));
+        }
+    }
+
+    @Test
+    public void downloadOwas_shouldDownloadReleasesFromTheRemoteRepositoriesConcurrently() throws Exception {
+        List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        HttpServer repository = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ExecutorService handlers = Executors.newFixedThreadPool(4);
+        repository.setExecutor(handlers);
+        repository.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.add(path);
+            if (!path.endsWith("/conceptdictionary-1.0.0.zip") && !path.endsWith("/sysadmin-2.0.zip")) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = path.substring(path.lastIndexOf('/') + 1).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        repository.start();
+        try {
+            ArtifactRepository remoteRepository = mock(ArtifactRepository.class);
+            when(remoteRepository.getUrl()).thenReturn("http://localhost:" + repository.getAddress().getPort() + "/");
+            MavenProject mavenProject = mock(MavenProject.class);
+            when(mavenProject.getRemoteArtifactRepositories()).thenReturn(Collections.singletonList(remoteRepository));
+            mavenEnvironment.setMavenProject(mavenProject);
+            doAnswer(invocation -> {
+                Artifact artifact = invocation.getArgument(0);
+                File file = new File((String) invocation.getArgument(1), artifact.getDestFileName());
+                FileUtils.writeStringToFile(file, artifact.getArtifactId() + " " + artifact.getVersion(), StandardCharsets.UTF_8);
+                return null;
+            }).when(moduleInstaller).installModule(any(Artifact.class), anyString());
+
+            owaHelper.downloadOwas(owaDir, Arrays.asList(owa("conceptdictionary", "1.0.0"), owa("sysadmin", "2.0"),
+                    owa("cohortbuilder", "1.0.0")), moduleInstaller);
+
+            assertThat(read(new File(owaDir, "conceptdictionary.owa")), equalTo("conceptdictionary-1.0.0.zip"));
+            assertThat(read(new File(owaDir, "SystemAdministration.owa")), equalTo("sysadmin-2.0.zip"));
+            // not in the repository, so left to the dependency plugin
+            assertThat(read(new File(owaDir, "cohortbuilder.owa")), equalTo("cohortbuilder 1.0.0"));
+            verify(moduleInstaller, times(1)).installModule(any(Artifact.class), anyString());
+            assertThat(requests, hasItem("/org/openmrs/owa/sysadmin/2.0/sysadmin-2.0.zip"));
+            assertThat(owaDir.getParentFile().list(), arrayContainingInAnyOrder("owa", "repository"));
+        }
+        finally {
+            repository.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    private Artifact owa(String artifactId, String version) {
+        return new Artifact(artifactId, version, Artifact.GROUP_OWA, Artifact.TYPE_ZIP);
+    }
+
+    private void writeToRepository(String artifactId, String version, String content) throws Exception {
+        File file = new File(repositoryDir, "org/openmrs/owa/" + artifactId + "/" + version + "/" + artifactId + "-" + version + ".zip");
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(File file) throws Exception {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+}
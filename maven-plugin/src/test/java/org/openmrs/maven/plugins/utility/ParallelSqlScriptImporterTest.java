@@ -0,0 +1,99 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ParallelSqlScriptImporterTest {
+
+    private static final String URL = "jdbc:h2:mem:parallel-importer;DB_CLOSE_DELAY=-1";
+
+    @Mock
+    Wizard wizard;
+
+    @Test
+    public void importScript_shouldLoadTablesConcurrentlyAndApplyConstraintsLast() throws Exception {
+        StringBuilder dump = new StringBuilder();
+        dump.append("SET @OLD_VALUE = 1;\n");
+        for (String table : new String[] { "person", "patient", "encounter" }) {
+            dump.append("DROP TABLE IF EXISTS `").append(table).append("`;\n");
+            dump.append("CREATE TABLE `").append(table).append("` (id INT PRIMARY KEY, person_id INT, uuid CHAR(38));\n");
+            dump.append("LOCK TABLES `").append(table).append("` WRITE;\n");
+            for (int i = 1; i <= 500; i++) {
+                dump.append("INSERT INTO `").append(table).append("` VALUES (").append(i).append(", ")
+                        .append(i).append(", '").append(table).append(i).append("');\n");
+            }
+            dump.append("UNLOCK TABLES;\n");
+        }
+        dump.append("ALTER TABLE encounter ADD CONSTRAINT encounter_patient FOREIGN KEY (person_id) REFERENCES patient (id);\n");
+        dump.append("UPDATE person SET uuid = 'updated' WHERE id = 1;\n");
+        dump.append("INSERT INTO person VALUES (501, 501, 'after update');\n");
+
+        SqlScriptImporter.Result result;
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            result = new ParallelSqlScriptImporter(URL, "sa", "", 3, wizard).importScript(new StringReader(dump.toString()));
+
+            assertThat(result.getRows(), equalTo(1502L));
+            assertThat(queryForInt(connection, "SELECT COUNT(*) FROM person"), equalTo(501));
+            assertThat(queryForInt(connection, "SELECT COUNT(*) FROM encounter"), equalTo(500));
+            assertThat(queryForInt(connection, "SELECT COUNT(*) FROM person WHERE uuid = 'updated'"), equalTo(1));
+            assertThat(queryForInt(connection, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.CONSTRAINTS "
+                    + "WHERE CONSTRAINT_NAME = 'ENCOUNTER_PATIENT'"), equalTo(1));
+        }
+    }
+
+    @Test
+    public void importScript_shouldBorrowConnectionsFromThePool() throws Exception {
+        String url = "jdbc:h2:mem:pooled-importer;DB_CLOSE_DELAY=-1";
+        StringBuilder dump = new StringBuilder("CREATE TABLE person (id INT PRIMARY KEY);\n");
+        for (int i = 1; i <= 10; i++) {
+            dump.append("INSERT INTO person VALUES (").append(i).append(");\n");
+        }
+
+        try (DBConnectionPool pool = new DBConnectionPool()) {
+            pool.release(pool.acquire(url, "sa", ""));
+            new ParallelSqlScriptImporter(url, "sa", "", 2, wizard, pool).importScript(new StringReader(dump.toString()));
+
+            // the idle connection runs the script, and is then available again, unlike those which loaded the data
+            try (Connection connection = pool.acquire(url, "sa", "")) {
+                assertThat(queryForInt(connection, "SELECT COUNT(*) FROM person"), equalTo(10));
+            }
+            assertThat(pool.getStatistics(), startsWith("5 database connection(s) acquired, 3 opened"));
+        }
+    }
+
+    @Test
+    public void isValuesInsert_shouldOnlyAcceptInsertsOfLiteralValues() {
+        assertThat(ParallelSqlScriptImporter.isValuesInsert("INSERT INTO `a` (`id`) VALUES (1),(2)"), is(true));
+        assertThat(ParallelSqlScriptImporter.isValuesInsert("INSERT INTO a SELECT * FROM b WHERE c = 'VALUES ('"), is(false));
+        assertThat(ParallelSqlScriptImporter.isValuesInsert("INSERT INTO a SET id = 1"), is(false));
+    }
+
+    @Test
+    public void unwrapExecutableComment_shouldReturnTheCommentedStatement() {
+        assertThat(ParallelSqlScriptImporter.unwrapExecutableComment("/*!40000 ALTER TABLE `a` DISABLE KEYS */"),
+                equalTo("ALTER TABLE `a` DISABLE KEYS"));
+        assertThat(ParallelSqlScriptImporter.unwrapExecutableComment("SET NAMES utf8"), equalTo("SET NAMES utf8"));
+    }
+
+    private int queryForInt(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
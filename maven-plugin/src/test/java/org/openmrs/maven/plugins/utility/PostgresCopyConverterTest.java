@@ -0,0 +1,40 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PostgresCopyConverterTest {
+
+    @Test
+    public void convert_shouldConvertRowsToCsv() {
+        PostgresCopyConverter.Rows rows = PostgresCopyConverter.convert(
+                "INSERT INTO public.person (person_id, gender, birthdate, voided) VALUES "
+                        + "(1, 'F', NULL, false), (2, 'it''s, \"quoted\"', '', -1.5e3)");
+
+        assertThat(rows.getCount(), equalTo(2));
+        assertThat(rows.getTarget(), equalTo("public.person (person_id, gender, birthdate, voided)"));
+        assertThat(rows.getCopyCommand(),
+                equalTo("COPY public.person (person_id, gender, birthdate, voided) FROM STDIN WITH (FORMAT csv)"));
+        assertThat(rows.getCsv(), equalTo("1,\"F\",,false\n2,\"it's, \"\"quoted\"\"\",\"\",-1.5e3\n"));
+    }
+
+    @Test
+    public void convert_shouldKeepLineBreaksAndBackslashesInStrings() {
+        PostgresCopyConverter.Rows rows = PostgresCopyConverter.convert("insert into obs values (1, 'a\\b\nc')");
+
+        assertThat(rows.getTarget(), equalTo("obs"));
+        assertThat(rows.getCsv(), equalTo("1,\"a\\b\nc\"\n"));
+    }
+
+    @Test
+    public void convert_shouldNotConvertStatementsWithExpressions() {
+        assertThat(PostgresCopyConverter.convert("INSERT INTO a VALUES (1, now())"), nullValue());
+        assertThat(PostgresCopyConverter.convert("INSERT INTO a VALUES (1, 'x'::uuid)"), nullValue());
+        assertThat(PostgresCopyConverter.convert("INSERT INTO a VALUES (1, E'\\n')"), nullValue());
+        assertThat(PostgresCopyConverter.convert("INSERT INTO a VALUES (1) ON CONFLICT DO NOTHING"), nullValue());
+        assertThat(PostgresCopyConverter.convert("INSERT INTO a SELECT * FROM b"), nullValue());
+    }
+}
@@ -0,0 +1,101 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SpaBuildCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void getKey_shouldReturnNullForDistTagsAndRanges() throws Exception {
+        File configDir = temp.newFolder("frontend");
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("frontendModules.@openmrs/esm-login-app", "5.1.0");
+
+        assertThat(SpaBuildCache.getKey(properties, "next", "v18.17.0", "10.2.3", false, configDir), nullValue());
+        assertThat(SpaBuildCache.getKey(properties, "^5.0.0", "v18.17.0", "10.2.3", false, configDir), nullValue());
+
+        properties.put("frontendModules.@openmrs/esm-home-app", "latest");
+        assertThat(SpaBuildCache.getKey(properties, "5.1.0", "v18.17.0", "10.2.3", false, configDir), nullValue());
+    }
+
+    @Test
+    public void getKey_shouldNotDependOnTheOrderOfProperties() throws Exception {
+        File configDir = temp.newFolder("frontend");
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("frontendModules.@openmrs/esm-login-app", "5.1.0");
+        properties.put("frontendModules.@openmrs/esm-home-app", "5.2.0-pre.100");
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("frontendModules.@openmrs/esm-home-app", "5.2.0-pre.100");
+        reversed.put("frontendModules.@openmrs/esm-login-app", "5.1.0");
+
+        String key = SpaBuildCache.getKey(properties, "5.1.0", "v18.17.0", "10.2.3", false, configDir);
+        assertThat(key, notNullValue());
+        assertThat(SpaBuildCache.getKey(reversed, "5.1.0", "v18.17.0", "10.2.3", false, configDir), equalTo(key));
+        assertThat(SpaBuildCache.getKey(reversed, "5.1.0", "v20.10.0", "10.2.3", false, configDir), not(equalTo(key)));
+    }
+
+    @Test
+    public void getKey_shouldChangeWithTheConfiguration() throws Exception {
+        File configDir = temp.newFolder("frontend");
+        File config = new File(configDir, "config.json");
+        FileUtils.writeStringToFile(config, "{}", StandardCharsets.UTF_8);
+        Map<String, String> properties = new LinkedHashMap<>();
+
+        String key = SpaBuildCache.getKey(properties, "5.1.0", "v18.17.0", "10.2.3", false, configDir);
+        FileUtils.writeStringToFile(config, "{\"@openmrs/esm-login-app\":{}}", StandardCharsets.UTF_8);
+        assertThat(SpaBuildCache.getKey(properties, "5.1.0", "v18.17.0", "10.2.3", false, configDir), not(equalTo(key)));
+    }
+
+    @Test
+    public void restore_shouldReplaceTheTargetWithTheStoredBuild() throws Exception {
+        SpaBuildCache cache = new SpaBuildCache(temp.newFolder("cache"));
+        File built = temp.newFolder("built");
+        FileUtils.writeStringToFile(new File(built, "index.html"), "<html/>", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(built, "assets/app.js"), "app", StandardCharsets.UTF_8);
+
+        assertThat(cache.restore("abc", temp.newFolder("empty")), is(false));
+        cache.store("abc", built);
+
+        File target = temp.newFolder("target");
+        FileUtils.writeStringToFile(new File(target, "stale.js"), "stale", StandardCharsets.UTF_8);
+        assertThat(cache.restore("abc", target), is(true));
+        assertThat(new File(target, "stale.js").exists(), is(false));
+        assertThat(FileUtils.readFileToString(new File(target, "assets/app.js"), StandardCharsets.UTF_8), equalTo("app"));
+    }
+
+    @Test
+    public void store_shouldEvictTheLeastRecentlyUsedBuilds() throws Exception {
+        File cacheDir = temp.newFolder("cache");
+        SpaBuildCache cache = new SpaBuildCache(cacheDir);
+        File built = temp.newFolder("built");
+        FileUtils.writeStringToFile(new File(built, "index.html"), "<html/>", StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 6; i++) {
+            cache.store("key" + i, built);
+            new File(cacheDir, "key" + i).setLastModified(System.currentTimeMillis() - (10 - i) * 60000L);
+        }
+        cache.store("key6", built);
+
+        assertThat(new File(cacheDir, "key0").exists(), is(false));
+        assertThat(new File(cacheDir, "key1").exists(), is(false));
+        assertThat(new File(cacheDir, "key6").exists(), is(true));
+        assertThat(cacheDir.list().length, equalTo(5));
+    }
+}
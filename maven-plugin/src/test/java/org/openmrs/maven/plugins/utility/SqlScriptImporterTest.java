@@ -0,0 +1,162 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SqlScriptImporterTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlScriptImporterTest.class);
+
+    private static final int BENCHMARK_ROWS = 20000;
+
+    @Mock
+    Wizard wizard;
+
+    @Test
+    public void reader_shouldSplitStatementsIgnoringDelimitersInQuotesAndComments() throws IOException {
+        String script = "-- a comment; with a delimiter\n"
+                + "CREATE TABLE `a;b` (id INT);\n"
+                + "INSERT INTO t VALUES ('it''s; fine', \"x;y\");\n"
+                + "/* block; comment */ INSERT INTO t VALUES ('c:\\\\;');\n"
+                + "/*!40101 SET NAMES utf8 */;\n"
+                + "# another comment;\n"
+                + "SELECT 1";
+
+        assertThat(readAll(script, true), contains(
+                "CREATE TABLE `a;b` (id INT)",
+                "INSERT INTO t VALUES ('it''s; fine', \"x;y\")",
+                "INSERT INTO t VALUES ('c:\\\\;')",
+                "/*!40101 SET NAMES utf8 */",
+                "SELECT 1"));
+    }
+
+    @Test
+    public void reader_shouldSupportDelimiterCommands() throws IOException {
+        String script = "DELIMITER ;;\n"
+                + "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET NEW.x = 1; END;;\n"
+                + "DELIMITER ;\n"
+                + "INSERT INTO a VALUES (1);\n";
+
+        assertThat(readAll(script, true), contains(
+                "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET NEW.x = 1; END",
+                "INSERT INTO a VALUES (1)"));
+    }
+
+    @Test
+    public void reader_shouldSupportPostgresDollarQuotes() throws IOException {
+        String script = "CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql;\n"
+                + "SELECT $1, 'a\\';\n";
+
+        assertThat(readAll(script, false), contains(
+                "CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql",
+                "SELECT $1, 'a\\'"));
+    }
+
+    @Test
+    public void importScript_shouldImportAllRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:importer-test;DB_CLOSE_DELAY=-1", "sa", "")) {
+            SqlScriptImporter importer = new SqlScriptImporter(connection, wizard);
+            importer.setBatchSize(7);
+            importer.setCommitInterval(50);
+            SqlScriptImporter.Result result = importer.importScript(new StringReader(createDump(1000, true)));
+
+            assertThat(result.getRows(), equalTo(1000L + 1));
+            assertThat(countRows(connection, "person"), equalTo(1000));
+            assertThat(countRows(connection, "person_name"), equalTo(1));
+        }
+    }
+
+    /**
+     * Compares the importer with the mybatis ScriptRunner previously used by Setup, and logs the timings of both
+     */
+    @Test
+    public void importScript_benchmarkAgainstScriptRunner() throws Exception {
+        String dump = createDump(BENCHMARK_ROWS, false);
+
+        long scriptRunnerTime;
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:script-runner;DB_CLOSE_DELAY=-1", "sa", "")) {
+            long start = System.nanoTime();
+            ScriptRunner scriptRunner = new ScriptRunner(connection);
+            scriptRunner.setLogWriter(new PrintWriter(new NullOutputStream()));
+            scriptRunner.setStopOnError(true);
+            scriptRunner.runScript(new StringReader(dump));
+            scriptRunnerTime = System.nanoTime() - start;
+            assertThat(countRows(connection, "person"), equalTo(BENCHMARK_ROWS));
+        }
+
+        long importerTime;
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:importer;DB_CLOSE_DELAY=-1", "sa", "")) {
+            long start = System.nanoTime();
+            new SqlScriptImporter(connection, wizard).importScript(new StringReader(dump));
+            importerTime = System.nanoTime() - start;
+            assertThat(countRows(connection, "person"), equalTo(BENCHMARK_ROWS));
+        }
+
+        log.info("Imported {} rows: ScriptRunner {} ms, SqlScriptImporter {} ms", BENCHMARK_ROWS,
+                scriptRunnerTime / 1000000, importerTime / 1000000);
+    }
+
+    private List<String> readAll(String script, boolean mysqlSyntax) throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(script), mysqlSyntax)) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @param namesFirst whether names are inserted before the persons they reference, which requires foreign key
+     * checks to be disabled
+     */
+    private String createDump(int rows, boolean namesFirst) {
+        StringBuilder dump = new StringBuilder();
+        dump.append("-- Test dump\n");
+        dump.append("CREATE TABLE person (person_id INT PRIMARY KEY, gender VARCHAR(50), uuid CHAR(38));\n");
+        dump.append("CREATE TABLE person_name (person_name_id INT PRIMARY KEY, person_id INT, given_name VARCHAR(50));\n");
+        dump.append("ALTER TABLE person_name ADD CONSTRAINT name_for_person FOREIGN KEY (person_id) REFERENCES person (person_id);\n");
+        String name = "INSERT INTO person_name VALUES (1, 1, 'O''Brien; Jr');\n";
+        if (namesFirst) {
+            dump.append(name);
+        }
+        for (int i = 1; i <= rows; i++) {
+            dump.append("INSERT INTO person VALUES (").append(i).append(", 'F', '").append(i).append("-uuid');\n");
+        }
+        if (!namesFirst) {
+            dump.append(name);
+        }
+        return dump.toString();
+    }
+
+    private int countRows(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StaticAssetCompressorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    StaticAssetCompressor compressor = new StaticAssetCompressor();
+
+    @Test
+    public void compress_shouldWriteGzipCopiesOfCompressibleFiles() throws Exception {
+        File dir = temp.newFolder("frontend");
+        String script = StringUtils.repeat("console.log('openmrs');\n", 200);
+        FileUtils.writeStringToFile(new File(dir, "esm-login-app/main.a1b2c3d4.js"), script, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(dir, "small.js"), "x", StandardCharsets.UTF_8);
+        FileUtils.writeByteArrayToFile(new File(dir, "logo.png"), new byte[4096]);
+
+        assertThat(compressor.compress(dir), equalTo(1));
+
+        File compressed = new File(dir, "esm-login-app/main.a1b2c3d4.js.gz");
+        try (InputStream in = new GZIPInputStream(new FileInputStream(compressed))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), equalTo(script));
+        }
+        assertThat(new File(dir, "small.js.gz").exists(), is(false));
+        assertThat(new File(dir, "logo.png.gz").exists(), is(false));
+
+        // up to date copies are kept
+        assertThat(compressor.compress(dir), equalTo(0));
+    }
+
+    @Test
+    public void compress_shouldReplaceOrRemoveStaleCopies() throws Exception {
+        File dir = temp.newFolder("frontend");
+        File importmap = new File(dir, "importmap.json");
+        File routes = new File(dir, "routes.registry.json");
+        FileUtils.writeStringToFile(importmap, StringUtils.repeat("{\"imports\":{}}", 100), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(routes, StringUtils.repeat("{\"routes\":{}}", 100), StandardCharsets.UTF_8);
+        compressor.compress(dir);
+
+        FileUtils.writeStringToFile(importmap, StringUtils.repeat("{\"imports\":{\"a\":1}}", 100), StandardCharsets.UTF_8);
+        importmap.setLastModified(System.currentTimeMillis() + 5000);
+        FileUtils.writeStringToFile(routes, "{}", StandardCharsets.UTF_8);
+
+        assertThat(compressor.compress(dir), equalTo(1));
+        try (InputStream in = new GZIPInputStream(new FileInputStream(new File(dir, "importmap.json.gz")))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), equalTo(FileUtils.readFileToString(importmap, StandardCharsets.UTF_8)));
+        }
+        assertThat(new File(dir, "routes.registry.json.gz").exists(), is(false));
+    }
+}
@@ -0,0 +1,74 @@
+package org.openmrs.maven.plugins.model;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock on a file in the openmrs directory, held against concurrent builds with a file lock and against other
+ * threads of this build, as a file lock is held by the whole JVM. It must not be acquired again by the thread which
+ * holds it.
+ */
+class FileLockGuard implements AutoCloseable {
+
+    private static final Map<Path, ReentrantLock> THREAD_LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock threadLock;
+
+    private final FileChannel channel;
+
+    private final FileLock lock;
+
+    private FileLockGuard(ReentrantLock threadLock, FileChannel channel, FileLock lock) {
+        this.threadLock = threadLock;
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Waits for the lock, creating the lock file if needed
+     */
+    static FileLockGuard lock(Path lockFile) throws MojoExecutionException {
+        ReentrantLock threadLock = THREAD_LOCKS.computeIfAbsent(lockFile.toAbsolutePath(), path -> new ReentrantLock());
+        threadLock.lock();
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(lockFile.toAbsolutePath().getParent());
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new FileLockGuard(threadLock, channel, channel.lock());
+        }
+        catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                }
+                catch (IOException ignored) {
+                }
+            }
+            threadLock.unlock();
+            throw new MojoExecutionException("Failed to lock " + lockFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        try {
+            lock.release();
+            channel.close();
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException("Failed to release a lock: " + e.getMessage(), e);
+        }
+        finally {
+            threadLock.unlock();
+        }
+    }
+}
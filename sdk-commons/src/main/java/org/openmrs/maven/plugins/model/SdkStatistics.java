@@ -1,22 +1,31 @@
 package org.openmrs.maven.plugins.model;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.utility.HttpFetcher;
 import org.openmrs.maven.plugins.utility.SDKConstants;
 import org.openmrs.maven.plugins.utility.Wizard;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -30,6 +39,23 @@ public class SdkStatistics {
 
     public static final String SDK_STATS_FILE_NAME = "sdk-stats.properties";
 
+    /**
+     * Goals are appended to the spool as they run and merged into {@link #SDK_STATS_FILE_NAME} in the background
+     */
+    public static final String SDK_STATS_SPOOL_NAME = "sdk-stats.spool";
+
+    /**
+     * Held while the statistics file is updated, so that concurrent builds do not overwrite each other's counts
+     */
+    public static final String SDK_STATS_LOCK_NAME = "sdk-stats.lock";
+
+    private static final int REPORT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Claimed spools older than this were left behind by a build that exited while merging them
+     */
+    private static final long ABANDONED_SPOOL_MILLIS = 60000;
+
     private static final String DATE_FORMAT = "dd-M-yyyy";
 
     private Properties statistics = new Properties();
@@ -68,17 +94,141 @@ public class SdkStatistics {
      * @throws MojoExecutionException
      */
     public void sendReport(Wizard wizard) throws MojoExecutionException {
-        if( checkIfOneWeekFromLastReport() && getStatsEnabled()){
+        try {
+            sendReportIfDue();
+        } catch (IOException e) {
+            wizard.showMessage("Anonymous usage statistics could not be sent due to " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends statistics if there is more than 7 days since last report, giving up after a few seconds. Nothing is sent
+     * while Maven runs offline. The report is recorded only once it has been sent, so that a report which failed or
+     * was cut short by the end of the build is sent again next time.
+     *
+     * @return true if statistics were sent
+     * @throws IOException if statistics could not be sent
+     */
+    public boolean sendReportIfDue() throws MojoExecutionException, IOException {
+        if (!HttpFetcher.isOffline() && checkIfOneWeekFromLastReport() && getStatsEnabled()) {
+            String lastReported = statistics.getProperty("statsLastReported");
             setLastReported();
-            save();
             try {
                 postToGoogleForm();
-            } catch (IOException e) {
-                wizard.showMessage("Anonymous usage statistics could not be sent due to " + e.getMessage());
             }
+            catch (IOException e) {
+                if (lastReported == null) {
+                    statistics.remove("statsLastReported");
+                } else {
+                    statistics.setProperty("statsLastReported", lastReported);
+                }
+                throw e;
+            }
+
+            try (FileLockGuard ignored = lockStatistics()) {
+                reload();
+                setLastReported();
+                save();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends a goal to the spool, which is much cheaper than updating the statistics file
+     *
+     * @param goal the goal, as passed to {@link #incrementGoal(String)}
+     */
+    public static void spoolGoal(String goal) throws MojoExecutionException {
+        Path serversPath = Server.getServersPath();
+        try {
+            Files.createDirectories(serversPath);
+            Files.write(serversPath.resolve(SDK_STATS_SPOOL_NAME), Collections.singletonList(goal), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException("Failed to record usage statistics: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Increments the goals recorded in the spool and saves the statistics. The spool is claimed by renaming it first,
+     * so that goals spooled by concurrent builds are neither lost nor counted twice, and the statistics are reloaded and
+     * saved under the statistics lock, so that counts merged by concurrent builds are not overwritten.
+     *
+     * @return the number of goals merged
+     */
+    public int mergeSpool() throws MojoExecutionException {
+        try (FileLockGuard ignored = lockStatistics()) {
+            reload();
+            return mergeSpoolLocked();
+        }
+    }
+
+    private int mergeSpoolLocked() throws MojoExecutionException {
+        Path serversPath = Server.getServersPath();
+        Path spool = serversPath.resolve(SDK_STATS_SPOOL_NAME);
+        Path claimed = serversPath.resolve(SDK_STATS_SPOOL_NAME + "." + UUID.randomUUID());
+        int merged = 0;
+        try {
+            try {
+                Files.move(spool, claimed, StandardCopyOption.ATOMIC_MOVE);
+                // so that concurrent builds do not take it for an abandoned spool
+                Files.setLastModifiedTime(claimed, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            catch (NoSuchFileException e) {
+                // nothing spooled, or claimed by a concurrent build
+            }
+
+            try (DirectoryStream<Path> claimedSpools = Files.newDirectoryStream(serversPath, SDK_STATS_SPOOL_NAME + ".*")) {
+                for (Path claimedSpool : claimedSpools) {
+                    if (!claimedSpool.equals(claimed) && !isAbandoned(claimedSpool)) {
+                        continue;
+                    }
+                    for (String goal : Files.readAllLines(claimedSpool, StandardCharsets.UTF_8)) {
+                        if (StringUtils.isNotBlank(goal)) {
+                            incrementGoal(goal.trim());
+                            merged++;
+                        }
+                    }
+                    Files.deleteIfExists(claimedSpool);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException("Failed to merge usage statistics: " + e.getMessage(), e);
+        }
+
+        if (merged > 0) {
+            setLastUsed();
+            save();
+        }
+        return merged;
+    }
+
+    private boolean isAbandoned(Path claimedSpool) throws IOException {
+        return System.currentTimeMillis() - Files.getLastModifiedTime(claimedSpool).toMillis() > ABANDONED_SPOOL_MILLIS;
+    }
+
+    /**
+     * Replaces the statistics in memory with the saved ones, if any, which may have been updated by a concurrent build
+     */
+    private void reload() throws MojoExecutionException {
+        File file = Server.getServersPath().resolve(SDK_STATS_FILE_NAME).toFile();
+        if (file.exists()) {
+            Properties saved = new Properties();
+            loadPropertiesFromFile(file, saved);
+            statistics.clear();
+            statistics.putAll(saved);
+            setSdkVersion(SDKConstants.getSDKInfo().getVersion());
+        }
+    }
+
+    private static FileLockGuard lockStatistics() throws MojoExecutionException {
+        return FileLockGuard.lock(Server.getServersPath().resolve(SDK_STATS_LOCK_NAME));
+    }
+
     /**
      * Checks if one week has passed since last report
      *
@@ -100,10 +250,19 @@ public class SdkStatistics {
      * @throws IOException
      */
     private void postToGoogleForm() throws IOException {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            String uri = buildUrl();
-            HttpPost httpPost = new HttpPost(uri);
-            httpClient.execute(httpPost);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(REPORT_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(REPORT_TIMEOUT_MILLIS)
+                .setSocketTimeout(REPORT_TIMEOUT_MILLIS)
+                .build();
+        HttpPost httpPost = new HttpPost(buildUrl());
+        httpPost.setConfig(requestConfig);
+        try (CloseableHttpResponse response = HttpFetcher.getHttpClient().execute(httpPost)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 400) {
+                throw new IOException("the report was rejected with HTTP status " + status);
+            }
         }
     }
 
@@ -280,7 +439,17 @@ public class SdkStatistics {
             serverDir.mkdirs();
         }
 
-        saveTo(serverPath.resolve(SDK_STATS_FILE_NAME).toFile());
+        // written aside and moved in place, as statistics are saved in the background and the build may exit meanwhile
+        File temp = serverPath.resolve(SDK_STATS_FILE_NAME + "." + UUID.randomUUID() + ".tmp").toFile();
+        saveTo(temp);
+        try {
+            Files.move(temp.toPath(), serverPath.resolve(SDK_STATS_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            temp.delete();
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -67,6 +67,10 @@ public class Server extends BaseSdkProperties {
 
     public static final String PROPERTY_SERVER_PORT = "server.port";
 
+    public static final String PROPERTY_PENDING_GOLDEN_IMAGE = "golden.image.pending";
+
+    private static final String FIRST_BOOT_MARKER = ".first-boot-completed";
+
     private static Path serversPath = Paths.get(System.getProperty("user.home"), SDKConstants.OPENMRS_SERVER_PATH).toAbsolutePath();
 
     private File propertiesFile;
@@ -250,6 +254,13 @@ public class Server extends BaseSdkProperties {
      */
     public void save() throws MojoExecutionException {
         saveTo(propertiesFile);
+        try {
+            ServerCatalog.update(this);
+        }
+        catch (MojoExecutionException e) {
+            // the catalog is rebuilt when it does not match the servers
+            logger.debug("Failed to update the catalog of servers", e);
+        }
     }
 
     /**
@@ -839,6 +850,29 @@ public class Server extends BaseSdkProperties {
         return new File(serverDirectory, "tmp");
     }
 
+    /**
+     * @return the key of the golden image to capture once OpenMRS has started successfully for the first time,
+     * or null if no golden image should be captured from this server
+     */
+    public String getPendingGoldenImage() {
+        return getParam(PROPERTY_PENDING_GOLDEN_IMAGE);
+    }
+
+    public void setPendingGoldenImage(String key) {
+        if (key == null) {
+            properties.remove(PROPERTY_PENDING_GOLDEN_IMAGE);
+        } else {
+            setParam(PROPERTY_PENDING_GOLDEN_IMAGE, key);
+        }
+    }
+
+    /**
+     * Marker written by the Tomcat plugins when OpenMRS has started
+     */
+    public File getFirstBootMarker() {
+        return new File(serverDirectory, FIRST_BOOT_MARKER);
+    }
+
     public String getContainerId(){
         return getParam(PROPERTY_DOCKER_MYSQL);
     }
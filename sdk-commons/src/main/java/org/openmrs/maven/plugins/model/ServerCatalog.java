@@ -0,0 +1,262 @@
+package org.openmrs.maven.plugins.model;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.openmrs.maven.plugins.utility.PropertiesUtils.loadPropertiesFromFile;
+
+/**
+ * Index of the servers in the openmrs directory, with their version, database and last use, so that listing servers
+ * does not inspect every server directory.
+ * <p>
+ * Servers are updated in the catalog when they are saved, under a file lock so that concurrent builds do not lose
+ * each other's updates. The catalog is rebuilt when server directories, which are the directories with a server
+ * configuration, are added or removed, for instance when a server is deleted or created by an older version of the
+ * SDK. Other files of the openmrs directory, such as the usage statistics, do not cause a rebuild.
+ */
+public class ServerCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerCatalog.class);
+
+    public static final String CATALOG_FILE_NAME = "sdk-server-catalog.properties";
+
+    public static final String CATALOG_LOCK_NAME = "sdk-server-catalog.lock";
+
+    private static final String SERVERS = "servers";
+
+    /**
+     * Server directories whose configuration could not be read
+     */
+    private static final String INVALID_SERVERS = "invalidServers";
+
+    private static final String VERSION = ".version";
+
+    private static final String PLATFORM_VERSION = ".platformVersion";
+
+    private static final String DB_DRIVER = ".dbDriver";
+
+    private static final String LAST_USED = ".lastUsed";
+
+    private final Path serversPath;
+
+    private final Properties catalog = new Properties();
+
+    private ServerCatalog(Path serversPath) {
+        this.serversPath = serversPath;
+    }
+
+    /**
+     * @return the catalog of the openmrs directory, rebuilt if it does not match the directory
+     */
+    public static ServerCatalog load() throws MojoExecutionException {
+        ServerCatalog serverCatalog = new ServerCatalog(Server.getServersPath());
+        if (!serverCatalog.read()) {
+            try (FileLockGuard ignored = lock()) {
+                serverCatalog.readOrRebuild();
+            }
+        }
+        return serverCatalog;
+    }
+
+    /**
+     * Records the server in the catalog as the last used one
+     */
+    public static void update(Server server) throws MojoExecutionException {
+        if (server.getServerDirectory() == null || !serversPathContains(server.getServerDirectory())) {
+            return;
+        }
+        try (FileLockGuard ignored = lock()) {
+            ServerCatalog serverCatalog = new ServerCatalog(Server.getServersPath());
+            serverCatalog.readOrRebuild();
+            serverCatalog.put(server, System.currentTimeMillis());
+            serverCatalog.save();
+        }
+    }
+
+    private static FileLockGuard lock() throws MojoExecutionException {
+        return FileLockGuard.lock(Server.getServersPath().resolve(CATALOG_LOCK_NAME));
+    }
+
+    /**
+     * Reads the catalog file
+     *
+     * @return true if it matches the server directories
+     */
+    private boolean read() throws MojoExecutionException {
+        catalog.clear();
+        File catalogFile = getCatalogFile();
+        if (!catalogFile.exists()) {
+            return false;
+        }
+        loadPropertiesFromFile(catalogFile, catalog);
+        return listServerDirectories().equals(getKnownServerDirectories());
+    }
+
+    /**
+     * Reads the catalog file and rebuilds it if it does not match the server directories. Must be called with the
+     * lock held.
+     */
+    private void readOrRebuild() throws MojoExecutionException {
+        if (!read()) {
+            rebuild(listServerDirectories());
+            save();
+        }
+    }
+
+    /**
+     * @return the ids of the servers, the last used first
+     */
+    public List<String> getServerIds() {
+        List<String> serverIds = new ArrayList<>(getSet(SERVERS));
+        serverIds.sort(Comparator.comparingLong(this::getLastUsed).reversed().thenComparing(Comparator.naturalOrder()));
+        return serverIds;
+    }
+
+    public String getVersion(String serverId) {
+        return catalog.getProperty(serverId + VERSION);
+    }
+
+    public String getPlatformVersion(String serverId) {
+        return catalog.getProperty(serverId + PLATFORM_VERSION);
+    }
+
+    public String getDbDriver(String serverId) {
+        return catalog.getProperty(serverId + DB_DRIVER);
+    }
+
+    public long getLastUsed(String serverId) {
+        String lastUsed = catalog.getProperty(serverId + LAST_USED);
+        return StringUtils.isNumeric(lastUsed) && StringUtils.isNotBlank(lastUsed) ? Long.parseLong(lastUsed) : 0;
+    }
+
+    private void rebuild(Set<String> serverDirectories) {
+        log.debug("Rebuilding the catalog of servers in {}", serversPath);
+        catalog.clear();
+        Set<String> invalid = new HashSet<>();
+        for (String serverDirectory : serverDirectories) {
+            Path dir = serversPath.resolve(serverDirectory);
+            try {
+                put(Server.loadServer(dir), dir.toFile().lastModified());
+            }
+            catch (MojoExecutionException e) {
+                log.debug("Failed to load server {}", serverDirectory, e);
+                invalid.add(serverDirectory);
+            }
+        }
+        setSet(INVALID_SERVERS, invalid);
+    }
+
+    private void put(Server server, long lastUsed) {
+        String serverId = server.getServerDirectory().getName();
+        Set<String> servers = getSet(SERVERS);
+        servers.add(serverId);
+        setSet(SERVERS, servers);
+
+        Set<String> invalid = getSet(INVALID_SERVERS);
+        if (invalid.remove(serverId)) {
+            setSet(INVALID_SERVERS, invalid);
+        }
+
+        setOrRemove(serverId + VERSION, server.getVersion());
+        setOrRemove(serverId + PLATFORM_VERSION, server.getPlatformVersion());
+        setOrRemove(serverId + DB_DRIVER, server.getDbDriver());
+        catalog.setProperty(serverId + LAST_USED, String.valueOf(lastUsed));
+    }
+
+    private void save() throws MojoExecutionException {
+        File catalogFile = getCatalogFile();
+        File temp = new File(serversPath.toFile(), CATALOG_FILE_NAME + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(serversPath);
+            try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                SortedProperties sortedProperties = new SortedProperties();
+                sortedProperties.putAll(catalog);
+                sortedProperties.store(out, null);
+            }
+            Files.move(temp.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            temp.delete();
+            throw new MojoExecutionException("Failed to save the catalog of servers: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the names of the directories with a server configuration, which takes a single lookup per entry rather
+     * than loading the configuration of each server
+     */
+    private Set<String> listServerDirectories() throws MojoExecutionException {
+        Set<String> serverDirectories = new HashSet<>();
+        if (!serversPath.toFile().exists()) {
+            return serverDirectories;
+        }
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(serversPath)) {
+            for (Path child : children) {
+                if (Server.hasServerConfig(child)) {
+                    serverDirectories.add(child.getFileName().toString());
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException("Exception occurred while trying to read list of servers: " + e.getMessage(),
+                    e);
+        }
+        return serverDirectories;
+    }
+
+    private Set<String> getKnownServerDirectories() {
+        Set<String> serverDirectories = getSet(SERVERS);
+        serverDirectories.addAll(getSet(INVALID_SERVERS));
+        return serverDirectories;
+    }
+
+    private Set<String> getSet(String key) {
+        String value = catalog.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(Arrays.asList(value.split("/")));
+    }
+
+    private void setSet(String key, Set<String> values) {
+        // '/' cannot appear in the name of an entry of a directory
+        List<String> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.naturalOrder());
+        catalog.setProperty(key, StringUtils.join(sorted, "/"));
+    }
+
+    private void setOrRemove(String key, String value) {
+        if (value == null) {
+            catalog.remove(key);
+        } else {
+            catalog.setProperty(key, value);
+        }
+    }
+
+    private File getCatalogFile() {
+        return serversPath.resolve(CATALOG_FILE_NAME).toFile();
+    }
+
+    private static boolean serversPathContains(File serverDirectory) {
+        return Server.getServersPath().toAbsolutePath().equals(serverDirectory.toPath().toAbsolutePath().getParent());
+    }
+}
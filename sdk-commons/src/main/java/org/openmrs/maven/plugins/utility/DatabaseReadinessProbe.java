@@ -0,0 +1,210 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Waits for a database server to accept connections, for instance after its docker container has been started.
+ * <p>
+ * The probe first waits for the port of the database server to accept TCP connections, which is cheap, and then for
+ * the database to accept a JDBC connection. Attempts are retried with an exponential backoff until the deadline.
+ * Invalid credentials are reported immediately, as retrying would not help.
+ */
+public class DatabaseReadinessProbe {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseReadinessProbe.class);
+
+    private static final Pattern HOST_AND_PORT = Pattern.compile("^jdbc:(mysql|mariadb|postgresql)://([^/:?,]+)(?::(\\d+))?.*");
+
+    private long deadlineMillis = 60000;
+
+    private long initialDelayMillis = 100;
+
+    private long maxDelayMillis = 2000;
+
+    private int connectTimeoutMillis = 1000;
+
+    private int attempts;
+
+    private long tcpMillis;
+
+    private long totalMillis;
+
+    public DatabaseReadinessProbe withDeadline(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+        return this;
+    }
+
+    public DatabaseReadinessProbe withBackoff(long initialDelayMillis, long maxDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        return this;
+    }
+
+    public DatabaseReadinessProbe withConnectTimeout(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Waits until the database accepts connections and returns the first connection established
+     *
+     * @throws SQLException if the database is not ready before the deadline or the credentials are invalid
+     */
+    public Connection awaitConnection(String url, String user, String password) throws SQLException {
+        long start = System.currentTimeMillis();
+        long deadline = start + deadlineMillis;
+        attempts = 0;
+        tcpMillis = 0;
+        try {
+            InetSocketAddress address = getAddress(url);
+            if (address != null && !awaitPort(address, deadline)) {
+                throw new SQLException("The database server at " + address.getHostString() + ":" + address.getPort()
+                        + " did not accept connections within " + deadlineMillis + " ms");
+            }
+            tcpMillis = System.currentTimeMillis() - start;
+
+            long delay = initialDelayMillis;
+            while (true) {
+                attempts++;
+                long remaining = deadline - System.currentTimeMillis();
+                try {
+                    return DriverManager.getConnection(url, getConnectionProperties(url, user, password, remaining));
+                }
+                catch (SQLException e) {
+                    if (isAccessDenied(e)) {
+                        throw new SQLException("Invalid database credentials. Please check your username and password.", e);
+                    }
+                    if (System.currentTimeMillis() + delay >= deadline) {
+                        throw e;
+                    }
+                    log.debug("The database at {} is not ready yet: {}", url, e.getMessage());
+                }
+                delay = sleep(delay);
+            }
+        }
+        finally {
+            totalMillis = System.currentTimeMillis() - start;
+            log.debug(getReport());
+        }
+    }
+
+    /**
+     * Waits until the database accepts connections
+     *
+     * @throws SQLException if the database is not ready before the deadline or the credentials are invalid
+     */
+    public void awaitReady(String url, String user, String password) throws SQLException {
+        awaitConnection(url, user, password).close();
+    }
+
+    /**
+     * Waits until the database server of the given JDBC url accepts TCP connections. Urls of embedded databases
+     * are considered ready.
+     *
+     * @return true if the database server is ready before the deadline
+     */
+    public boolean awaitPort(String url) {
+        long start = System.currentTimeMillis();
+        InetSocketAddress address = getAddress(url);
+        try {
+            return address == null || awaitPort(address, start + deadlineMillis);
+        }
+        finally {
+            tcpMillis = System.currentTimeMillis() - start;
+            totalMillis = tcpMillis;
+        }
+    }
+
+    /**
+     * @return the time spent waiting for the database during the last wait
+     */
+    public String getReport() {
+        return String.format("Database ready check took %d ms (%d ms waiting for the port, %d JDBC attempt(s))",
+                totalMillis, tcpMillis, attempts);
+    }
+
+    private boolean awaitPort(InetSocketAddress address, long deadline) {
+        long delay = initialDelayMillis;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                // resolved on each attempt, as the name of a container may not be resolvable until it is started
+                socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()), connectTimeoutMillis);
+                return true;
+            }
+            catch (IOException e) {
+                if (System.currentTimeMillis() + delay >= deadline) {
+                    return false;
+                }
+            }
+            delay = sleep(delay);
+        }
+    }
+
+    private long sleep(long delay) {
+        try {
+            Thread.sleep(delay);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Math.min(delay * 2, maxDelayMillis);
+    }
+
+    /**
+     * @return the address of the database server of the given url, or null for embedded databases
+     */
+    static InetSocketAddress getAddress(String url) {
+        Matcher matcher = HOST_AND_PORT.matcher(url);
+        if (!matcher.matches()) {
+            return null;
+        }
+        int port;
+        if (matcher.group(3) != null) {
+            port = Integer.parseInt(matcher.group(3));
+        } else {
+            port = "postgresql".equals(matcher.group(1)) ? 5432 : 3306;
+        }
+        return InetSocketAddress.createUnresolved(matcher.group(2), port);
+    }
+
+    /**
+     * @return the properties to connect to the given url, with a timeout set on the connection rather than with
+     * {@link DriverManager#setLoginTimeout(int)}, which would apply to every connection of the JVM
+     */
+    static Properties getConnectionProperties(String url, String user, String password, long timeoutMillis) {
+        Properties properties = new Properties();
+        if (user != null) {
+            properties.setProperty("user", user);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        Matcher matcher = HOST_AND_PORT.matcher(url);
+        if (matcher.matches()) {
+            if ("postgresql".equals(matcher.group(1))) {
+                String seconds = String.valueOf(Math.max(1, timeoutMillis / 1000));
+                properties.setProperty("connectTimeout", seconds);
+                properties.setProperty("loginTimeout", seconds);
+            } else {
+                properties.setProperty("connectTimeout", String.valueOf(Math.max(1, timeoutMillis)));
+            }
+        }
+        return properties;
+    }
+
+    private static boolean isAccessDenied(SQLException e) {
+        return (e.getSQLState() != null && e.getSQLState().startsWith("28"))
+                || (e.getMessage() != null && e.getMessage().contains("Access denied"));
+    }
+}
@@ -14,6 +14,7 @@ import org.jline.terminal.TerminalBuilder;
 import org.openmrs.maven.plugins.model.Artifact;
 import org.openmrs.maven.plugins.model.Distribution;
 import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.model.ServerCatalog;
 import org.openmrs.maven.plugins.model.UpgradeDifferential;
 import org.openmrs.maven.plugins.model.Version;
 
@@ -21,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -107,6 +109,10 @@ public class DefaultWizard implements Wizard {
 
 	public static final String DB_OPTION_SDK_DOCKER_MYSQL = "MySQL 8.4.1 and above in SDK docker container (requires pre-installed Docker)";
 
+	public static final String DB_OPTION_SDK_DOCKER_MYSQL_IN_MEMORY = "MySQL 8.4.1 in memory in SDK docker container, for disposable servers (requires pre-installed Docker, data is lost when the container stops)";
+
+	public static final String DB_OPTION_SDK_DOCKER_MYSQL_POOL = "MySQL 8.4.1 in a dedicated SDK docker container, taken from a pool of pre-started containers (requires pre-installed Docker, pooled PostgreSQL containers are not supported for servers)";
+
 	public static final String DB_OPTION_DOCKER_MYSQL = "Existing docker container (requires pre-installed Docker)";
 
 	public static final String DB_OPTION_POSTGRESQL = "PostgreSQL 8.2 and above";
@@ -115,6 +121,8 @@ public class DefaultWizard implements Wizard {
 		put("mysql", DB_OPTION_MYSQL);
 		put("h2", DB_OPTION_H2);
 		put("docker", DB_OPTION_SDK_DOCKER_MYSQL);
+		put("docker-memory", DB_OPTION_SDK_DOCKER_MYSQL_IN_MEMORY);
+		put("docker-pool", DB_OPTION_SDK_DOCKER_MYSQL_POOL);
 	}};
 
 	public static final String DBNAME_URL_VARIABLE = "@DBNAME@";
@@ -125,23 +133,48 @@ public class DefaultWizard implements Wizard {
 
 	private static final int MAX_OPTIONS_SIZE = 5;
 
-	private final PrintStream writer;
+	private PrintStream writer;
 
-	private final LineReader reader;
+	private LineReader reader;
 
 	private boolean interactiveMode = true;
 
 	private ArrayDeque<String> batchAnswers;
 
 	public DefaultWizard() throws IOException {
-		this(TerminalBuilder.terminal());
+		// the terminal is opened on first use, as opening it is slow and many goals never prompt
 	}
 
 	public DefaultWizard(Terminal terminal) {
+		initTerminal(terminal);
+	}
+
+	private void initTerminal(Terminal terminal) {
 		reader = LineReaderBuilder.builder().terminal(terminal).build();
 		writer = new PrintStream(terminal.output());
 	}
 
+	private synchronized void openTerminalIfNeeded() {
+		if (reader == null) {
+			try {
+				initTerminal(TerminalBuilder.terminal());
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Failed to open the terminal", e);
+			}
+		}
+	}
+
+	private PrintStream getWriter() {
+		openTerminalIfNeeded();
+		return writer;
+	}
+
+	private LineReader getReader() {
+		openTerminalIfNeeded();
+		return reader;
+	}
+
 	@Override
 	public boolean isInteractiveMode() {
 		return interactiveMode;
@@ -275,7 +308,7 @@ public class DefaultWizard implements Wizard {
 			return getAnswer(question);
 		}
 
-		writer.println("\n" + question + ":");
+		getWriter().println("\n" + question + ":");
 
 		List<Integer> choices;
 		int i = 0;
@@ -283,7 +316,7 @@ public class DefaultWizard implements Wizard {
 			choices = new ArrayList<>(options.size() + 1);
 			for (String option : options) {
 				i++;
-				writer.printf((DEFAULT_OPTION_TMPL) + "%n", i, option);
+				getWriter().printf((DEFAULT_OPTION_TMPL) + "%n", i, option);
 				choices.add(i);
 			}
 		} else {
@@ -292,7 +325,7 @@ public class DefaultWizard implements Wizard {
 
 		if (customMessage != null) {
 			i++;
-			writer.printf((DEFAULT_CUSTOM_OPTION_TMPL) + "%n", i);
+			getWriter().printf((DEFAULT_CUSTOM_OPTION_TMPL) + "%n", i);
 			choices.add(i);
 		}
 
@@ -317,16 +350,16 @@ public class DefaultWizard implements Wizard {
 			}
 		}
 
-		writer.println("\nYou must specify " + StringUtils.join(choices, " or ") + ".");
+		getWriter().println("\nYou must specify " + StringUtils.join(choices, " or ") + ".");
 		return promptForMissingValueWithOptions(message, null, parameterName, options, customMessage, customDefault);
 	}
 
 	private String prompt(String textToShow) {
-		return reader.readLine("\n" + textToShow + ": ");
+		return getReader().readLine("\n" + textToShow + ": ");
 	}
 
 	public String promptForPassword(String textToShow) {
-		return reader.readLine(textToShow + ": ", '*');
+		return getReader().readLine(textToShow + ": ", '*');
 	}
 
 	public String promptForPasswordIfMissing(String value, String parameter) throws MojoExecutionException {
@@ -340,22 +373,22 @@ public class DefaultWizard implements Wizard {
 	}
 
 	public void showMessage(String textToShow) {
-		writer.println("\n" + textToShow);
+		getWriter().println("\n" + textToShow);
 	}
 
 	public void showMessageNoEOL(String textToShow) {
-		writer.print(textToShow);
-		writer.flush();
+		getWriter().print(textToShow);
+		getWriter().flush();
 	}
 
 	@Override
 	public void showError(String textToShow) {
-		writer.println("\n[ERROR]" + textToShow);
+		getWriter().println("\n[ERROR]" + textToShow);
 	}
 
 	@Override
 	public void showWarning(String message) {
-		writer.println("\n[WARNING]" + message);
+		getWriter().println("\n[WARNING]" + message);
 	}
 
 	/**
@@ -440,7 +473,7 @@ public class DefaultWizard implements Wizard {
 
 	@Override
 	public Artifact promptForPlatformArtifact(VersionsHelper versionsHelper) throws MojoExecutionException {
-		Artifact artifact = new Artifact(SDKConstants.PLATFORM_ARTIFACT_ID, SDKConstants.SETUP_DEFAULT_PLATFORM_VERSION, Artifact.GROUP_DISTRO);
+		Artifact artifact = getPlatformArtifact();
 		String version = promptForArtifactVersion( "Please specify platform version", artifact, "Please specify platform version", versionsHelper);
 		artifact.setVersion(version);
 		return artifact;
@@ -448,7 +481,7 @@ public class DefaultWizard implements Wizard {
 
 	@Override
 	public Artifact promptForRefApp2xArtifact(VersionsHelper versionsHelper) throws MojoExecutionException {
-		Artifact artifact = new Artifact(REFAPP_2X_ARTIFACT_ID, "2.3.1", REFAPP_2X_GROUP_ID, REFAPP_2X_TYPE);
+		Artifact artifact = getRefApp2xArtifact();
 		String version = promptForArtifactVersion("Please choose a " + REFAPP_2X_PROMPT + " version", artifact, null, versionsHelper);
 		artifact.setVersion(version);
 		return artifact;
@@ -456,12 +489,35 @@ public class DefaultWizard implements Wizard {
 
 	@Override
 	public Artifact promptForRefApp3xArtifact(VersionsHelper versionsHelper) throws MojoExecutionException {
-		Artifact artifact = new Artifact(REFAPP_3X_ARTIFACT_ID, "3.0.0", REFAPP_3X_GROUP_ID, REFAPP_3X_TYPE);
+		Artifact artifact = getRefApp3xArtifact();
 		String version = promptForArtifactVersion("Please choose a " + REFAPP_3X_PROMPT + " version", artifact, null, versionsHelper);
 		artifact.setVersion(version);
 		return artifact;
 	}
 
+	/**
+	 * Starts resolving the versions listed by the platform and reference application prompts in the background, while
+	 * the user answers the prompts before them. Nothing is resolved in batch mode, where the versions may not be asked.
+	 */
+	@Override
+	public void prefetchDistroVersions(VersionsHelper versionsHelper) {
+		if (interactiveMode) {
+			versionsHelper.prefetchVersions(getRefApp3xArtifact(), getRefApp2xArtifact(), getPlatformArtifact());
+		}
+	}
+
+	private static Artifact getPlatformArtifact() {
+		return new Artifact(SDKConstants.PLATFORM_ARTIFACT_ID, SDKConstants.SETUP_DEFAULT_PLATFORM_VERSION, Artifact.GROUP_DISTRO);
+	}
+
+	private static Artifact getRefApp2xArtifact() {
+		return new Artifact(REFAPP_2X_ARTIFACT_ID, "2.3.1", REFAPP_2X_GROUP_ID, REFAPP_2X_TYPE);
+	}
+
+	private static Artifact getRefApp3xArtifact() {
+		return new Artifact(REFAPP_3X_ARTIFACT_ID, "3.0.0", REFAPP_3X_GROUP_ID, REFAPP_3X_TYPE);
+	}
+
 	@Override
 	public void promptForJavaHomeIfMissing(Server server) throws MojoExecutionException {
 		String javaHome = server.getJavaHome();
@@ -517,7 +573,7 @@ public class DefaultWizard implements Wizard {
 					promptForJavaHomeIfMissing(server);
 				}
 			} else if (!isJavaHomeValid(selectedOption)) {
-				writer.println(SDKConstants.OPENMRS_SDK_JDK_CUSTOM_INVALID);
+				getWriter().println(SDKConstants.OPENMRS_SDK_JDK_CUSTOM_INVALID);
 				promptForJavaHomeIfMissing(server);
 			} else {
 				String jdkUnderSpecifiedPathVersion = determineJavaVersionFromPath(selectedOption);
@@ -707,7 +763,8 @@ public class DefaultWizard implements Wizard {
 			options.add(DB_OPTION_H2);
 		}
 
-		options.addAll(Lists.newArrayList(DB_OPTION_MYSQL, DB_OPTION_SDK_DOCKER_MYSQL, DB_OPTION_DOCKER_MYSQL));
+		options.addAll(Lists.newArrayList(DB_OPTION_MYSQL, DB_OPTION_SDK_DOCKER_MYSQL, DB_OPTION_SDK_DOCKER_MYSQL_IN_MEMORY,
+				DB_OPTION_SDK_DOCKER_MYSQL_POOL, DB_OPTION_DOCKER_MYSQL));
 		boolean isPlatform24OrNewer = isPlatform24OrNewer(new Version(server.getPlatformVersion()));
 		if (isPlatform24OrNewer) {
 			options.add(DB_OPTION_POSTGRESQL);
@@ -730,6 +787,13 @@ public class DefaultWizard implements Wizard {
 			case DB_OPTION_SDK_DOCKER_MYSQL:
 				promptForDockerizedSdkMysql(server, dockerHelper, dockerHost);
 				break;
+			case DB_OPTION_SDK_DOCKER_MYSQL_IN_MEMORY:
+				promptForDockerizedSdkMysql(server, dockerHelper, dockerHost, DockerHelper.DOCKER_IN_MEMORY_CONTAINER_ID,
+						DockerHelper.DOCKER_IN_MEMORY_MYSQL_PORT, DockerHelper.MYSQL_PROFILE_PERFORMANCE);
+				break;
+			case DB_OPTION_SDK_DOCKER_MYSQL_POOL:
+				promptForPooledSdkMysql(server, dockerHelper, dockerHost);
+				break;
 			case DB_OPTION_DOCKER_MYSQL:
 				promptForDockerizedDb(server, dockerHelper, dockerHost);
 				break;
@@ -773,26 +837,55 @@ public class DefaultWizard implements Wizard {
 
 	public void promptForDockerizedSdkMysql(Server server, DockerHelper dockerHelper, String dockerHost)
 			throws MojoExecutionException {
+		promptForDockerizedSdkMysql(server, dockerHelper, dockerHost, DockerHelper.DOCKER_DEFAULT_CONTAINER_ID,
+				DockerHelper.DOCKER_MYSQL_PORT, null);
+	}
+
+	private void promptForDockerizedSdkMysql(Server server, DockerHelper dockerHelper, String dockerHost, String container,
+			String port, String profile) throws MojoExecutionException {
 		promptForDockerHostIfMissing(dockerHelper, dockerHost);
 
 		if (server.getDbDriver() == null) {
 			server.setDbDriver(SDKConstants.DRIVER_MYSQL_OLD);
 		}
 
-		String dbUri = getDefaultDbUri(server, dockerHelper);
+		String dbUri = getDefaultDbUri(server, dockerHelper, port);
 		dbUri = addMySQLParamsIfMissing(dbUri);
 
 		server.setDbUri(dbUri);
 		server.setDbUser(DockerHelper.DOCKER_MYSQL_USERNAME);
 		server.setDbPassword(DockerHelper.DOCKER_MYSQL_PASSWORD);
-		server.setContainerId(DockerHelper.DOCKER_DEFAULT_CONTAINER_ID);
+		server.setContainerId(container);
+
+		dockerHelper.createMySqlContainer(container, port, profile);
+		dockerHelper.runDbContainer(server.getContainerId(), server.getDbUri(), server.getDbUser(), server.getDbPassword());
+	}
+
+	private void promptForPooledSdkMysql(Server server, DockerHelper dockerHelper, String dockerHost)
+			throws MojoExecutionException {
+		promptForDockerHostIfMissing(dockerHelper, dockerHost);
+
+		if (server.getDbDriver() == null) {
+			server.setDbDriver(SDKConstants.DRIVER_MYSQL_OLD);
+		}
+
+		String container = DockerHelper.DOCKER_POOLED_CONTAINER_PREFIX + server.getServerId();
+		String port = dockerHelper.checkoutPooledMySqlContainer(container);
+
+		server.setDbUri(addMySQLParamsIfMissing(getDefaultDbUri(server, dockerHelper, port)));
+		server.setDbUser(DockerHelper.DOCKER_MYSQL_USERNAME);
+		server.setDbPassword(DockerHelper.DOCKER_MYSQL_PASSWORD);
+		server.setContainerId(container);
 
-		dockerHelper.createMySqlContainer(DockerHelper.DOCKER_DEFAULT_CONTAINER_ID, DockerHelper.DOCKER_MYSQL_PORT);
 		dockerHelper.runDbContainer(server.getContainerId(), server.getDbUri(), server.getDbUser(), server.getDbPassword());
 	}
 
 	private String getDefaultDbUri(Server server, DockerHelper dockerHelper) throws MojoExecutionException {
-		String dbUri = SDKConstants.URI_MYSQL.replace("3306", DockerHelper.DOCKER_MYSQL_PORT);
+		return getDefaultDbUri(server, dockerHelper, DockerHelper.DOCKER_MYSQL_PORT);
+	}
+
+	private String getDefaultDbUri(Server server, DockerHelper dockerHelper, String port) throws MojoExecutionException {
+		String dbUri = SDKConstants.URI_MYSQL.replace("3306", port);
 		//In case of using the Docker Machine, which gets assigned an IP different than the host
 		if (dockerHelper.getDockerHost().startsWith("tcp://")) {
 			try {
@@ -959,21 +1052,7 @@ public class DefaultWizard implements Wizard {
 	 */
 	@Override
 	public List<String> getListOfServers() throws MojoExecutionException {
-		Path openMRS = Server.getServersPath();
-		Map<Long, String> sortedMap = new TreeMap<>(Collections.reverseOrder());
-		try (DirectoryStream<Path> subDirectories = Files.newDirectoryStream(openMRS, entry -> entry.toFile().isDirectory())) {
-			for (Path dir : subDirectories) {
-				if (Server.hasServerConfig(dir)) {
-					sortedMap.put(dir.toFile().lastModified(), dir.getFileName().toString());
-				}
-			}
-		}
-		catch (IOException e) {
-			throw new MojoExecutionException("Exception occurred while trying to read list of servers: " + e.getMessage(),
-					e);
-		}
-
-		return new ArrayList<>(sortedMap.values());
+		return ServerCatalog.load().getServerIds();
 	}
 
 	public String addMySQLParamsIfMissing(String dbUri) throws MojoExecutionException {
@@ -1006,7 +1085,7 @@ public class DefaultWizard implements Wizard {
 
 	@Override
 	public void showJdkErrorMessage(String jdk, String platform, String recommendedJdk, String pathToServerProperties) {
-		writer.printf((JDK_ERROR_TMPL) + "%n", jdk, platform, recommendedJdk, pathToServerProperties);
+		getWriter().printf((JDK_ERROR_TMPL) + "%n", jdk, platform, recommendedJdk, pathToServerProperties);
 	}
 
 	/**
@@ -1041,13 +1120,13 @@ public class DefaultWizard implements Wizard {
 			return false;
 		}
 
-		writer.printf((UPGRADE_CONFIRM_TMPL) + "%n", distribution.getName(), distribution.getVersion());
+		getWriter().printf((UPGRADE_CONFIRM_TMPL) + "%n", distribution.getName(), distribution.getVersion());
 
 		if (warChanges.hasChanges()) {
 			String template = (warChanges.getDowngradedArtifacts().isEmpty() ? UPDATE_ARTIFACT_TMPL : DOWNGRADE_ARTIFACT_TMPL) + "%n";
 			Artifact oldWar = warChanges.getOldArtifacts().get(0);
 			Artifact newWar = warChanges.getNewArtifacts().get(0);
-			writer.printf(template, "OpenMRS", "Core", oldWar.getVersion(), newWar.getVersion());
+			getWriter().printf(template, "OpenMRS", "Core", oldWar.getVersion(), newWar.getVersion());
 		}
 
 		promptForArtifactChangesIfNecessary("module", moduleChanges);
@@ -1055,27 +1134,27 @@ public class DefaultWizard implements Wizard {
 
 		if (spaArtifactChanges.hasChanges() || spaBuildChanges.hasChanges()) {
 			if (hasExistingFilesInDirectory(server, SDKConstants.OPENMRS_SERVER_FRONTEND)) {
-				writer.println("- Removes existing spa");
+				getWriter().println("- Removes existing spa");
 			}
 			if (spaBuildChanges.hasChanges()) {
-				writer.println("+ Assembles and builds new frontend spa");
+				getWriter().println("+ Assembles and builds new frontend spa");
 			}
 			if (spaArtifactChanges.hasChanges()) {
 				for (Artifact a : spaArtifactChanges.getNewArtifacts()) {
-					writer.printf(ADD_ARTIFACT_TMPL + "%n", "spa", a.getArtifactId(), a.getVersion());
+					getWriter().printf(ADD_ARTIFACT_TMPL + "%n", "spa", a.getArtifactId(), a.getVersion());
 				}
 			}
 		}
 
 		if (configChanges.hasChanges() || contentChanges.hasChanges()) {
 			if (hasExistingFilesInDirectory(server, SDKConstants.OPENMRS_SERVER_CONFIGURATION)) {
-				writer.println("- Removes existing configuration");
+				getWriter().println("- Removes existing configuration");
 			}
 			for (Artifact a : configChanges.getArtifactsToAdd()) {
-				writer.printf(ADD_ARTIFACT_TMPL + "%n", "config package", a.getArtifactId(), a.getVersion());
+				getWriter().printf(ADD_ARTIFACT_TMPL + "%n", "config package", a.getArtifactId(), a.getVersion());
 			}
 			for (Artifact a : contentChanges.getArtifactsToAdd()) {
-				writer.printf(ADD_ARTIFACT_TMPL + "%n", "content package", a.getArtifactId(), a.getVersion());
+				getWriter().printf(ADD_ARTIFACT_TMPL + "%n", "content package", a.getArtifactId(), a.getVersion());
 			}
 		}
 
@@ -1094,16 +1173,16 @@ public class DefaultWizard implements Wizard {
 	protected void promptForArtifactChangesIfNecessary(String type, UpgradeDifferential.ArtifactChanges artifactChanges) {
 		if (artifactChanges.hasChanges()) {
 			for (Entry<Artifact, Artifact> e : artifactChanges.getUpgradedArtifacts().entrySet()) {
-				writer.printf(UPDATE_ARTIFACT_TMPL + "%n", type, e.getKey().getArtifactId(), e.getKey().getVersion(), e.getValue().getVersion());
+				getWriter().printf(UPDATE_ARTIFACT_TMPL + "%n", type, e.getKey().getArtifactId(), e.getKey().getVersion(), e.getValue().getVersion());
 			}
 			for (Entry<Artifact, Artifact> e : artifactChanges.getDowngradedArtifacts().entrySet()) {
-					writer.printf(DOWNGRADE_ARTIFACT_TMPL + "%n", type, e.getKey().getArtifactId(), e.getKey().getVersion(), e.getValue().getVersion());
+					getWriter().printf(DOWNGRADE_ARTIFACT_TMPL + "%n", type, e.getKey().getArtifactId(), e.getKey().getVersion(), e.getValue().getVersion());
 			}
 			for (Artifact a : artifactChanges.getAddedArtifacts()) {
-				writer.printf(ADD_ARTIFACT_TMPL + "%n", type, a.getArtifactId(), a.getVersion());
+				getWriter().printf(ADD_ARTIFACT_TMPL + "%n", type, a.getArtifactId(), a.getVersion());
 			}
 			for (Artifact a : artifactChanges.getRemovedArtifacts()) {
-				writer.printf(DELETE_ARTIFACT_TMPL + "%n", type, a.getArtifactId(), a.getVersion());
+				getWriter().printf(DELETE_ARTIFACT_TMPL + "%n", type, a.getArtifactId(), a.getVersion());
 			}
 		}
 	}
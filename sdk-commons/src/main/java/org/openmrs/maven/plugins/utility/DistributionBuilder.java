@@ -9,6 +9,8 @@ import org.openmrs.maven.plugins.model.Version;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 
@@ -25,11 +27,15 @@ import static org.openmrs.maven.plugins.utility.SDKConstants.SUPPPORTED_REFAPP_V
  * The purpose of this class is to build OpenMRS distributions out of distro properties files
  * This aims to bring a consistent process to retrieving distribution configuration across all Maven goals,
  * whether loading from a file, a classpath resource, a Properties object, or a Maven artifact
+ * Properties resolved from Maven artifacts are cached for the lifetime of the builder, so that a single builder
+ * can be shared to build several distributions that have parents in common without resolving these more than once
  */
 public class DistributionBuilder {
 
 	private final MavenEnvironment mavenEnvironment;
 
+	private final Map<String, ResolvedArtifact> resolvedArtifacts = new HashMap<>();
+
 	public DistributionBuilder(MavenEnvironment mavenEnvironment) {
 		this.mavenEnvironment = mavenEnvironment;
 	}
@@ -54,7 +60,19 @@ public class DistributionBuilder {
 		Distribution distribution = new Distribution();
 		artifact = DistroHelper.normalizeArtifact(artifact, mavenEnvironment.getVersionsHelper());
 		distribution.setArtifact(artifact);
-		ArtifactHelper artifactHelper = new ArtifactHelper(mavenEnvironment);
+
+		String cacheKey = artifact + ":" + artifact.getType();
+		ResolvedArtifact resolved = resolvedArtifacts.get(cacheKey);
+		if (resolved != null) {
+			mavenEnvironment.getWizard().showMessage("Using previously resolved distribution: " + artifact);
+			distribution.setArtifactPath(resolved.artifactPath);
+			distribution.setResourcePath(resolved.resourcePath);
+			Properties properties = new Properties();
+			properties.putAll(resolved.properties);
+			return populateDistributionFromProperties(distribution, properties);
+		}
+
+		ArtifactHelper artifactHelper = mavenEnvironment.getArtifactHelper();
 		Properties properties = null;
 
 		// Special Handling for referenceapplication 2.x versions that are not published to Maven
@@ -96,6 +114,11 @@ public class DistributionBuilder {
 			mavenEnvironment.getWizard().showMessage("This is a 3.x refapp distribution");
 			populateRefApp3xProperties(distribution, properties);
 		}
+
+		Properties resolvedProperties = new Properties();
+		resolvedProperties.putAll(properties);
+		resolvedArtifacts.put(cacheKey, new ResolvedArtifact(resolvedProperties, distribution.getArtifactPath(), distribution.getResourcePath()));
+
 		return populateDistributionFromProperties(distribution, properties);
 	}
 
@@ -202,4 +225,22 @@ public class DistributionBuilder {
 		distribution.setEffectiveProperties(new DistroProperties(effectiveProperties));
 		return distribution;
 	}
+
+	/**
+	 * The properties of a distribution artifact, as resolved prior to applying any parent distribution
+	 */
+	private static class ResolvedArtifact {
+
+		private final Properties properties;
+
+		private final String artifactPath;
+
+		private final String resourcePath;
+
+		ResolvedArtifact(Properties properties, String artifactPath, String resourcePath) {
+			this.properties = properties;
+			this.artifactPath = artifactPath;
+			this.resourcePath = resourcePath;
+		}
+	}
 }
@@ -2,6 +2,7 @@ package org.openmrs.maven.plugins.utility;
 
 import lombok.Setter;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.BuildPluginManager;
@@ -22,10 +23,17 @@ import org.semver4j.Semver;
 import org.twdata.maven.mojoexecutor.MojoExecutor;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -33,6 +41,9 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -49,6 +60,21 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
 
 public class DistroHelper {
 
+	/**
+	 * Directory of the servers directory in which files extracted from distros are cached
+	 */
+	public static final String DISTRO_FILES_CACHE = "_openmrs_sdk_distro_cache";
+
+	/**
+	 * System property setting the size in MB above which the least recently used files are evicted from
+	 * {@link #DISTRO_FILES_CACHE}, e.g. -DdistroCacheMaxSize=4096
+	 */
+	public static final String DISTRO_FILES_CACHE_MAX_SIZE_PROPERTY = "distroCacheMaxSize";
+
+	private static final long DEFAULT_DISTRO_FILES_CACHE_MAX_SIZE_MB = 2048;
+
+	private static final long DISTRO_FILES_CACHE_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
 	final MavenEnvironment mavenEnvironment;
 	final MavenProject mavenProject;
 	final MavenSession mavenSession;
@@ -65,7 +91,7 @@ public class DistroHelper {
 		this.pluginManager = mavenEnvironment.getPluginManager();
 		this.wizard = mavenEnvironment.getWizard();
 		this.versionHelper = mavenEnvironment.getVersionsHelper();
-		this.artifactHelper = new ArtifactHelper(mavenEnvironment);
+		this.artifactHelper = mavenEnvironment.getArtifactHelper();
 		this.contentHelper = new ContentHelper(mavenEnvironment);
 	}
 
@@ -233,29 +259,242 @@ public class DistroHelper {
 	}
 
 	public File extractFileFromDistro(File path, Artifact artifact, String filename) throws MojoExecutionException {
-		File distroFile = downloadDistro(path, artifact);
 		File resultFile;
-
-		try (ZipFile zipFile = new ZipFile(distroFile)) {
+		try (InputStream stream = openFileFromDistro(path, artifact, filename)) {
 			resultFile = File.createTempFile(filename, ".tmp");
+			FileUtils.copyInputStreamToFile(stream, resultFile);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Could not extract \"" + filename + "\" from " + artifact + " to temp folder " + e.getMessage(), e);
+		}
+		return resultFile;
+	}
 
-			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+	/**
+	 * Opens a file contained in the given distro artifact.
+	 * <p>
+	 * Extracted files are cached in the servers directory, keyed by the distro artifact and the checksum of the entry,
+	 * as they are typically large database dumps read again for each server set up from the same distro. If the file
+	 * is not cached yet, the returned stream reads the archive entry directly, and the file is cached as it is read.
+	 * Files which have not been used for 30 days, and the least recently used files above
+	 * {@value #DISTRO_FILES_CACHE_MAX_SIZE_PROPERTY} MB, are evicted before a new file is cached.
+	 *
+	 * @param path the directory to download the distro to, if it is not available in the local repository
+	 * @return a stream of the content of the file, to be closed by the caller
+	 */
+	public InputStream openFileFromDistro(File path, Artifact artifact, String filename) throws MojoExecutionException {
+		File distroFile = getLocalRepositoryFile(artifact);
+		boolean downloaded = distroFile == null;
+		if (downloaded) {
+			distroFile = downloadDistro(path, artifact);
+		}
 
-			while (entries.hasMoreElements()) {
-				ZipEntry zipEntry = entries.nextElement();
-				if (zipEntry.getName().equals(filename)) {
-					FileUtils.copyInputStreamToFile(zipFile.getInputStream(zipEntry), resultFile);
-				}
+		ZipFile zipFile = null;
+		try {
+			zipFile = new ZipFile(distroFile);
+			ZipEntry zipEntry = zipFile.getEntry(filename);
+			if (zipEntry == null) {
+				throw new MojoExecutionException("The distro " + artifact + " does not contain \"" + filename + "\"");
 			}
+
+			File cacheDirectory = Server.getServersPath().resolve(DISTRO_FILES_CACHE).toFile();
+			File cachedFile = cacheDirectory.toPath()
+					.resolve(artifact.getGroupId())
+					.resolve(artifact.getArtifactId())
+					.resolve(artifact.getVersion())
+					.resolve(String.format("%08x", zipEntry.getCrc()))
+					.resolve(new File(filename).getName()).toFile();
+			if (cachedFile.isFile() && !isCachedFileValid(cachedFile, zipEntry)) {
+				wizard.showWarning("Discarding " + cachedFile.getAbsolutePath() + " which does not match " + filename
+						+ " of " + artifact);
+				cachedFile.delete();
+			}
+			if (cachedFile.isFile()) {
+				zipFile.close();
+				deleteDownloadedDistro(distroFile, downloaded);
+				// the modification time records the last use of the file, for the eviction
+				cachedFile.setLastModified(System.currentTimeMillis());
+				wizard.showMessage("Using " + filename + " of " + artifact + " extracted previously");
+				return Files.newInputStream(cachedFile.toPath());
+			}
+
+			evictDistroFiles(cacheDirectory, getDistroFilesCacheMaxBytes() - zipEntry.getSize(), DISTRO_FILES_CACHE_MAX_AGE_MILLIS);
+			return new CachingEntryInputStream(zipFile, zipEntry, cachedFile, downloaded ? distroFile : null);
 		}
-		catch (IOException e) {
-			throw new MojoExecutionException("Could not read \"" + distroFile.getAbsolutePath() + "\" to temp folder " + e.getMessage(), e);
+		catch (IOException | MojoExecutionException e) {
+			IOUtils.closeQuietly(zipFile);
+			deleteDownloadedDistro(distroFile, downloaded);
+			if (e instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e;
+			}
+			throw new MojoExecutionException("Could not read \"" + distroFile.getAbsolutePath() + "\" " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return true if the cached file has the size and the checksum of the archive entry it was extracted from
+	 */
+	static boolean isCachedFileValid(File cachedFile, ZipEntry zipEntry) throws IOException {
+		if (cachedFile.length() != zipEntry.getSize()) {
+			return false;
+		}
+		try (CheckedInputStream in = new CheckedInputStream(Files.newInputStream(cachedFile.toPath()), new CRC32())) {
+			IOUtils.skip(in, Long.MAX_VALUE);
+			return in.getChecksum().getValue() == zipEntry.getCrc();
+		}
+	}
+
+	static long getDistroFilesCacheMaxBytes() {
+		String maxSize = System.getProperty(DISTRO_FILES_CACHE_MAX_SIZE_PROPERTY);
+		long megabytes = StringUtils.isNotBlank(maxSize) && StringUtils.isNumeric(maxSize) ? Long.parseLong(maxSize)
+				: DEFAULT_DISTRO_FILES_CACHE_MAX_SIZE_MB;
+		return megabytes * 1024 * 1024;
+	}
+
+	/**
+	 * Deletes the cached files which have not been used for the given time, and then the least recently used files
+	 * until the cache is not larger than the given size. Directories left empty are deleted.
+	 */
+	static void evictDistroFiles(File cacheDirectory, long maxBytes, long maxAgeMillis) {
+		if (!cacheDirectory.isDirectory()) {
+			return;
+		}
+		List<File> files = new ArrayList<>(FileUtils.listFiles(cacheDirectory, null, true));
+		files.sort(Comparator.comparingLong(File::lastModified));
+		long size = 0;
+		for (File file : files) {
+			size += file.length();
 		}
-		finally {
+
+		long now = System.currentTimeMillis();
+		for (File file : files) {
+			if (size <= maxBytes && now - file.lastModified() < maxAgeMillis) {
+				break;
+			}
+			long length = file.length();
+			if (file.delete()) {
+				size -= length;
+				deleteEmptyParents(file.getParentFile(), cacheDirectory);
+			}
+		}
+	}
+
+	private static void deleteEmptyParents(File directory, File root) {
+		while (directory != null && !directory.equals(root)) {
+			String[] children = directory.list();
+			if (children == null || children.length > 0 || !directory.delete()) {
+				return;
+			}
+			directory = directory.getParentFile();
+		}
+	}
+
+	/**
+	 * @return the distro artifact in the local repository, or null if it has to be downloaded, which is always
+	 * the case of snapshots, so that they are updated
+	 */
+	private File getLocalRepositoryFile(Artifact artifact) {
+		if (mavenSession == null || mavenSession.getLocalRepository() == null || artifact.getVersion() == null
+				|| artifact.getVersion().endsWith("SNAPSHOT")) {
+			return null;
+		}
+		File file = Paths.get(mavenSession.getLocalRepository().getBasedir(), artifact.getGroupId().split("\\."))
+				.resolve(artifact.getArtifactId())
+				.resolve(artifact.getVersion())
+				.resolve(artifact.getArtifactId() + "-" + artifact.getVersion() + "." + StringUtils.defaultIfBlank(artifact.getType(), "jar"))
+				.toFile();
+		return file.isFile() ? file : null;
+	}
+
+	private static void deleteDownloadedDistro(File distroFile, boolean downloaded) {
+		if (downloaded) {
 			distroFile.delete();
 		}
+	}
 
-		return resultFile;
+	/**
+	 * Reads an archive entry, copying it to a cache file which is kept only if the whole entry has been read and
+	 * matches the checksum of the entry
+	 */
+	private static class CachingEntryInputStream extends FilterInputStream {
+
+		private final ZipFile zipFile;
+
+		private final ZipEntry zipEntry;
+
+		private final File cachedFile;
+
+		private final File temporaryFile;
+
+		private final File downloadedDistro;
+
+		private final OutputStream cache;
+
+		private long count;
+
+		CachingEntryInputStream(ZipFile zipFile, ZipEntry zipEntry, File cachedFile, File downloadedDistro) throws IOException {
+			super(new CheckedInputStream(zipFile.getInputStream(zipEntry), new CRC32()));
+			this.zipFile = zipFile;
+			this.zipEntry = zipEntry;
+			this.cachedFile = cachedFile;
+			this.downloadedDistro = downloadedDistro;
+			cachedFile.getParentFile().mkdirs();
+			// unique, as the same file may be extracted by concurrent builds
+			this.temporaryFile = Files.createTempFile(cachedFile.getParentFile().toPath(), cachedFile.getName(), ".part")
+					.toFile();
+			this.cache = new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath()));
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				cache.write(b);
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				cache.write(buffer, offset, read);
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			// skipped content would be missing from the cache
+			byte[] buffer = new byte[(int) Math.min(n, 8192)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(read, 0);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				cache.close();
+				super.close();
+				zipFile.close();
+				if (count == zipEntry.getSize() && ((CheckedInputStream) in).getChecksum().getValue() == zipEntry.getCrc()) {
+					Files.move(temporaryFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			finally {
+				temporaryFile.delete();
+				if (downloadedDistro != null) {
+					downloadedDistro.delete();
+				}
+			}
+		}
 	}
 
 	/**
@@ -263,7 +502,14 @@ public class DistroHelper {
 	 * Returns null if string is invalid as path or identifier
 	 */
 	public Distribution resolveDistributionForStringSpecifier(String distro, VersionsHelper versionsHelper) throws MojoExecutionException {
-		DistributionBuilder builder = new DistributionBuilder(mavenEnvironment);
+		return resolveDistributionForStringSpecifier(distro, versionsHelper, new DistributionBuilder(mavenEnvironment));
+	}
+
+	/**
+	 * Resolves the distribution for the given specifier using the given builder, which allows several distributions
+	 * to share the distributions already resolved by that builder
+	 */
+	public Distribution resolveDistributionForStringSpecifier(String distro, VersionsHelper versionsHelper, DistributionBuilder builder) throws MojoExecutionException {
 		File distroFile = new File(distro);
 		if (distroFile.exists()) {
 			return builder.buildFromFile(distroFile);
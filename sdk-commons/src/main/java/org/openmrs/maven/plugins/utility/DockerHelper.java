@@ -1,7 +1,10 @@
 package org.openmrs.maven.plugins.utility;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Ports;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.core.DockerClientConfig;
@@ -18,7 +21,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -39,6 +47,11 @@ public class DockerHelper {
     public static final String DOCKER_MYSQL_PORT = "3308";
     public static final String DOCKER_MYSQL_USERNAME = "root";
     public static final String DOCKER_MYSQL_PASSWORD = "Admin123";
+    public static final String DOCKER_IN_MEMORY_CONTAINER_ID = "openmrs-sdk-mysql-v8-4-1-tmpfs";
+    public static final String DOCKER_IN_MEMORY_MYSQL_PORT = "3309";
+    public static final String MYSQL_PROFILE_PERFORMANCE = "performance";
+    public static final String DOCKER_POOLED_CONTAINER_PREFIX = "openmrs-sdk-pool-server-";
+    public static final String DOCKER_POOL_LABEL = "openmrs-sdk.pool";
     private static final String DOCKER_HOST_KEY = "dockerHost";
     public static final String DEFAULT_DOCKER_HOST_UNIX_SOCKET = "unix:///var/run/docker.sock";
     public static final String DEFAULT_HOST_DOCKER_FOR_WINDOWS = "http://127.0.0.1:2375/";
@@ -59,18 +72,27 @@ public class DockerHelper {
     private final MavenSession mavenSession;
     private final BuildPluginManager pluginManager;
     private final Wizard wizard;
-    private final DockerClient dockerClient;
+    private DockerClient dockerClient;
 
     public DockerHelper(MavenEnvironment mavenEnvironment) {
         this.mavenProject = mavenEnvironment.getMavenProject();
         this.mavenSession = mavenEnvironment.getMavenSession();
         this.pluginManager = mavenEnvironment.getPluginManager();
         this.wizard = mavenEnvironment.getWizard();
-        DefaultDockerClientConfig.Builder configBuilder = DefaultDockerClientConfig.createDefaultConfigBuilder();
-        DockerClientConfig config = configBuilder.build();
-        dockerClient = DockerClientBuilder.getInstance(config).withDockerHttpClient(
-                new ApacheDockerHttpClient.Builder().dockerHost(config.getDockerHost()).sslConfig(config.getSSLConfig()).build()
-        ).build();
+    }
+
+    /**
+     * The client and its HTTP transport are created on first use, as most goals never talk to docker
+     */
+    private synchronized DockerClient getDockerClient() {
+        if (dockerClient == null) {
+            DefaultDockerClientConfig.Builder configBuilder = DefaultDockerClientConfig.createDefaultConfigBuilder();
+            DockerClientConfig config = configBuilder.build();
+            dockerClient = DockerClientBuilder.getInstance(config).withDockerHttpClient(
+                    new ApacheDockerHttpClient.Builder().dockerHost(config.getDockerHost()).sslConfig(config.getSSLConfig()).build()
+            ).build();
+        }
+        return dockerClient;
     }
 
     private Properties getSdkProperties() throws MojoExecutionException {
@@ -102,6 +124,16 @@ public class DockerHelper {
     }
 
     public void createMySqlContainer(String container, String port) throws MojoExecutionException {
+        createMySqlContainer(container, port, null);
+    }
+
+    /**
+     * Creates a MySQL container, unless it already exists
+     *
+     * @param profile {@link #MYSQL_PROFILE_PERFORMANCE} for a container keeping its data in memory with relaxed
+     *                durability, suited to disposable servers, or null for a regular container
+     */
+    public void createMySqlContainer(String container, String port, String profile) throws MojoExecutionException {
         String dockerHost = getDockerHost();
 
         dockerHost = promptForDockerHostIfMissing(dockerHost);
@@ -119,7 +151,8 @@ public class DockerHelper {
                 configuration(
                         element("dockerHost", dockerHost),
                         element("port", port),
-                        element("container", container)),
+                        element("container", container),
+                        element("profile", profile != null ? profile : "default")),
                 executionEnvironment(mavenProject, mavenSession, pluginManager)
         );
 
@@ -136,6 +169,39 @@ public class DockerHelper {
         }
     }
 
+    /**
+     * The in-memory container loses its data when it stops, while the servers using it keep expecting their database
+     * to exist, as setup imported it. This should be checked once the container has been started.
+     *
+     * @throws MojoExecutionException if the server keeps its database in the in-memory container and that database is
+     *                                missing or has no tables
+     */
+    public void checkInMemoryDatabase(Server server) throws MojoExecutionException {
+        if (!DOCKER_IN_MEMORY_CONTAINER_ID.equals(server.getContainerId()) || !"false".equals(server.getParam("create_tables"))) {
+            return;
+        }
+        String uri = server.getDbUri();
+        uri = uri.substring(0, uri.lastIndexOf("/") + 1);
+        int tables;
+        try (Connection connection = new DatabaseReadinessProbe().awaitConnection(uri, server.getDbUser(), server.getDbPassword());
+             PreparedStatement ps = connection.prepareStatement(
+                     "select count(*) from information_schema.tables where table_schema = ?")) {
+            ps.setString(1, server.getDbName());
+            try (ResultSet rs = ps.executeQuery()) {
+                tables = rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+        catch (SQLException e) {
+            wizard.showWarning("Unable to check the database of server '" + server.getServerId() + "': " + e.getMessage());
+            return;
+        }
+        if (tables == 0) {
+            throw new MojoExecutionException("The database of server '" + server.getServerId() + "' was kept in memory by the '"
+                    + DOCKER_IN_MEMORY_CONTAINER_ID + "' container and has been lost when the container stopped. Run "
+                    + "'mvn openmrs-sdk:reset -DserverId=" + server.getServerId() + "' to set it up again.");
+        }
+    }
+
     public void runDbContainer(String container, String dbUri, String username, String password) throws MojoExecutionException {
         Artifact sdkInfo = SDKConstants.getSDKInfo();
         String dockerHost = getDockerHost();
@@ -157,10 +223,74 @@ public class DockerHelper {
                         element("dbUri", dbUri)),
                 executionEnvironment(mavenProject, mavenSession, pluginManager)
         );
+
+        // the container may be running but not yet listening, if it has just been created or restarted
+        if (dbUri != null) {
+            DatabaseReadinessProbe probe = new DatabaseReadinessProbe();
+            if (!probe.awaitPort(dbUri)) {
+                throw new MojoExecutionException("The database in the '" + container + "' container is not accepting connections");
+            }
+            wizard.showMessage(probe.getReport());
+        }
+    }
+
+    /**
+     * Takes a MySQL container dedicated to the server from the pool of idle containers, which saves waiting for a
+     * new container to initialise, and replenishes the pool in the background
+     *
+     * @return the port on the host of the container
+     */
+    public String checkoutPooledMySqlContainer(String container) throws MojoExecutionException {
+        Artifact sdkInfo = SDKConstants.getSDKInfo();
+        String dockerHost = getDockerHost();
+        dockerHost = promptForDockerHostIfMissing(dockerHost);
+
+        wizard.showMessage("Preparing '" + container + "' DB docker container from the pool...");
+        executeMojo(
+                plugin(
+                        groupId(sdkInfo.getGroupId()),
+                        artifactId(SDKConstants.PLUGIN_DOCKER_ARTIFACT_ID),
+                        version(sdkInfo.getVersion())
+                ),
+                goal("checkout-pool"),
+                configuration(
+                        element("dockerHost", dockerHost),
+                        element("container", container),
+                        element("engine", "mysql")),
+                executionEnvironment(mavenProject, mavenSession, pluginManager)
+        );
+
+        Ports portBindings = getDockerClient().inspectContainerCmd(container).exec().getHostConfig().getPortBindings();
+        Ports.Binding[] bindings = portBindings != null ? portBindings.getBindings().get(ExposedPort.tcp(3306)) : null;
+        if (bindings == null || bindings.length == 0) {
+            throw new MojoExecutionException("The '" + container + "' container does not expose the MySQL port");
+        }
+        return bindings[0].getHostPortSpec();
+    }
+
+    /**
+     * Removes a container dedicated to a server, together with its data. Only containers which were taken from the
+     * pool, and so carry the {@value #DOCKER_POOL_LABEL} label, are removed.
+     *
+     * @return true if the container was removed
+     */
+    public boolean removePooledContainer(String container) {
+        DockerClient docker = getDockerClient();
+        Map<String, String> labels;
+        try {
+            labels = docker.inspectContainerCmd(container).exec().getConfig().getLabels();
+        } catch (NotFoundException e) {
+            return false;
+        }
+        if (labels == null || !labels.containsKey(DOCKER_POOL_LABEL)) {
+            return false;
+        }
+        docker.removeContainerCmd(container).withForce(true).withRemoveVolumes(true).exec();
+        return true;
     }
 
     public List<Container> getDockerContainers() {
-        return dockerClient.listContainersCmd().withShowAll(true).exec();
+        return getDockerClient().listContainersCmd().withShowAll(true).exec();
     }
 
     public List<String> getDockerContainerNames() {
@@ -0,0 +1,288 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.openmrs.maven.plugins.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fetches documents over HTTP through a single pooled client, so that connections to the same host are reused across
+ * requests, and caches them.
+ * <p>
+ * Documents are kept in memory for the rest of the goal and on disk, in {@value #HTTP_CACHE}, with the ETag and
+ * Last-Modified headers of the response. A document cached on disk is used as is for
+ * {@link VersionsHelper#VERSIONS_CACHE_TTL_PROPERTY} minutes, and is then revalidated with a conditional request. If
+ * the server cannot be reached, or Maven runs offline, the cached document is used however old it is.
+ */
+public class HttpFetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpFetcher.class);
+
+    public static final String HTTP_CACHE = "_openmrs_sdk_http_cache";
+
+    private static final String URL = "url";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private static final Map<String, byte[]> documents = new ConcurrentHashMap<>();
+
+    private static final CloseableHttpClient httpClient = HttpClients.custom()
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectTimeout(TIMEOUT_MILLIS)
+                    .setConnectionRequestTimeout(TIMEOUT_MILLIS)
+                    .setSocketTimeout(TIMEOUT_MILLIS)
+                    .build())
+            .setMaxConnPerRoute(8)
+            .setMaxConnTotal(32)
+            .useSystemProperties()
+            .build();
+
+    private static volatile boolean offline;
+
+    private final File cacheDir;
+
+    private final long cacheTtlMillis;
+
+    private final String authorization;
+
+    public HttpFetcher() {
+        this(Server.getServersPath().resolve(HTTP_CACHE).toFile(), VersionsHelper.getCacheTtlMillis());
+    }
+
+    public HttpFetcher(File cacheDir, long cacheTtlMillis) {
+        this(cacheDir, cacheTtlMillis, null);
+    }
+
+    /**
+     * @param authorization the Authorization header sent with every request, or null
+     */
+    public HttpFetcher(File cacheDir, long cacheTtlMillis, String authorization) {
+        this.cacheDir = cacheDir;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.authorization = authorization;
+    }
+
+    /**
+     * @return the shared client, for requests which must not be cached. It must not be closed.
+     */
+    public static CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * In offline mode documents are only read from the cache, as Maven does with -o
+     */
+    public static void setOffline(boolean offline) {
+        HttpFetcher.offline = offline;
+    }
+
+    public static boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Downloads a file, such as an archive, without caching it. The file is written aside and moved in place once
+     * complete, so that it is never read partially written.
+     *
+     * @param authorization the Authorization header of the request, or null
+     * @throws HttpStatusException if the server does not return the file
+     */
+    public static void download(String url, File target, String authorization) throws IOException {
+        Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+        Path temp = Files.createTempFile(target.getAbsoluteFile().getParentFile().toPath(), target.getName(), ".tmp");
+        HttpGet request = new HttpGet(url);
+        if (authorization != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status != HttpStatus.SC_OK) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpStatusException(url, status);
+            }
+            try (InputStream in = response.getEntity().getContent()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public byte[] get(String url) throws IOException {
+        return get(url, null);
+    }
+
+    /**
+     * @param url the url of the document
+     * @param accept the Accept header of the request, or null to accept anything
+     * @return the document
+     * @throws HttpStatusException if the server does not return the document and it is not cached
+     * @throws IOException if the server cannot be reached and the document is not cached
+     */
+    public byte[] get(String url, String accept) throws IOException {
+        String key = accept == null ? url : url + " " + accept;
+        byte[] document = documents.get(key);
+        if (document == null) {
+            document = load(url, accept, key);
+            documents.put(key, document);
+        }
+        return document;
+    }
+
+    private byte[] load(String url, String accept, String key) throws IOException {
+        String name = hash(key);
+        File cacheFile = new File(cacheDir, name + ".body");
+        File metadataFile = new File(cacheDir, name + ".properties");
+        Properties metadata = readMetadata(metadataFile);
+        boolean cached = cacheFile.isFile() && metadata != null;
+        if (cached && (offline || System.currentTimeMillis() - cacheFile.lastModified() < cacheTtlMillis)) {
+            return Files.readAllBytes(cacheFile.toPath());
+        }
+        if (offline) {
+            throw new IOException(url + " has not been cached and Maven runs offline");
+        }
+
+        HttpGet request = new HttpGet(url);
+        if (authorization != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        if (accept != null) {
+            request.setHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (cached && metadata.getProperty(ETAG) != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, metadata.getProperty(ETAG));
+        }
+        if (cached && metadata.getProperty(LAST_MODIFIED) != null) {
+            request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, metadata.getProperty(LAST_MODIFIED));
+        }
+
+        long start = System.currentTimeMillis();
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            log.debug("GET {} returned {} in {} ms", url, status, System.currentTimeMillis() - start);
+            if (status == HttpStatus.SC_NOT_MODIFIED && cached) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                byte[] document = Files.readAllBytes(cacheFile.toPath());
+                cacheFile.setLastModified(System.currentTimeMillis());
+                return document;
+            }
+            if (status < 200 || status > 299) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpStatusException(url, status);
+            }
+
+            byte[] document = EntityUtils.toByteArray(response.getEntity());
+            Properties responseMetadata = new Properties();
+            responseMetadata.setProperty(URL, url);
+            if (response.getFirstHeader(HttpHeaders.ETAG) != null) {
+                responseMetadata.setProperty(ETAG, response.getFirstHeader(HttpHeaders.ETAG).getValue());
+            }
+            if (response.getFirstHeader(HttpHeaders.LAST_MODIFIED) != null) {
+                responseMetadata.setProperty(LAST_MODIFIED, response.getFirstHeader(HttpHeaders.LAST_MODIFIED).getValue());
+            }
+            writeCache(cacheFile, document, metadataFile, responseMetadata);
+            return document;
+        }
+        catch (IOException e) {
+            if (!cacheFile.isFile()) {
+                throw e;
+            }
+            log.warn("Using the cached copy of {}, as it could not be fetched: {}", url, e.getMessage());
+            return Files.readAllBytes(cacheFile.toPath());
+        }
+    }
+
+    private static Properties readMetadata(File metadataFile) {
+        if (!metadataFile.isFile()) {
+            return null;
+        }
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(metadataFile.toPath())) {
+            metadata.load(in);
+            return metadata;
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeCache(File cacheFile, byte[] document, File metadataFile, Properties metadata) {
+        File temp = new File(cacheFile.getParentFile(), cacheFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            try (OutputStream out = Files.newOutputStream(metadataFile.toPath())) {
+                metadata.store(out, null);
+            }
+            // the document is written last, so that it is never cached without its metadata
+            Files.write(temp.toPath(), document);
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            log.debug("Unable to cache {}", cacheFile, e);
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void clearMemoryCache() {
+        documents.clear();
+    }
+
+    /**
+     * Thrown if the server responds with an error status
+     */
+    public static class HttpStatusException extends IOException {
+
+        private final int status;
+
+        public HttpStatusException(String url, int status) {
+            super("Unable to fetch " + url + ": HTTP " + status);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package org.openmrs.maven.plugins.utility;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.execution.MavenSession;
@@ -22,11 +26,27 @@ public class MavenEnvironment {
 	private BuildPluginManager pluginManager;
 	private Wizard wizard;
 
-	public ArtifactHelper getArtifactHelper() {
-		return new ArtifactHelper(this);
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private ArtifactHelper artifactHelper;
+
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private VersionsHelper versionsHelper;
+
+	public synchronized ArtifactHelper getArtifactHelper() {
+		if (artifactHelper == null) {
+			artifactHelper = new ArtifactHelper(this);
+		}
+		return artifactHelper;
 	}
 
-	public VersionsHelper getVersionsHelper() {
-		return new VersionsHelper(this);
+	public synchronized VersionsHelper getVersionsHelper() {
+		if (versionsHelper == null) {
+			versionsHelper = new VersionsHelper(this);
+		}
+		return versionsHelper;
 	}
 }
@@ -0,0 +1,296 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.maven.plugins.model.Server;
+import org.semver4j.Semver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads package metadata, the so called packuments, from an npm registry, so that resolving the versions of frontend
+ * modules does not need to run npm.
+ * <p>
+ * Packuments are requested in the abbreviated format npm itself installs from, through an {@link HttpFetcher} caching
+ * them in {@value #NPM_CACHE}. A cached packument is revalidated with a conditional request once it is older than
+ * {@link VersionsHelper#VERSIONS_CACHE_TTL_PROPERTY} minutes, which the registry answers with 304 Not Modified if it
+ * has not changed.
+ * <p>
+ * The registry is configured the way npm is: by the {@value #REGISTRY_ENV} environment variable, else by the
+ * {@value #NPMRC} file of the current directory, else by the one of the user. The {@code _authToken} of the registry is
+ * read from the same files and sent with the requests to the registry.
+ */
+public class NpmRegistryClient {
+
+    /**
+     * System property to read packages from another npm registry
+     */
+    public static final String REGISTRY_PROPERTY = "npm.registry";
+
+    public static final String DEFAULT_REGISTRY = "https://registry.npmjs.org";
+
+    public static final String REGISTRY_ENV = "NPM_CONFIG_REGISTRY";
+
+    public static final String USER_CONFIG_ENV = "NPM_CONFIG_USERCONFIG";
+
+    public static final String NPMRC = ".npmrc";
+
+    private static final String AUTH_TOKEN = ":_authToken";
+
+    public static final String NPM_CACHE = "_openmrs_sdk_npm_cache";
+
+    private static final String ABBREVIATED_PACKUMENT = "application/vnd.npm.install-v1+json; q=1.0, application/json; q=0.8";
+
+    private static final Logger log = LoggerFactory.getLogger(NpmRegistryClient.class);
+
+    private static final Pattern ENV_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Map<String, JsonNode> packuments = new ConcurrentHashMap<>();
+
+    private final String registryUrl;
+
+    private final String authToken;
+
+    private final HttpFetcher fetcher;
+
+    public NpmRegistryClient() {
+        this(loadNpmConfig(Paths.get("").toAbsolutePath(), Paths.get(System.getProperty("user.home")), System.getenv()),
+                Server.getServersPath().resolve(NPM_CACHE).toFile(), VersionsHelper.getCacheTtlMillis());
+    }
+
+    private NpmRegistryClient(Map<String, String> npmConfig, File cacheDir, long cacheTtlMillis) {
+        this(getRegistry(npmConfig), getAuthToken(npmConfig, getRegistry(npmConfig)), cacheDir, cacheTtlMillis);
+    }
+
+    public NpmRegistryClient(String registryUrl, File cacheDir, long cacheTtlMillis) {
+        this(registryUrl, null, cacheDir, cacheTtlMillis);
+    }
+
+    public NpmRegistryClient(String registryUrl, String authToken, File cacheDir, long cacheTtlMillis) {
+        this.registryUrl = StringUtils.removeEnd(registryUrl, "/");
+        this.authToken = authToken;
+        this.fetcher = new HttpFetcher(cacheDir, cacheTtlMillis, getAuthorization());
+    }
+
+    public String getRegistryUrl() {
+        return registryUrl;
+    }
+
+    /**
+     * @return the Authorization header for a url of the registry, such as the url of a tarball, or null if there is no
+     * token or the url is not in the registry
+     */
+    public String getAuthorization(String url) {
+        return url != null && url.startsWith(registryUrl + "/") ? getAuthorization() : null;
+    }
+
+    private String getAuthorization() {
+        return authToken != null ? "Bearer " + authToken : null;
+    }
+
+    /**
+     * Reads the npm configuration of the user and of the project, the latter taking precedence, and the registry set in
+     * the environment, which takes precedence over both
+     *
+     * @return the settings by key
+     */
+    static Map<String, String> loadNpmConfig(Path projectDir, Path userHome, Map<String, String> env) {
+        Map<String, String> config = new HashMap<>();
+        String userConfig = getEnv(env, USER_CONFIG_ENV);
+        readNpmrc(userConfig != null ? Paths.get(userConfig) : userHome.resolve(NPMRC), env, config);
+        readNpmrc(projectDir.resolve(NPMRC), env, config);
+        String registry = getEnv(env, REGISTRY_ENV);
+        if (StringUtils.isNotBlank(registry)) {
+            config.put("registry", registry.trim());
+        }
+        return config;
+    }
+
+    /**
+     * @return the registry set with {@value #REGISTRY_PROPERTY}, else the one of the npm configuration
+     */
+    static String getRegistry(Map<String, String> npmConfig) {
+        return System.getProperty(REGISTRY_PROPERTY, npmConfig.getOrDefault("registry", DEFAULT_REGISTRY));
+    }
+
+    /**
+     * @return the token configured for the registry, as npm looks it up: by the url of the registry without its
+     * protocol, for instance '//registry.npmjs.org/:_authToken'
+     */
+    static String getAuthToken(Map<String, String> npmConfig, String registryUrl) {
+        String registry = StringUtils.removeEnd(registryUrl, "/") + "/";
+        return npmConfig.get(registry.replaceFirst("^[a-zA-Z]+:", "") + AUTH_TOKEN);
+    }
+
+    private static void readNpmrc(Path npmrc, Map<String, String> env, Map<String, String> config) {
+        if (!Files.isRegularFile(npmrc)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(npmrc, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                int separator = line.indexOf('=');
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith(";") || separator < 0) {
+                    continue;
+                }
+                String value = StringUtils.strip(line.substring(separator + 1).trim(), "\"'");
+                config.put(line.substring(0, separator).trim(), expandEnv(value, env));
+            }
+        }
+        catch (IOException e) {
+            log.debug("Unable to read {}", npmrc, e);
+        }
+    }
+
+    /**
+     * @return the value with ${VARIABLE} replaced by the variable of the environment, as npm does
+     */
+    private static String expandEnv(String value, Map<String, String> env) {
+        Matcher matcher = ENV_REFERENCE.matcher(value);
+        StringBuffer expanded = new StringBuffer();
+        while (matcher.find()) {
+            String variable = env.get(matcher.group(1));
+            matcher.appendReplacement(expanded, Matcher.quoteReplacement(variable != null ? variable : ""));
+        }
+        matcher.appendTail(expanded);
+        return expanded.toString();
+    }
+
+    /**
+     * npm reads its settings from the environment regardless of the case of the variable
+     */
+    private static String getEnv(Map<String, String> env, String variable) {
+        String value = env.get(variable);
+        return value != null ? value : env.get(variable.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the packument of the package
+     * @throws IOException if the package does not exist or the registry cannot be reached and nothing is cached
+     */
+    public JsonNode getPackument(String name) throws IOException {
+        if (StringUtils.isBlank(name)) {
+            throw new IllegalArgumentException("Package name cannot be null or empty");
+        }
+        String key = registryUrl + "/" + name;
+        JsonNode packument = packuments.get(key);
+        if (packument == null) {
+            packument = loadPackument(name);
+            packuments.put(key, packument);
+        }
+        return packument;
+    }
+
+    /**
+     * @return the published versions of the package, the highest first
+     */
+    public List<String> getVersions(String name) throws IOException {
+        List<Semver> versions = new ArrayList<>();
+        JsonNode versionsNode = getPackument(name).path("versions");
+        for (Iterator<String> it = versionsNode.fieldNames(); it.hasNext(); ) {
+            Semver version = Semver.parse(it.next());
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        versions.sort((left, right) -> right.compareTo(left));
+        List<String> result = new ArrayList<>(versions.size());
+        for (Semver version : versions) {
+            result.add(version.getVersion());
+        }
+        return result;
+    }
+
+    /**
+     * Resolves a version the way npm does: a dist-tag, such as 'latest' or 'next', resolves to the version it points
+     * to, and a range resolves to the 'latest' version if it satisfies the range, or else to the highest version
+     * satisfying it.
+     *
+     * @return the resolved version, or null if no version matches
+     */
+    public String resolveVersion(String name, String versionOrRange) throws IOException {
+        JsonNode packument = getPackument(name);
+        JsonNode distTags = packument.path("dist-tags");
+        String range = StringUtils.isBlank(versionOrRange) ? "latest" : versionOrRange.trim();
+        if (distTags.hasNonNull(range)) {
+            return distTags.get(range).asText();
+        }
+        if (packument.path("versions").has(range)) {
+            return range;
+        }
+
+        String latest = distTags.path("latest").asText(null);
+        if (latest != null && satisfies(latest, range)) {
+            return latest;
+        }
+        for (String version : getVersions(name)) {
+            if (satisfies(version, range)) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the url of the tarball of a version of the package
+     */
+    public String getTarballUrl(String name, String version) throws IOException {
+        JsonNode tarball = getPackument(name).path("versions").path(version).path("dist").path("tarball");
+        if (!tarball.isTextual()) {
+            throw new IOException("Version " + version + " of " + name + " is not published in " + registryUrl);
+        }
+        return tarball.asText();
+    }
+
+    static void clearMemoryCache() {
+        packuments.clear();
+        HttpFetcher.clearMemoryCache();
+    }
+
+    private JsonNode loadPackument(String name) throws IOException {
+        try {
+            return objectMapper.readTree(fetcher.get(registryUrl + "/" + encodeName(name), ABBREVIATED_PACKUMENT));
+        }
+        catch (HttpFetcher.HttpStatusException e) {
+            throw new IOException("Unable to fetch the metadata of " + name + " from " + registryUrl + ": HTTP "
+                    + e.getStatus(), e);
+        }
+    }
+
+    private static boolean satisfies(String version, String range) {
+        Semver semver = Semver.parse(version);
+        try {
+            return semver != null && semver.satisfies(range);
+        }
+        catch (RuntimeException e) {
+            // not a valid range
+            return false;
+        }
+    }
+
+    /**
+     * @return the name of the package as the registry expects it in urls, with the slash of a scope escaped
+     */
+    static String encodeName(String name) {
+        return name.replace("/", "%2f");
+    }
+}
@@ -4,11 +4,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.text.StrSubstitutor;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.openmrs.maven.plugins.model.Artifact;
@@ -21,6 +16,7 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -173,21 +169,11 @@ public class PropertiesUtils {
 	 */
 	public static Properties getFrontendPropertiesFromSpaConfigUrl(String url) throws MojoExecutionException {
 		Properties properties = new Properties();
-		try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-			HttpGet request = new HttpGet(url);
-			HttpResponse response = httpClient.execute(request);
-
-			if (response.getStatusLine().getStatusCode() < 200 || response.getStatusLine().getStatusCode() > 299) {
-				throw new MojoExecutionException("Could not load frontend properties from: " + url);
-			}
-
-			HttpEntity entity = response.getEntity();
-			try (InputStream inputStream = entity.getContent()) {
-				properties = getFrontendPropertiesFromJson(inputStream);
-			}
-			catch (IOException e) {
-				log.error(e.getMessage(), e);
-			}
+		try (InputStream inputStream = new ByteArrayInputStream(new HttpFetcher().get(url))) {
+			properties = getFrontendPropertiesFromJson(inputStream);
+		}
+		catch (HttpFetcher.HttpStatusException e) {
+			throw new MojoExecutionException("Could not load frontend properties from: " + url, e);
 		}
 		catch (IOException e) {
 			log.error(e.getMessage(), e);
@@ -320,7 +306,14 @@ public class PropertiesUtils {
 	private static Document parseXMLFromURL(String url) throws ParserConfigurationException, IOException, SAXException {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		DocumentBuilder builder = factory.newDocumentBuilder();
-		Document document = builder.parse(url);
+		Document document;
+		if (url.startsWith("http://") || url.startsWith("https://")) {
+			try (InputStream in = new ByteArrayInputStream(new HttpFetcher().get(url))) {
+				document = builder.parse(in, url);
+			}
+		} else {
+			document = builder.parse(url);
+		}
 		document.getDocumentElement().normalize();
 		return document;
 	}
@@ -1,13 +1,32 @@
 package org.openmrs.maven.plugins.utility;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.repository.legacy.metadata.ArtifactMetadataRetrievalException;
 import org.openmrs.maven.plugins.model.Artifact;
+import org.openmrs.maven.plugins.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Created by user on 27.05.16.
@@ -16,13 +35,166 @@ public class VersionsHelper {
 
     public static final String NO_VERSION_AVAILABLE_MSG = "No version is available in remote repositories!";
 
+    /**
+     * Directory in the openmrs directory keeping the available versions of artifacts between goals
+     */
+    public static final String VERSIONS_CACHE = "_openmrs_sdk_versions_cache";
+
+    /**
+     * System property setting how many minutes cached versions are used before being refreshed, 0 to disable the cache
+     */
+    public static final String VERSIONS_CACHE_TTL_PROPERTY = "versionsCacheTtl";
+
+    private static final long DEFAULT_VERSIONS_CACHE_TTL_MINUTES = 60;
+
+    private static final Logger log = LoggerFactory.getLogger(VersionsHelper.class);
+
     private final MavenEnvironment mavenEnvironment;
 
+    private static final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(3, runnable -> {
+        Thread thread = new Thread(runnable, "openmrs-sdk-versions-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Versions by artifact, loaded or being loaded. Loading happens outside of the map, as it reads remote repositories,
+     * and whoever adds the future to the map completes it.
+     */
+    private final Map<String, CompletableFuture<List<ArtifactVersion>>> versionsByArtifact = new ConcurrentHashMap<>();
+
     public VersionsHelper(MavenEnvironment mavenEnvironment) {
         this.mavenEnvironment = mavenEnvironment;
     }
 
+    /**
+     * Resolving the versions of an artifact reads the metadata of every remote repository, so versions are kept for
+     * the rest of the goal and on disk for {@link #VERSIONS_CACHE_TTL_PROPERTY} minutes. In offline mode, or if the
+     * repositories cannot be reached, versions cached earlier are used however old they are.
+     */
     private List<ArtifactVersion> getVersions(Artifact artifact) {
+        String key = artifact.getGroupId() + ":" + artifact.getArtifactId();
+        List<ArtifactVersion> versions;
+        try {
+            versions = getOrLoadVersions(key, artifact).join();
+        }
+        catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        // callers sort the versions in place
+        return new ArrayList<>(versions);
+    }
+
+    /**
+     * @return the versions of the artifact, loaded on this thread unless another thread is already loading them
+     */
+    private CompletableFuture<List<ArtifactVersion>> getOrLoadVersions(String key, Artifact artifact) {
+        CompletableFuture<List<ArtifactVersion>> versions = versionsByArtifact.get(key);
+        if (versions != null) {
+            return versions;
+        }
+        CompletableFuture<List<ArtifactVersion>> loading = new CompletableFuture<>();
+        versions = versionsByArtifact.putIfAbsent(key, loading);
+        if (versions != null) {
+            return versions;
+        }
+        try {
+            loading.complete(loadVersions(artifact));
+        }
+        catch (RuntimeException e) {
+            // not kept, so that the versions are loaded again next time
+            versionsByArtifact.remove(key, loading);
+            loading.completeExceptionally(e);
+        }
+        return loading;
+    }
+
+    /**
+     * Starts resolving the versions of artifacts in the background, so that they are ready by the time a prompt lists
+     * them. A prompt asking for versions which are still being resolved waits for them rather than resolving them
+     * again.
+     */
+    public void prefetchVersions(Artifact... artifacts) {
+        for (Artifact artifact : artifacts) {
+            String key = artifact.getGroupId() + ":" + artifact.getArtifactId();
+            if (versionsByArtifact.containsKey(key)) {
+                continue;
+            }
+            prefetchExecutor.execute(() -> {
+                try {
+                    getOrLoadVersions(key, artifact).join();
+                }
+                catch (CompletionException e) {
+                    log.debug("Unable to prefetch the versions of {}", key, e.getCause());
+                }
+            });
+        }
+    }
+
+    private List<ArtifactVersion> loadVersions(Artifact artifact) {
+        File cacheFile = getCacheFile(artifact);
+        boolean offline = mavenEnvironment.getMavenSession() != null && mavenEnvironment.getMavenSession().isOffline();
+        List<ArtifactVersion> cached = readCachedVersions(cacheFile, offline ? Long.MAX_VALUE : getCacheTtlMillis());
+        if (cached != null) {
+            return cached;
+        }
+
+        List<ArtifactVersion> versions = retrieveVersions(artifact);
+        if (!versions.isEmpty()) {
+            writeCachedVersions(cacheFile, versions);
+            return versions;
+        }
+
+        List<ArtifactVersion> stale = readCachedVersions(cacheFile, Long.MAX_VALUE);
+        return stale != null ? stale : versions;
+    }
+
+    static File getCacheFile(Artifact artifact) {
+        return Server.getServersPath().resolve(VERSIONS_CACHE).resolve(artifact.getGroupId())
+                .resolve(artifact.getArtifactId() + ".versions").toFile();
+    }
+
+    static long getCacheTtlMillis() {
+        String ttl = System.getProperty(VERSIONS_CACHE_TTL_PROPERTY);
+        long minutes = StringUtils.isNumeric(ttl) && StringUtils.isNotBlank(ttl) ? Long.parseLong(ttl)
+                : DEFAULT_VERSIONS_CACHE_TTL_MINUTES;
+        return TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    /**
+     * @return the versions cached in the file, or null if there are none or they are older than the given age
+     */
+    static List<ArtifactVersion> readCachedVersions(File cacheFile, long maxAgeMillis) {
+        if (!cacheFile.isFile() || System.currentTimeMillis() - cacheFile.lastModified() >= maxAgeMillis) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(cacheFile.toPath(), StandardCharsets.UTF_8).stream()
+                    .filter(StringUtils::isNotBlank)
+                    .map(DefaultArtifactVersion::new)
+                    .collect(Collectors.toList());
+        }
+        catch (IOException e) {
+            log.debug("Failed to read cached versions from {}", cacheFile, e);
+            return null;
+        }
+    }
+
+    static void writeCachedVersions(File cacheFile, List<ArtifactVersion> versions) {
+        List<String> lines = versions.stream().map(ArtifactVersion::toString).collect(Collectors.toList());
+        File temp = new File(cacheFile.getParentFile(), cacheFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            log.debug("Failed to cache versions in {}", cacheFile, e);
+            temp.delete();
+        }
+    }
+
+    private List<ArtifactVersion> retrieveVersions(Artifact artifact) {
         try {
             return mavenEnvironment.getArtifactMetadataSource().retrieveAvailableVersions(
                     mavenEnvironment.getArtifactFactory().createArtifact(
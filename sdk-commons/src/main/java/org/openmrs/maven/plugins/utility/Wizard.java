@@ -34,6 +34,8 @@ public interface Wizard {
 
     Artifact promptForRefApp3xArtifact(VersionsHelper versionsHelper) throws MojoExecutionException;
 
+    void prefetchDistroVersions(VersionsHelper versionsHelper);
+
     void showMessage(String message);
 
     void showMessageNoEOL(String message);
@@ -1,9 +1,12 @@
 package org.openmrs.maven.plugins.model;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -21,6 +24,9 @@ import static org.junit.Assert.assertTrue;
  */
 public class SdkStatisticsTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-M-yyyy");
     private SdkStatistics sdkStatistics;
     private Properties statistics;
@@ -72,5 +78,44 @@ public class SdkStatisticsTest {
         assertFalse((Boolean) checkIfOneWeekFromLastReportMethod.invoke(sdkStatistics));
     }
 
+    @Test
+    public void mergeSpool_shouldIncrementSpooledGoalsAndRemoveTheSpool() throws Exception {
+        Path originalServersPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.getRoot().getAbsolutePath());
+        try {
+            int setupCalls = sdkStatistics.getGoalCalls("Setup");
+            SdkStatistics.spoolGoal("Setup");
+            SdkStatistics.spoolGoal("Setup");
+
+            assertThat(sdkStatistics.mergeSpool(), is(2));
+            assertThat(sdkStatistics.getGoalCalls("Setup"), is(setupCalls + 2));
+            assertThat(new File(temporaryFolder.getRoot(), SdkStatistics.SDK_STATS_SPOOL_NAME).exists(), is(false));
+            assertThat(SdkStatistics.loadStatistics().getGoalCalls("Setup"), is(setupCalls + 2));
+
+            assertThat(sdkStatistics.mergeSpool(), is(0));
+        }
+        finally {
+            Server.setServersPath(originalServersPath.toString());
+        }
+    }
 
+    @Test
+    public void mergeSpool_shouldKeepCountsSavedByAConcurrentBuild() throws Exception {
+        Path originalServersPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.getRoot().getAbsolutePath());
+        try {
+            int setupCalls = sdkStatistics.getGoalCalls("Setup");
+            sdkStatistics.save();
+            SdkStatistics concurrent = SdkStatistics.loadStatistics();
+            concurrent.incrementGoal("Setup");
+            concurrent.save();
+            SdkStatistics.spoolGoal("Setup");
+
+            assertThat(sdkStatistics.mergeSpool(), is(1));
+            assertThat(SdkStatistics.loadStatistics().getGoalCalls("Setup"), is(setupCalls + 2));
+        }
+        finally {
+            Server.setServersPath(originalServersPath.toString());
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package org.openmrs.maven.plugins.model;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.utility.SDKConstants;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ServerCatalogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path originalServersPath;
+
+    @Before
+    public void setUp() {
+        originalServersPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        Server.setServersPath(originalServersPath.toString());
+    }
+
+    @Test
+    public void getServerIds_shouldListTheLastSavedServerFirst() throws Exception {
+        saveServer("first", "2.6.0");
+        saveServer("second", "2.7.0");
+        new File(temporaryFolder.getRoot(), "_openmrs_sdk_node_cache").mkdir();
+
+        assertThat(ServerCatalog.load().getServerIds(), contains("second", "first"));
+
+        saveServer("first", "2.6.1");
+        ServerCatalog catalog = ServerCatalog.load();
+        assertThat(catalog.getServerIds(), contains("first", "second"));
+        assertThat(catalog.getPlatformVersion("first"), equalTo("2.6.1"));
+    }
+
+    @Test
+    public void load_shouldRebuildTheCatalogWhenServersAreAddedOrRemoved() throws Exception {
+        saveServer("first", "2.6.0");
+        saveServer("second", "2.7.0");
+        assertThat(ServerCatalog.load().getServerIds(), contains("second", "first"));
+
+        FileUtils.deleteDirectory(new File(temporaryFolder.getRoot(), "second"));
+        File legacy = new File(temporaryFolder.getRoot(), "legacy");
+        legacy.mkdir();
+        FileUtils.write(new File(legacy, SDKConstants.OPENMRS_SERVER_PROPERTIES), "war.openmrs=1.11.0",
+                "UTF-8");
+
+        ServerCatalog catalog = ServerCatalog.load();
+        assertThat(catalog.getServerIds(), contains("legacy", "first"));
+        assertThat(catalog.getPlatformVersion("legacy"), equalTo("1.11.0"));
+    }
+
+    @Test
+    public void load_shouldNotRebuildTheCatalogForFilesOtherThanServers() throws Exception {
+        saveServer("first", "2.6.0");
+        File catalogFile = new File(temporaryFolder.getRoot(), ServerCatalog.CATALOG_FILE_NAME);
+        assertThat(catalogFile.setLastModified(0), equalTo(true));
+
+        FileUtils.write(new File(temporaryFolder.getRoot(), SdkStatistics.SDK_STATS_SPOOL_NAME), "Setup", "UTF-8");
+        new File(temporaryFolder.getRoot(), "_openmrs_sdk_node_cache").mkdir();
+
+        assertThat(ServerCatalog.load().getServerIds(), contains("first"));
+        assertThat(catalogFile.lastModified(), equalTo(0L));
+    }
+
+    private void saveServer(String serverId, String platformVersion) throws Exception {
+        Server server = new Server.ServerBuilder().setServerId(serverId).setPlatformVersion(platformVersion).build();
+        File serverDirectory = new File(temporaryFolder.getRoot(), serverId);
+        serverDirectory.mkdirs();
+        server.setServerDirectory(serverDirectory);
+        server.save();
+        // servers saved within the same millisecond would be sorted by name
+        Thread.sleep(5);
+    }
+}
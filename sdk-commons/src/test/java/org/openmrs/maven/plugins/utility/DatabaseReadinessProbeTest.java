@@ -0,0 +1,64 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class DatabaseReadinessProbeTest {
+
+    @Test
+    public void getAddress_shouldReturnTheHostAndPortOfTheDatabaseServer() {
+        InetSocketAddress address = DatabaseReadinessProbe.getAddress("jdbc:mysql://localhost:3308/openmrs?autoReconnect=true");
+        assertThat(address.getHostString(), equalTo("localhost"));
+        assertThat(address.getPort(), equalTo(3308));
+
+        assertThat(DatabaseReadinessProbe.getAddress("jdbc:postgresql://db/openmrs").getPort(), equalTo(5432));
+        assertThat(DatabaseReadinessProbe.getAddress("jdbc:mysql://db/").getPort(), equalTo(3306));
+    }
+
+    @Test
+    public void getAddress_shouldReturnNullForEmbeddedDatabases() {
+        assertThat(DatabaseReadinessProbe.getAddress("jdbc:h2:@APPLICATIONDATADIR@/database/openmrs"), nullValue());
+    }
+
+    @Test
+    public void getConnectionProperties_shouldSetTheTimeoutOnTheConnection() {
+        Properties mysql = DatabaseReadinessProbe.getConnectionProperties("jdbc:mysql://localhost:3308/", "root", "pass", 5000);
+        assertThat(mysql.getProperty("user"), equalTo("root"));
+        assertThat(mysql.getProperty("password"), equalTo("pass"));
+        assertThat(mysql.getProperty("connectTimeout"), equalTo("5000"));
+
+        Properties postgresql = DatabaseReadinessProbe.getConnectionProperties("jdbc:postgresql://db/openmrs", "postgres", "pass", 5000);
+        assertThat(postgresql.getProperty("connectTimeout"), equalTo("5"));
+        assertThat(postgresql.getProperty("loginTimeout"), equalTo("5"));
+    }
+
+    @Test
+    public void awaitPort_shouldReturnOnceThePortAcceptsConnections() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            DatabaseReadinessProbe probe = new DatabaseReadinessProbe().withDeadline(5000);
+            assertThat(probe.awaitPort("jdbc:mysql://localhost:" + serverSocket.getLocalPort() + "/"), is(true));
+        }
+    }
+
+    @Test
+    public void awaitPort_shouldGiveUpAtTheDeadline() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+
+        long start = System.currentTimeMillis();
+        DatabaseReadinessProbe probe = new DatabaseReadinessProbe().withDeadline(300).withBackoff(50, 100);
+        assertThat(probe.awaitPort("jdbc:mysql://localhost:" + port + "/"), is(false));
+        assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(200L));
+    }
+}
@@ -1,17 +1,31 @@
 package org.openmrs.maven.plugins.utility;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.openmrs.maven.plugins.model.Artifact;
 import org.openmrs.maven.plugins.model.ContentProperties;
 import org.openmrs.maven.plugins.model.DistroProperties;
+import org.openmrs.maven.plugins.model.Server;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -20,11 +34,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DistroHelperTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     VersionsHelper versionsHelper;
 
@@ -244,6 +262,91 @@ public class DistroHelperTest {
         assertThat(m.size(), equalTo(0));
     }
 
+    @Test
+    public void openFileFromDistro_shouldCacheTheExtractedFile() throws Exception {
+        File localRepository = temporaryFolder.newFolder("repository");
+        File distroDirectory = new File(localRepository, "org/openmrs/distro/refapp/2.3");
+        distroDirectory.mkdirs();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(distroDirectory, "refapp-2.3.jar")))) {
+            zip.putNextEntry(new ZipEntry("openmrs-distro.sql"));
+            zip.write("CREATE TABLE test (id INT);".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        Path serversPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.newFolder("servers").getAbsolutePath());
+        try {
+            ArtifactRepository repository = mock(ArtifactRepository.class);
+            when(repository.getBasedir()).thenReturn(localRepository.getAbsolutePath());
+            MavenSession mavenSession = mock(MavenSession.class);
+            when(mavenSession.getLocalRepository()).thenReturn(repository);
+            MavenEnvironment mavenEnvironment = new MavenEnvironment();
+            mavenEnvironment.setMavenSession(mavenSession);
+            Wizard wizard = mock(Wizard.class);
+            mavenEnvironment.setWizard(wizard);
+            DistroHelper distroHelper = new DistroHelper(mavenEnvironment);
+            Artifact artifact = new Artifact("refapp", "2.3", "org.openmrs.distro", "jar");
+
+            try (InputStream stream = distroHelper.openFileFromDistro(temporaryFolder.getRoot(), artifact, "openmrs-distro.sql")) {
+                assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), equalTo("CREATE TABLE test (id INT);"));
+            }
+            File cache = Server.getServersPath().resolve(DistroHelper.DISTRO_FILES_CACHE).toFile();
+            assertThat(FileUtils.listFiles(cache, new String[] { "sql" }, true).size(), equalTo(1));
+
+            // the cached file is read instead of the archive entry
+            try (InputStream stream = distroHelper.openFileFromDistro(temporaryFolder.getRoot(), artifact, "openmrs-distro.sql")) {
+                assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), equalTo("CREATE TABLE test (id INT);"));
+            }
+            verify(wizard).showMessage("Using openmrs-distro.sql of " + artifact + " extracted previously");
+            assertThat(FileUtils.listFiles(cache, null, true).size(), equalTo(1));
+        }
+        finally {
+            Server.setServersPath(serversPath.toString());
+        }
+    }
+
+    @Test
+    public void openFileFromDistro_shouldDiscardACachedFileWhichDoesNotMatchTheChecksum() throws Exception {
+        File localRepository = temporaryFolder.newFolder("repository");
+        File distroDirectory = new File(localRepository, "org/openmrs/distro/refapp/2.3");
+        distroDirectory.mkdirs();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(distroDirectory, "refapp-2.3.jar")))) {
+            zip.putNextEntry(new ZipEntry("openmrs-distro.sql"));
+            zip.write("CREATE TABLE test (id INT);".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        Path serversPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.newFolder("servers").getAbsolutePath());
+        try {
+            ArtifactRepository repository = mock(ArtifactRepository.class);
+            when(repository.getBasedir()).thenReturn(localRepository.getAbsolutePath());
+            MavenSession mavenSession = mock(MavenSession.class);
+            when(mavenSession.getLocalRepository()).thenReturn(repository);
+            MavenEnvironment mavenEnvironment = new MavenEnvironment();
+            mavenEnvironment.setMavenSession(mavenSession);
+            mavenEnvironment.setWizard(mock(Wizard.class));
+            DistroHelper distroHelper = new DistroHelper(mavenEnvironment);
+            Artifact artifact = new Artifact("refapp", "2.3", "org.openmrs.distro", "jar");
+
+            try (InputStream stream = distroHelper.openFileFromDistro(temporaryFolder.getRoot(), artifact, "openmrs-distro.sql")) {
+                IOUtils.toString(stream, StandardCharsets.UTF_8);
+            }
+            File cache = Server.getServersPath().resolve(DistroHelper.DISTRO_FILES_CACHE).toFile();
+            File cachedFile = FileUtils.listFiles(cache, new String[] { "sql" }, true).iterator().next();
+
+            // same size, different content
+            FileUtils.write(cachedFile, "CREATE TABLE tst2 (id INT);", StandardCharsets.UTF_8);
+            try (InputStream stream = distroHelper.openFileFromDistro(temporaryFolder.getRoot(), artifact, "openmrs-distro.sql")) {
+                assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), equalTo("CREATE TABLE test (id INT);"));
+            }
+            assertThat(FileUtils.readFileToString(cachedFile, StandardCharsets.UTF_8), equalTo("CREATE TABLE test (id INT);"));
+        }
+        finally {
+            Server.setServersPath(serversPath.toString());
+        }
+    }
+
     void assertMissingDependency(List<MissingDependency> dependencies, String dependentComponent, String requiredType, String requiredComponent, String requiredVersion, String currentVersion) {
         int numFound = 0;
         for (MissingDependency dependency : dependencies) {
@@ -268,4 +371,27 @@ public class DistroHelperTest {
         }
         return o1.equals(o2);
     }
+
+    @Test
+    public void evictDistroFiles_shouldDeleteUnusedAndLeastRecentlyUsedFiles() throws Exception {
+        File cacheDirectory = temporaryFolder.newFolder("cache");
+        long now = System.currentTimeMillis();
+        File unused = writeCachedFile(cacheDirectory, "refapp/2.0/0000000a/dump.sql", 10, now - 40L * 24 * 60 * 60 * 1000);
+        File leastRecent = writeCachedFile(cacheDirectory, "refapp/3.0/0000000b/dump.sql", 10, now - 2000);
+        File recent = writeCachedFile(cacheDirectory, "refapp/3.1/0000000c/dump.sql", 10, now - 1000);
+
+        DistroHelper.evictDistroFiles(cacheDirectory, 15, 30L * 24 * 60 * 60 * 1000);
+
+        assertFalse(unused.exists());
+        assertFalse(leastRecent.exists());
+        assertTrue(recent.exists());
+        assertFalse(new File(cacheDirectory, "refapp/2.0").exists());
+    }
+
+    private File writeCachedFile(File cacheDirectory, String path, int size, long lastModified) throws Exception {
+        File file = new File(cacheDirectory, path);
+        FileUtils.writeByteArrayToFile(file, new byte[size]);
+        file.setLastModified(lastModified);
+        return file;
+    }
 }
@@ -0,0 +1,104 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HttpFetcherTest {
+
+    private static final String LAST_MODIFIED = "Tue, 01 Oct 2024 10:00:00 GMT";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    HttpServer server;
+
+    String url;
+
+    int requests;
+
+    int notModified;
+
+    @Before
+    public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/spa-build-config.json", exchange -> {
+            requests++;
+            if (LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                notModified++;
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "{\"coreVersion\":\"5.8.0\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+        HttpFetcher.clearMemoryCache();
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+        HttpFetcher.clearMemoryCache();
+        HttpFetcher.setOffline(false);
+    }
+
+    @Test
+    public void get_shouldRevalidateExpiredDocumentsWithAConditionalRequest() throws Exception {
+        new HttpFetcher(temp.getRoot(), 60000).get(url + "/spa-build-config.json");
+        HttpFetcher.clearMemoryCache();
+        new HttpFetcher(temp.getRoot(), 60000).get(url + "/spa-build-config.json");
+        assertThat(requests, equalTo(1));
+
+        HttpFetcher.clearMemoryCache();
+        byte[] document = new HttpFetcher(temp.getRoot(), 0).get(url + "/spa-build-config.json");
+        assertThat(new String(document, StandardCharsets.UTF_8), equalTo("{\"coreVersion\":\"5.8.0\"}"));
+        assertThat(requests, equalTo(2));
+        assertThat(notModified, equalTo(1));
+    }
+
+    @Test
+    public void get_shouldOnlyReadTheCacheWhenOffline() throws Exception {
+        new HttpFetcher(temp.getRoot(), 0).get(url + "/spa-build-config.json");
+        HttpFetcher.clearMemoryCache();
+        HttpFetcher.setOffline(true);
+
+        byte[] document = new HttpFetcher(temp.getRoot(), 0).get(url + "/spa-build-config.json");
+        assertThat(new String(document, StandardCharsets.UTF_8), equalTo("{\"coreVersion\":\"5.8.0\"}"));
+        assertThat(requests, equalTo(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void get_shouldFailWhenOfflineIfTheDocumentIsNotCached() throws Exception {
+        HttpFetcher.setOffline(true);
+        new HttpFetcher(temp.getRoot(), 0).get(url + "/spa-build-config.json");
+    }
+
+    @Test
+    public void get_shouldReportTheStatusOfFailedRequests() throws Exception {
+        try {
+            new HttpFetcher(temp.getRoot(), 0).get(url + "/missing.json");
+            throw new AssertionError("Expected the request to fail");
+        }
+        catch (HttpFetcher.HttpStatusException e) {
+            assertThat(e.getStatus(), equalTo(404));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MavenEnvironmentTest {
+
+    @Test
+    public void getHelpers_shouldReturnTheSameInstanceOnEachCall() {
+        MavenEnvironment mavenEnvironment = new MavenEnvironment();
+
+        assertThat(mavenEnvironment.getVersionsHelper(), sameInstance(mavenEnvironment.getVersionsHelper()));
+        assertThat(mavenEnvironment.getArtifactHelper(), sameInstance(mavenEnvironment.getArtifactHelper()));
+    }
+}
@@ -0,0 +1,159 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class NpmRegistryClientTest {
+
+    private static final String PACKUMENT = "{\"name\":\"@openmrs/esm-login-app\","
+            + "\"dist-tags\":{\"latest\":\"5.2.0\",\"next\":\"5.10.0-pre.12\"},"
+            + "\"versions\":{"
+            + "\"5.1.0\":{\"dist\":{\"tarball\":\"https://registry.example.org/esm-login-app-5.1.0.tgz\"}},"
+            + "\"5.1.3\":{},\"5.2.0\":{},\"5.9.0\":{},\"5.10.0-pre.12\":{},\"4.0.0\":{}}}";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    HttpServer registry;
+
+    String registryUrl;
+
+    List<String> conditionalRequests = new ArrayList<>();
+
+    int requests;
+
+    List<String> authorizations = new ArrayList<>();
+
+    @Before
+    public void setup() throws Exception {
+        registry = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        registry.createContext("/@openmrs/esm-login-app", exchange -> {
+            requests++;
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (etag != null) {
+                conditionalRequests.add(etag);
+            }
+            if ("\"v1\"".equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = PACKUMENT.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        registry.start();
+        registryUrl = "http://localhost:" + registry.getAddress().getPort();
+        NpmRegistryClient.clearMemoryCache();
+    }
+
+    @After
+    public void teardown() {
+        registry.stop(0);
+        NpmRegistryClient.clearMemoryCache();
+    }
+
+    @Test
+    public void resolveVersion_shouldResolveDistTagsVersionsAndRanges() throws Exception {
+        NpmRegistryClient client = new NpmRegistryClient(registryUrl, temp.getRoot(), 60000);
+
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "next"), equalTo("5.10.0-pre.12"));
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", null), equalTo("5.2.0"));
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "5.1.0"), equalTo("5.1.0"));
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "^5.0.0"), equalTo("5.2.0"));
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "~5.1.0"), equalTo("5.1.3"));
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "^6.0.0"), nullValue());
+        assertThat(client.getTarballUrl("@openmrs/esm-login-app", "5.1.0"),
+                equalTo("https://registry.example.org/esm-login-app-5.1.0.tgz"));
+        assertThat(requests, equalTo(1));
+    }
+
+    @Test
+    public void getVersions_shouldReturnTheHighestVersionFirst() throws Exception {
+        NpmRegistryClient client = new NpmRegistryClient(registryUrl, temp.getRoot(), 60000);
+
+        assertThat(client.getVersions("@openmrs/esm-login-app"),
+                contains("5.10.0-pre.12", "5.9.0", "5.2.0", "5.1.3", "5.1.0", "4.0.0"));
+    }
+
+    @Test
+    public void getPackument_shouldUseTheDiskCacheAndRevalidateItOnceExpired() throws Exception {
+        new NpmRegistryClient(registryUrl, temp.getRoot(), 60000).getPackument("@openmrs/esm-login-app");
+        NpmRegistryClient.clearMemoryCache();
+        new NpmRegistryClient(registryUrl, temp.getRoot(), 60000).getPackument("@openmrs/esm-login-app");
+        assertThat(requests, equalTo(1));
+
+        NpmRegistryClient.clearMemoryCache();
+        NpmRegistryClient client = new NpmRegistryClient(registryUrl, temp.getRoot(), 0);
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "latest"), equalTo("5.2.0"));
+        assertThat(requests, equalTo(2));
+        assertThat(conditionalRequests, contains("\"v1\""));
+    }
+
+    @Test
+    public void getPackument_shouldUseTheCacheIfTheRegistryCannotBeReached() throws Exception {
+        new NpmRegistryClient(registryUrl, temp.getRoot(), 0).getPackument("@openmrs/esm-login-app");
+        registry.stop(0);
+        NpmRegistryClient.clearMemoryCache();
+
+        NpmRegistryClient client = new NpmRegistryClient(registryUrl, temp.getRoot(), 0);
+        assertThat(client.resolveVersion("@openmrs/esm-login-app", "latest"), equalTo("5.2.0"));
+    }
+
+    @Test
+    public void loadNpmConfig_shouldPreferTheEnvironmentThenTheProjectThenTheUser() throws Exception {
+        File projectDir = temp.newFolder("project");
+        File userHome = temp.newFolder("home");
+        FileUtils.writeStringToFile(new File(userHome, ".npmrc"), "registry=https://user.example.org/\n"
+                + "//project.example.org/npm/:_authToken=${NPM_TOKEN}\n", StandardCharsets.UTF_8);
+
+        Map<String, String> env = Collections.singletonMap("NPM_TOKEN", "secret");
+        Map<String, String> config = NpmRegistryClient.loadNpmConfig(projectDir.toPath(), userHome.toPath(), env);
+        assertThat(config.get("registry"), equalTo("https://user.example.org/"));
+
+        FileUtils.writeStringToFile(new File(projectDir, ".npmrc"), "# project registry\n"
+                + "registry = \"https://project.example.org/npm/\"\n", StandardCharsets.UTF_8);
+        config = NpmRegistryClient.loadNpmConfig(projectDir.toPath(), userHome.toPath(), env);
+        assertThat(config.get("registry"), equalTo("https://project.example.org/npm/"));
+        assertThat(NpmRegistryClient.getAuthToken(config, config.get("registry")), equalTo("secret"));
+        assertThat(NpmRegistryClient.getAuthToken(config, "https://user.example.org"), nullValue());
+
+        config = NpmRegistryClient.loadNpmConfig(projectDir.toPath(), userHome.toPath(),
+                Collections.singletonMap("npm_config_registry", "https://env.example.org"));
+        assertThat(config.get("registry"), equalTo("https://env.example.org"));
+    }
+
+    @Test
+    public void getPackument_shouldSendTheTokenOfTheRegistry() throws Exception {
+        NpmRegistryClient client = new NpmRegistryClient(registryUrl, "secret", temp.getRoot(), 60000);
+
+        client.getPackument("@openmrs/esm-login-app");
+        assertThat(authorizations, contains("Bearer secret"));
+        assertThat(client.getAuthorization(registryUrl + "/@openmrs/esm-login-app/-/esm-login-app-5.1.0.tgz"),
+                equalTo("Bearer secret"));
+        assertThat(client.getAuthorization("https://registry.example.org/esm-login-app-5.1.0.tgz"), nullValue());
+    }
+}
@@ -1,10 +1,20 @@
 package org.openmrs.maven.plugins.utility;
 
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Artifact;
+import org.openmrs.maven.plugins.model.Server;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,9 +22,17 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class VersionsHelperTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     VersionsHelper helper;
 
     @Before
@@ -86,4 +104,92 @@ public class VersionsHelperTest {
                 createTestVersions("1.5.2", "1.5.6", "1.5.7-SNAPSHOT"), 6);
         assertThat(res, contains("1.5.7-SNAPSHOT", "1.5.6"));
     }
+
+    @Test
+    public void readCachedVersions_shouldReturnVersionsWrittenBeforeTheyExpire() throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "org.openmrs.module/webservices.rest-omod.versions");
+        VersionsHelper.writeCachedVersions(cacheFile, createTestVersions("2.40.0", "2.41.0-SNAPSHOT"));
+
+        List<ArtifactVersion> cached = VersionsHelper.readCachedVersions(cacheFile, 60000);
+        assertThat(cached, hasSize(2));
+        assertThat(cached.get(1).toString(), equalTo("2.41.0-SNAPSHOT"));
+
+        cacheFile.setLastModified(System.currentTimeMillis() - 120000);
+        assertThat(VersionsHelper.readCachedVersions(cacheFile, 60000), nullValue());
+        assertThat(VersionsHelper.readCachedVersions(cacheFile, Long.MAX_VALUE), hasSize(2));
+    }
+
+    @Test
+    public void readCachedVersions_shouldReturnNullIfNothingIsCached() {
+        assertThat(VersionsHelper.readCachedVersions(new File(temporaryFolder.getRoot(), "missing.versions"),
+                Long.MAX_VALUE), nullValue());
+    }
+
+    @Test
+    public void prefetchVersions_shouldResolveVersionsOnceForThePromptsAfterIt() throws Exception {
+        Path serversPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.newFolder("openmrs").getAbsolutePath());
+        System.setProperty(VersionsHelper.VERSIONS_CACHE_TTL_PROPERTY, "0");
+        try {
+            MavenEnvironment mavenEnvironment = new MavenEnvironment();
+            ArtifactMetadataSource metadataSource = mock(ArtifactMetadataSource.class);
+            ArtifactFactory artifactFactory = mock(ArtifactFactory.class);
+            mavenEnvironment.setArtifactMetadataSource(metadataSource);
+            mavenEnvironment.setArtifactFactory(artifactFactory);
+            mavenEnvironment.setMavenSession(mock(MavenSession.class));
+            mavenEnvironment.setMavenProject(mock(MavenProject.class));
+            when(metadataSource.retrieveAvailableVersions(any(), any(), any()))
+                    .thenReturn(createTestVersions("2.12.0", "2.13.0"));
+
+            VersionsHelper versionsHelper = new VersionsHelper(mavenEnvironment);
+            Artifact artifact = new Artifact("referenceapplication-package", "2.3.1", "org.openmrs.distro");
+            versionsHelper.prefetchVersions(artifact);
+
+            assertThat(versionsHelper.getSuggestedVersions(artifact, null), contains("2.13.0", "2.12.0"));
+            verify(metadataSource, times(1)).retrieveAvailableVersions(any(), any(), any());
+        }
+        finally {
+            System.clearProperty(VersionsHelper.VERSIONS_CACHE_TTL_PROPERTY);
+            if (serversPath != null) {
+                Server.setServersPath(serversPath.toString());
+            }
+        }
+    }
+
+    @Test
+    public void getVersions_shouldLoadVersionsAgainAfterAFailure() throws Exception {
+        Path serversPath = Server.getServersPath();
+        Server.setServersPath(temporaryFolder.newFolder("openmrs").getAbsolutePath());
+        System.setProperty(VersionsHelper.VERSIONS_CACHE_TTL_PROPERTY, "0");
+        try {
+            MavenEnvironment mavenEnvironment = new MavenEnvironment();
+            ArtifactMetadataSource metadataSource = mock(ArtifactMetadataSource.class);
+            mavenEnvironment.setArtifactMetadataSource(metadataSource);
+            mavenEnvironment.setArtifactFactory(mock(ArtifactFactory.class));
+            mavenEnvironment.setMavenSession(mock(MavenSession.class));
+            mavenEnvironment.setMavenProject(mock(MavenProject.class));
+            when(metadataSource.retrieveAvailableVersions(any(), any(), any()))
+                    .thenThrow(new IllegalStateException("unreachable"))
+                    .thenReturn(createTestVersions("2.12.0", "2.13.0"));
+
+            VersionsHelper versionsHelper = new VersionsHelper(mavenEnvironment);
+            Artifact artifact = new Artifact("referenceapplication-package", "2.3.1", "org.openmrs.distro");
+            try {
+                versionsHelper.getSuggestedVersions(artifact, null);
+                throw new AssertionError("Expected the versions to fail to load");
+            }
+            catch (IllegalStateException e) {
+                assertThat(e.getMessage(), equalTo("unreachable"));
+            }
+
+            assertThat(versionsHelper.getSuggestedVersions(artifact, null), contains("2.13.0", "2.12.0"));
+            verify(metadataSource, times(2)).retrieveAvailableVersions(any(), any(), any());
+        }
+        finally {
+            System.clearProperty(VersionsHelper.VERSIONS_CACHE_TTL_PROPERTY);
+            if (serversPath != null) {
+                Server.setServersPath(serversPath.toString());
+            }
+        }
+    }
 }
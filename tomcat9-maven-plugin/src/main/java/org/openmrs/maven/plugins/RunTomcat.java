@@ -5,6 +5,7 @@ import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleEvent;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.loader.WebappLoader;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.commons.io.FileUtils;
@@ -27,6 +28,7 @@ import org.openmrs.maven.plugins.model.Project;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Version;
 import org.openmrs.maven.plugins.utility.DockerHelper;
+import org.openmrs.maven.plugins.utility.FrontendServlet;
 import org.openmrs.maven.plugins.utility.MavenEnvironment;
 import org.openmrs.maven.plugins.utility.OpenMRSSDKRedirectServlet;
 import org.openmrs.maven.plugins.utility.SDKConstants;
@@ -72,6 +74,15 @@ public class RunTomcat extends AbstractMojo {
 	@Parameter(property = "watchApi")
 	private Boolean watchApi;
 
+	/**
+	 * Serves the frontend of the server directly from its frontend directory, sending the compressed copies written
+	 * when it was built, instead of leaving it to the OpenMRS webapp
+	 */
+	@Parameter(property = "serveFrontend", defaultValue = "false")
+	private boolean serveFrontend;
+
+	private static final String FRONTEND_CONTEXT_PATH = "/openmrs/spa";
+
 	MavenEnvironment mavenEnvironment;
 
 	public void initTask() {
@@ -150,12 +161,14 @@ public class RunTomcat extends AbstractMojo {
 		}
 
 		if (StringUtils.isNotBlank(server.getContainerId())) {
-			new DockerHelper(mavenEnvironment).runDbContainer(
+			DockerHelper dockerHelper = new DockerHelper(mavenEnvironment);
+			dockerHelper.runDbContainer(
 					server.getContainerId(),
 					server.getDbUri(),
 					server.getDbUser(),
 					server.getDbPassword()
 			);
+			dockerHelper.checkInMemoryDatabase(server);
 		}
 
 		wizard.showMessage("Starting Tomcat...\n");
@@ -179,7 +192,12 @@ public class RunTomcat extends AbstractMojo {
 		tomcat.getHost().setDeployOnStartup(true);
 		tomcat.getConnector().setURIEncoding("UTF-8");
 		Context context = tomcat.addWebapp(tomcat.getHost(), "/openmrs", new File(serverPath, warFile).getAbsolutePath());
-		context.addLifecycleListener(new OpenmrsStartupListener(wizard, port));
+		context.addLifecycleListener(new OpenmrsStartupListener(wizard, server, port));
+
+		File frontendDir = new File(serverPath, SDKConstants.OPENMRS_SERVER_FRONTEND);
+		if (serveFrontend && new File(frontendDir, FrontendServlet.INDEX).isFile()) {
+			addFrontendContext(tomcat, frontendDir);
+		}
 
 		System.setProperty("OPENMRS_INSTALLATION_SCRIPT",
 				new File(serverPath, SDKConstants.OPENMRS_SERVER_PROPERTIES).getAbsolutePath());
@@ -207,6 +225,19 @@ public class RunTomcat extends AbstractMojo {
 		}
 	}
 
+	/**
+	 * Deploys the frontend at /openmrs/spa, which takes precedence over the OpenMRS webapp for the paths of the frontend
+	 */
+	private void addFrontendContext(Tomcat tomcat, File frontendDir) {
+		Context frontend = tomcat.addContext(FRONTEND_CONTEXT_PATH, frontendDir.getAbsolutePath());
+		for (Map.Entry<String, String> mimeType : FrontendServlet.MIME_TYPES.entrySet()) {
+			frontend.addMimeMapping(mimeType.getKey(), mimeType.getValue());
+		}
+		Wrapper frontendServlet = tomcat.addServlet(FRONTEND_CONTEXT_PATH, "frontendServlet", new FrontendServlet());
+		frontendServlet.addInitParameter("precompressed", "true");
+		frontend.addServletMappingDecoded("/", "frontendServlet");
+	}
+
 	private void setServerCustomProperties(Server server) {
 		Map<String, String> customProperties = server.getCustomProperties();
 		for (String key : customProperties.keySet()) {
@@ -256,12 +287,17 @@ public class RunTomcat extends AbstractMojo {
 
 	public static final class OpenmrsStartupListener implements LifecycleListener {
 
+		private static final String OPENMRS_LISTENER = "org.openmrs.web.Listener";
+
 		private final Wizard wizard;
 
+		private final Server server;
+
 		private final int port;
 
-		OpenmrsStartupListener(Wizard wizard, int port) {
+		OpenmrsStartupListener(Wizard wizard, Server server, int port) {
 			this.wizard = wizard;
+			this.server = server;
 			this.port = port;
 		}
 
@@ -271,8 +307,40 @@ public class RunTomcat extends AbstractMojo {
 				return;
 			}
 
+			Context context = (Context) event.getLifecycle();
+			if (!context.getState().isAvailable()) {
+				wizard.showError("OpenMRS failed to start, see the log above for the cause");
+				return;
+			}
+
+			// lets the SDK capture a golden image of the server before it is run again, provided that OpenMRS has
+			// initialised its database, as the webapp is started even if OpenMRS fails to or still needs to be set up
+			if (server.getPendingGoldenImage() != null && isOpenmrsStarted(context.getLoader().getClassLoader())) {
+				try {
+					FileUtils.touch(server.getFirstBootMarker());
+				}
+				catch (IOException e) {
+					wizard.showWarning("Failed to record the first start of the server: " + e.getMessage());
+				}
+			}
+
 			wizard.showMessage(
 					String.format("OpenMRS is ready for you at http://localhost%s/openmrs/", port == 80 ? "" : ":" + port));
 		}
+
+		/**
+		 * @return true if the OpenMRS webapp loaded by the given class loader has started without error and without
+		 * needing to be set up
+		 */
+		static boolean isOpenmrsStarted(ClassLoader classLoader) {
+			try {
+				Class<?> listener = Class.forName(OPENMRS_LISTENER, true, classLoader);
+				return !((Boolean) listener.getMethod("errorAtStartup").invoke(null))
+						&& !((Boolean) listener.getMethod("isSetupNeeded").invoke(null));
+			}
+			catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+				return false;
+			}
+		}
 	}
 }
@@ -0,0 +1,84 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.catalina.servlets.DefaultServlet;
+
+/**
+ * Serves the frontend of a server from its frontend directory, which RunTomcat deploys at /openmrs/spa.
+ * <p>
+ * Files are sent precompressed when the SDK wrote a compressed copy next to them at build time. Files with a content
+ * hash in their name never change, so they are cached by browsers for a year, while the entry points of the frontend
+ * are revalidated on each load. Paths which are not files are routes of the frontend, and are answered with its
+ * index.html.
+ */
+public class FrontendServlet extends DefaultServlet {
+
+	public static final String INDEX = "/index.html";
+
+	/**
+	 * Content types of the files of a frontend, as a context created by RunTomcat has no default ones
+	 */
+	public static final Map<String, String> MIME_TYPES = new LinkedHashMap<>();
+
+	static {
+		MIME_TYPES.put("html", "text/html");
+		MIME_TYPES.put("js", "application/javascript");
+		MIME_TYPES.put("mjs", "application/javascript");
+		MIME_TYPES.put("css", "text/css");
+		MIME_TYPES.put("json", "application/json");
+		MIME_TYPES.put("map", "application/json");
+		MIME_TYPES.put("webmanifest", "application/manifest+json");
+		MIME_TYPES.put("svg", "image/svg+xml");
+		MIME_TYPES.put("png", "image/png");
+		MIME_TYPES.put("jpg", "image/jpeg");
+		MIME_TYPES.put("gif", "image/gif");
+		MIME_TYPES.put("ico", "image/x-icon");
+		MIME_TYPES.put("woff", "font/woff");
+		MIME_TYPES.put("woff2", "font/woff2");
+		MIME_TYPES.put("ttf", "font/ttf");
+		MIME_TYPES.put("txt", "text/plain");
+		MIME_TYPES.put("xml", "application/xml");
+	}
+
+	private static final Pattern HASHED_FILE = Pattern.compile(".*[.-][0-9a-f]{8,}\\.[a-z0-9]+$");
+
+	private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	private static final String REVALIDATE = "no-cache";
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+		String realPath = getServletContext().getRealPath(path);
+		if (realPath == null || !new File(realPath).isFile()) {
+			if (INDEX.equals(path)) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			response.setHeader("Cache-Control", REVALIDATE);
+			request.getRequestDispatcher(INDEX).forward(request, response);
+			return;
+		}
+
+		response.setHeader("Cache-Control", getCacheControl(path));
+		super.doGet(request, response);
+	}
+
+	static String getCacheControl(String path) {
+		return HASHED_FILE.matcher(path).matches() ? IMMUTABLE : REVALIDATE;
+	}
+
+	@Override
+	public String getServletInfo() {
+		return "OpenMRS SDK Frontend Servlet";
+	}
+}
@@ -0,0 +1,75 @@
+package org.openmrs.maven.plugins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.Loader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+public class OpenmrsStartupListenerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Wizard wizard;
+
+    private Server server;
+
+    private Context context;
+
+    private RunTomcat.OpenmrsStartupListener listener;
+
+    @Before
+    public void setup() throws Exception {
+        wizard = mock(Wizard.class);
+        server = new Server.ServerBuilder().setServerId("server").build();
+        server.setServerDirectory(temporaryFolder.newFolder("server"));
+        server.setPendingGoldenImage("refapp-3.0.0");
+        context = mock(Context.class);
+        Loader loader = mock(Loader.class);
+        when(context.getLoader()).thenReturn(loader);
+        // the OpenMRS webapp is not on the class path of the tests
+        when(loader.getClassLoader()).thenReturn(getClass().getClassLoader());
+        listener = new RunTomcat.OpenmrsStartupListener(wizard, server, 8080);
+    }
+
+    @Test
+    public void lifecycleEvent_shouldNotRecordTheFirstStartIfTheWebappFailedToStart() {
+        when(context.getState()).thenReturn(LifecycleState.FAILED);
+
+        listener.lifecycleEvent(new LifecycleEvent(context, Lifecycle.AFTER_START_EVENT, null));
+
+        assertThat(server.getFirstBootMarker().exists(), is(false));
+        verify(wizard).showError(anyString());
+        verify(wizard, never()).showMessage(anyString());
+    }
+
+    @Test
+    public void lifecycleEvent_shouldNotRecordTheFirstStartIfOpenmrsHasNotStarted() {
+        when(context.getState()).thenReturn(LifecycleState.STARTED);
+
+        listener.lifecycleEvent(new LifecycleEvent(context, Lifecycle.AFTER_START_EVENT, null));
+
+        assertThat(server.getFirstBootMarker().exists(), is(false));
+        verify(wizard).showMessage("OpenMRS is ready for you at http://localhost:8080/openmrs/");
+    }
+
+    @Test
+    public void isOpenmrsStarted_shouldReturnFalseIfTheOpenmrsListenerIsMissing() {
+        assertThat(RunTomcat.OpenmrsStartupListener.isOpenmrsStarted(getClass().getClassLoader()), is(false));
+    }
+}
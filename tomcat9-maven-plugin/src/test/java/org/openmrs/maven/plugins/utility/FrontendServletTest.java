@@ -0,0 +1,76 @@
+package org.openmrs.maven.plugins.utility;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Strict.class)
+public class FrontendServletTest {
+
+    private FrontendServlet servlet;
+
+    @Mock
+    private ServletContext servletContext;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private RequestDispatcher dispatcher;
+
+    @Before
+    public void setup() {
+        this.servlet = spy(new FrontendServlet());
+    }
+
+    @Test
+    public void doGet_shouldAnswerRoutesOfTheFrontendWithTheIndex() throws IOException, ServletException {
+        doReturn(servletContext).when(servlet).getServletContext();
+        when(request.getServletPath()).thenReturn("/home/patient-search");
+        when(request.getRequestDispatcher(FrontendServlet.INDEX)).thenReturn(dispatcher);
+
+        servlet.doGet(request, response);
+
+        verify(response).setHeader("Cache-Control", "no-cache");
+        verify(dispatcher).forward(request, response);
+    }
+
+    @Test
+    public void doGet_shouldReturnNotFoundIfTheIndexIsMissing() throws IOException, ServletException {
+        doReturn(servletContext).when(servlet).getServletContext();
+        when(request.getServletPath()).thenReturn(FrontendServlet.INDEX);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    public void getCacheControl_shouldCacheOnlyFilesWithAContentHash() {
+        assertThat(FrontendServlet.getCacheControl("/openmrs-esm-login-app.3f2a9c1d.js"),
+                equalTo("public, max-age=31536000, immutable"));
+        assertThat(FrontendServlet.getCacheControl("/main-5e0b7a2c4d.css"), equalTo("public, max-age=31536000, immutable"));
+        assertThat(FrontendServlet.getCacheControl("/index.html"), equalTo("no-cache"));
+        assertThat(FrontendServlet.getCacheControl("/importmap.json"), equalTo("no-cache"));
+    }
+}